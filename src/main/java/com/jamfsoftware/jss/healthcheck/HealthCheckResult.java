@@ -0,0 +1,726 @@
+package com.jamfsoftware.jss.healthcheck;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.jamfsoftware.jss.healthcheck.json.JSONDocument;
+
+/**
+ * The results of a health check. {@link HealthCheck} and the check modules fill it in, and the health reports read
+ * it directly. It is only turned into JSON when the report is saved or shown, see {@link #toJSON()}, and a saved
+ * report can be read back with {@link #fromJSON(String)}.
+ * <p>
+ * A value that could not be read is left as {@code null}, or {@code -1} for counts.
+ *
+ * @since 1.0
+ */
+public final class HealthCheckResult {
+	
+	private String jssUrl = "";
+	private int totalComputers = -1;
+	private int totalMobileDevices = -1;
+	private int totalUsers = -1;
+	private final SystemInfo system = new SystemInfo();
+	
+	private String activationCode;
+	private String activationCodeExpires;
+	private int checkInFrequency = -1;
+	private List<LDAPServer> ldapServers;
+	private Boolean gsxConnectionEnabled;
+	private String gsxConnectionUri;
+	private List<VPPAccount> vppAccounts;
+	private List<SmartGroup> computerGroups;
+	private List<SmartGroup> mobileDeviceGroups;
+	private List<SmartGroup> userGroups;
+	private Boolean managedPreferenceProfilesEnabled;
+	private List<String> printerWarnings;
+	private int computerExtensionAttributeCount = -1;
+	private int mobileDeviceExtensionAttributeCount = -1;
+	private int computerConfigurationCount = -1;
+	private List<String> scriptsNeedingUpdate;
+	private List<String> policiesWithIssues;
+	private String smtpServer;
+	private String smtpSenderEmail;
+	
+	private boolean passwordRequiresUppercase;
+	private boolean passwordRequiresLowercase;
+	private boolean passwordRequiresNumber;
+	private boolean passwordRequiresSpecialCharacters;
+	private Boolean changeManagementEnabled;
+	private String changeManagementLogPath;
+	private String sslCertIssuer;
+	private String sslCertExpires;
+	private String logFlushTime;
+	private String mdmPushCertExpires;
+	private String pushProxyExpires;
+	private Boolean loginLogoutHooksEnabled;
+	private int computersRowCount = -1;
+	private int computersDenormalizedRowCount = -1;
+	private int mobileDevicesRowCount = -1;
+	private int mobileDevicesDenormalizedRowCount = -1;
+	
+	private Map<String, Integer> apiConcurrency = new LinkedHashMap<>();
+	private List<String> timedOutSections = new ArrayList<>();
+	private Map<String, Integer> incompleteSections = new LinkedHashMap<>();
+	private long apiHedgeableRequests;
+	private long apiHedgedRequests;
+	private long apiHedgeWins;
+	
+	/**
+	 * Reads a report saved by {@link #toJSON()}. Values missing from the JSON are left unset.
+	 *
+	 * @param json The JSON of a previous health check
+	 *
+	 * @return The results of the previous health check
+	 *
+	 * @throws com.google.gson.JsonParseException If the JSON is malformed
+	 */
+	public static HealthCheckResult fromJSON(String json) {
+		return HealthCheckResultJSON.read(json);
+	}
+	
+	/**
+	 * @return A new JSON document of these results
+	 */
+	public JSONDocument toJSON() {
+		return HealthCheckResultJSON.write(this);
+	}
+	
+	public String getJSSUrl() {
+		return jssUrl;
+	}
+	
+	public void setJSSUrl(String jssUrl) {
+		this.jssUrl = jssUrl;
+	}
+	
+	public int getTotalComputers() {
+		return totalComputers;
+	}
+	
+	public void setTotalComputers(int totalComputers) {
+		this.totalComputers = totalComputers;
+	}
+	
+	public int getTotalMobileDevices() {
+		return totalMobileDevices;
+	}
+	
+	public void setTotalMobileDevices(int totalMobileDevices) {
+		this.totalMobileDevices = totalMobileDevices;
+	}
+	
+	public int getTotalUsers() {
+		return totalUsers;
+	}
+	
+	public void setTotalUsers(int totalUsers) {
+		this.totalUsers = totalUsers;
+	}
+	
+	public SystemInfo getSystem() {
+		return system;
+	}
+	
+	public String getActivationCode() {
+		return activationCode;
+	}
+	
+	public String getActivationCodeExpires() {
+		return activationCodeExpires;
+	}
+	
+	public void setActivationCode(String activationCode, String expires) {
+		this.activationCode = activationCode;
+		this.activationCodeExpires = expires;
+	}
+	
+	/**
+	 * @return The computer check-in frequency in minutes
+	 */
+	public int getCheckInFrequency() {
+		return checkInFrequency;
+	}
+	
+	public void setCheckInFrequency(int checkInFrequency) {
+		this.checkInFrequency = checkInFrequency;
+	}
+	
+	public List<LDAPServer> getLDAPServers() {
+		return list(ldapServers);
+	}
+	
+	public void setLDAPServers(List<LDAPServer> ldapServers) {
+		this.ldapServers = ldapServers;
+	}
+	
+	public Boolean isGSXConnectionEnabled() {
+		return gsxConnectionEnabled;
+	}
+	
+	public String getGSXConnectionUri() {
+		return gsxConnectionUri;
+	}
+	
+	public void setGSXConnection(boolean enabled, String uri) {
+		this.gsxConnectionEnabled = enabled;
+		this.gsxConnectionUri = uri;
+	}
+	
+	public List<VPPAccount> getVPPAccounts() {
+		return list(vppAccounts);
+	}
+	
+	public void setVPPAccounts(List<VPPAccount> vppAccounts) {
+		this.vppAccounts = vppAccounts;
+	}
+	
+	/**
+	 * @return The computer smart groups with nested groups or too many criteria
+	 */
+	public List<SmartGroup> getComputerGroups() {
+		return list(computerGroups);
+	}
+	
+	public void setComputerGroups(List<SmartGroup> computerGroups) {
+		this.computerGroups = computerGroups;
+	}
+	
+	/**
+	 * @return The mobile device smart groups with nested groups or too many criteria
+	 */
+	public List<SmartGroup> getMobileDeviceGroups() {
+		return list(mobileDeviceGroups);
+	}
+	
+	public void setMobileDeviceGroups(List<SmartGroup> mobileDeviceGroups) {
+		this.mobileDeviceGroups = mobileDeviceGroups;
+	}
+	
+	/**
+	 * @return The user smart groups with nested groups or too many criteria
+	 */
+	public List<SmartGroup> getUserGroups() {
+		return list(userGroups);
+	}
+	
+	public void setUserGroups(List<SmartGroup> userGroups) {
+		this.userGroups = userGroups;
+	}
+	
+	public Boolean isManagedPreferenceProfilesEnabled() {
+		return managedPreferenceProfilesEnabled;
+	}
+	
+	public void setManagedPreferenceProfilesEnabled(boolean enabled) {
+		this.managedPreferenceProfilesEnabled = enabled;
+	}
+	
+	/**
+	 * @return The models of the printers that use the large Xerox drivers
+	 */
+	public List<String> getPrinterWarnings() {
+		return list(printerWarnings);
+	}
+	
+	public void setPrinterWarnings(List<String> printerWarnings) {
+		this.printerWarnings = printerWarnings;
+	}
+	
+	public int getComputerExtensionAttributeCount() {
+		return computerExtensionAttributeCount;
+	}
+	
+	public void setComputerExtensionAttributeCount(int count) {
+		this.computerExtensionAttributeCount = count;
+	}
+	
+	public int getMobileDeviceExtensionAttributeCount() {
+		return mobileDeviceExtensionAttributeCount;
+	}
+	
+	public void setMobileDeviceExtensionAttributeCount(int count) {
+		this.mobileDeviceExtensionAttributeCount = count;
+	}
+	
+	public int getComputerConfigurationCount() {
+		return computerConfigurationCount;
+	}
+	
+	public void setComputerConfigurationCount(int count) {
+		this.computerConfigurationCount = count;
+	}
+	
+	/**
+	 * @return The names of the scripts that use the old binary location or risky commands
+	 */
+	public List<String> getScriptsNeedingUpdate() {
+		return list(scriptsNeedingUpdate);
+	}
+	
+	public void setScriptsNeedingUpdate(List<String> scriptsNeedingUpdate) {
+		this.scriptsNeedingUpdate = scriptsNeedingUpdate;
+	}
+	
+	/**
+	 * @return The names of the ongoing policies that update inventory on every check-in
+	 */
+	public List<String> getPoliciesWithIssues() {
+		return list(policiesWithIssues);
+	}
+	
+	public void setPoliciesWithIssues(List<String> policiesWithIssues) {
+		this.policiesWithIssues = policiesWithIssues;
+	}
+	
+	public String getSMTPServer() {
+		return smtpServer;
+	}
+	
+	public String getSMTPSenderEmail() {
+		return smtpSenderEmail;
+	}
+	
+	public void setSMTPServer(String server, String senderEmail) {
+		this.smtpServer = server;
+		this.smtpSenderEmail = senderEmail;
+	}
+	
+	public boolean isPasswordRequiresUppercase() {
+		return passwordRequiresUppercase;
+	}
+	
+	public boolean isPasswordRequiresLowercase() {
+		return passwordRequiresLowercase;
+	}
+	
+	public boolean isPasswordRequiresNumber() {
+		return passwordRequiresNumber;
+	}
+	
+	public boolean isPasswordRequiresSpecialCharacters() {
+		return passwordRequiresSpecialCharacters;
+	}
+	
+	public void setPasswordRequirements(boolean uppercase, boolean lowercase, boolean number, boolean specialCharacters) {
+		this.passwordRequiresUppercase = uppercase;
+		this.passwordRequiresLowercase = lowercase;
+		this.passwordRequiresNumber = number;
+		this.passwordRequiresSpecialCharacters = specialCharacters;
+	}
+	
+	public Boolean isChangeManagementEnabled() {
+		return changeManagementEnabled;
+	}
+	
+	public String getChangeManagementLogPath() {
+		return changeManagementLogPath;
+	}
+	
+	public void setChangeManagement(Boolean enabled, String logPath) {
+		this.changeManagementEnabled = enabled;
+		this.changeManagementLogPath = logPath;
+	}
+	
+	public String getSSLCertIssuer() {
+		return sslCertIssuer;
+	}
+	
+	public String getSSLCertExpires() {
+		return sslCertExpires;
+	}
+	
+	public void setSSLCert(String issuer, String expires) {
+		this.sslCertIssuer = issuer;
+		this.sslCertExpires = expires;
+	}
+	
+	public String getLogFlushTime() {
+		return logFlushTime;
+	}
+	
+	public void setLogFlushTime(String logFlushTime) {
+		this.logFlushTime = logFlushTime;
+	}
+	
+	public String getMDMPushCertExpires() {
+		return mdmPushCertExpires;
+	}
+	
+	public String getPushProxyExpires() {
+		return pushProxyExpires;
+	}
+	
+	public void setPushCertExpirations(String mdmPushCert, String pushProxy) {
+		this.mdmPushCertExpires = mdmPushCert;
+		this.pushProxyExpires = pushProxy;
+	}
+	
+	public Boolean isLoginLogoutHooksEnabled() {
+		return loginLogoutHooksEnabled;
+	}
+	
+	public void setLoginLogoutHooksEnabled(Boolean enabled) {
+		this.loginLogoutHooksEnabled = enabled;
+	}
+	
+	public int getComputersRowCount() {
+		return computersRowCount;
+	}
+	
+	public int getComputersDenormalizedRowCount() {
+		return computersDenormalizedRowCount;
+	}
+	
+	public int getMobileDevicesRowCount() {
+		return mobileDevicesRowCount;
+	}
+	
+	public int getMobileDevicesDenormalizedRowCount() {
+		return mobileDevicesDenormalizedRowCount;
+	}
+	
+	public void setDeviceRowCounts(int computers, int computersDenormalized, int mobileDevices, int mobileDevicesDenormalized) {
+		this.computersRowCount = computers;
+		this.computersDenormalizedRowCount = computersDenormalized;
+		this.mobileDevicesRowCount = mobileDevices;
+		this.mobileDevicesDenormalizedRowCount = mobileDevicesDenormalized;
+	}
+	
+	/**
+	 * @return The number of requests in flight the JSS tolerated, by endpoint family
+	 */
+	public Map<String, Integer> getAPIConcurrency() {
+		return apiConcurrency;
+	}
+	
+	public void setAPIConcurrency(Map<String, Integer> apiConcurrency) {
+		this.apiConcurrency = new LinkedHashMap<>(apiConcurrency);
+	}
+	
+	/**
+	 * @return The number of asynchronous API requests that could have been hedged
+	 */
+	public long getAPIHedgeableRequests() {
+		return apiHedgeableRequests;
+	}
+	
+	/**
+	 * @return The number of slow API requests that were sent a second time
+	 */
+	public long getAPIHedgedRequests() {
+		return apiHedgedRequests;
+	}
+	
+	/**
+	 * @return The number of hedged API requests whose copy answered first
+	 */
+	public long getAPIHedgeWins() {
+		return apiHedgeWins;
+	}
+	
+	public void setAPIHedging(long hedgeable, long hedged, long won) {
+		this.apiHedgeableRequests = hedgeable;
+		this.apiHedgedRequests = hedged;
+		this.apiHedgeWins = won;
+	}
+	
+	/**
+	 * @return The sections the health check ran out of time for. Their values are missing or incomplete.
+	 */
+	public List<String> getTimedOutSections() {
+		return timedOutSections;
+	}
+	
+	public void setTimedOutSections(List<String> timedOutSections) {
+		this.timedOutSections = new ArrayList<>(timedOutSections);
+	}
+	
+	/**
+	 * @return The number of detail records that could not be read, by section. Those sections were built from the
+	 * records that could be read.
+	 */
+	public Map<String, Integer> getIncompleteSections() {
+		return incompleteSections;
+	}
+	
+	public void setIncompleteSections(Map<String, Integer> incompleteSections) {
+		this.incompleteSections = new LinkedHashMap<>(incompleteSections);
+	}
+	
+	private static <T> List<T> list(List<T> list) {
+		return list == null ? Collections.emptyList() : list;
+	}
+	
+	/**
+	 * The server and database the JSS runs on.
+	 */
+	public static final class SystemInfo {
+		
+		private String os;
+		private boolean cloudJSS;
+		private String javaVersion;
+		private String javaVendor;
+		private String webAppDir;
+		private String clustering;
+		private String mysqlVersion;
+		private Map<String, Double> largeTables = new LinkedHashMap<>();
+		private double databaseSize;
+		private int procCores;
+		private long freeMemory;
+		private long maxMemory;
+		private long memoryInUse;
+		private long totalSpace;
+		private long freeSpace;
+		private long usableSpace;
+		
+		public String getOS() {
+			return os;
+		}
+		
+		public void setOS(String os) {
+			this.os = os;
+		}
+		
+		public boolean isCloudJSS() {
+			return cloudJSS;
+		}
+		
+		public void setCloudJSS(boolean cloudJSS) {
+			this.cloudJSS = cloudJSS;
+		}
+		
+		public String getJavaVersion() {
+			return javaVersion;
+		}
+		
+		public void setJavaVersion(String javaVersion) {
+			this.javaVersion = javaVersion;
+		}
+		
+		public String getJavaVendor() {
+			return javaVendor;
+		}
+		
+		public void setJavaVendor(String javaVendor) {
+			this.javaVendor = javaVendor;
+		}
+		
+		public String getWebAppDir() {
+			return webAppDir;
+		}
+		
+		public void setWebAppDir(String webAppDir) {
+			this.webAppDir = webAppDir;
+		}
+		
+		public String getClustering() {
+			return clustering;
+		}
+		
+		public void setClustering(String clustering) {
+			this.clustering = clustering;
+		}
+		
+		public String getMySQLVersion() {
+			return mysqlVersion;
+		}
+		
+		public void setMySQLVersion(String mysqlVersion) {
+			this.mysqlVersion = mysqlVersion;
+		}
+		
+		/**
+		 * @return The size in MB of the largest tables of the JSS database, by table name, largest first
+		 */
+		public Map<String, Double> getLargeTables() {
+			return largeTables;
+		}
+		
+		public void setLargeTables(Map<String, Double> largeTables) {
+			this.largeTables = largeTables;
+		}
+		
+		/**
+		 * @return The size of the JSS database in MB, or {@code 0} if it is not known
+		 */
+		public double getDatabaseSize() {
+			return databaseSize;
+		}
+		
+		public void setDatabaseSize(double databaseSize) {
+			this.databaseSize = databaseSize;
+		}
+		
+		public int getProcCores() {
+			return procCores;
+		}
+		
+		public void setProcCores(int procCores) {
+			this.procCores = procCores;
+		}
+		
+		public long getFreeMemory() {
+			return freeMemory;
+		}
+		
+		public void setFreeMemory(long freeMemory) {
+			this.freeMemory = freeMemory;
+		}
+		
+		public long getMaxMemory() {
+			return maxMemory;
+		}
+		
+		public void setMaxMemory(long maxMemory) {
+			this.maxMemory = maxMemory;
+		}
+		
+		public long getMemoryInUse() {
+			return memoryInUse;
+		}
+		
+		public void setMemoryInUse(long memoryInUse) {
+			this.memoryInUse = memoryInUse;
+		}
+		
+		public long getTotalSpace() {
+			return totalSpace;
+		}
+		
+		public long getFreeSpace() {
+			return freeSpace;
+		}
+		
+		public long getUsableSpace() {
+			return usableSpace;
+		}
+		
+		public void setSpace(long totalSpace, long freeSpace, long usableSpace) {
+			this.totalSpace = totalSpace;
+			this.freeSpace = freeSpace;
+			this.usableSpace = usableSpace;
+		}
+		
+	}
+	
+	public static final class LDAPServer {
+		
+		private final String id;
+		private final String name;
+		private final String type;
+		private final String address;
+		
+		public LDAPServer(String id, String name, String type, String address) {
+			this.id = id;
+			this.name = name;
+			this.type = type;
+			this.address = address;
+		}
+		
+		public String getId() {
+			return id;
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		public String getType() {
+			return type;
+		}
+		
+		public String getAddress() {
+			return address;
+		}
+		
+	}
+	
+	public static final class VPPAccount {
+		
+		private final String id;
+		private final String name;
+		private final long daysUntilExpire;
+		
+		public VPPAccount(String id, String name, long daysUntilExpire) {
+			this.id = id;
+			this.name = name;
+			this.daysUntilExpire = daysUntilExpire;
+		}
+		
+		public String getId() {
+			return id;
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		public long getDaysUntilExpire() {
+			return daysUntilExpire;
+		}
+		
+	}
+	
+	public static final class SmartGroup {
+		
+		private final String id;
+		private final String name;
+		private final int nestedGroupsCount;
+		private final int criteriaCount;
+		
+		public SmartGroup(String id, String name, int nestedGroupsCount, int criteriaCount) {
+			this.id = id;
+			this.name = name;
+			this.nestedGroupsCount = nestedGroupsCount;
+			this.criteriaCount = criteriaCount;
+		}
+		
+		public String getId() {
+			return id;
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		public int getNestedGroupsCount() {
+			return nestedGroupsCount;
+		}
+		
+		public int getCriteriaCount() {
+			return criteriaCount;
+		}
+		
+	}
+	
+}
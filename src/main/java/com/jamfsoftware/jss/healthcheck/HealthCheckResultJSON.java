@@ -0,0 +1,429 @@
+package com.jamfsoftware.jss.healthcheck;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult.LDAPServer;
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult.SmartGroup;
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult.SystemInfo;
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult.VPPAccount;
+import com.jamfsoftware.jss.healthcheck.json.JSONArray;
+import com.jamfsoftware.jss.healthcheck.json.JSONDocument;
+import com.jamfsoftware.jss.healthcheck.json.JSONObject;
+
+/**
+ * Converts a {@link HealthCheckResult} to and from the JSON layout the tool has always saved: a "healthcheck" object
+ * holding the device totals, a "system" object and a "checkdata" object with one section per check module. An "api"
+ * object describes how the JSS coped with the requests of the run. Values are written as strings, and values that
+ * were not read are left out.
+ *
+ * @since 1.0
+ */
+final class HealthCheckResultJSON {
+	
+	private HealthCheckResultJSON() {
+	}
+	
+	static JSONDocument write(HealthCheckResult result) {
+		JSONDocument document = new JSONDocument("healthcheck");
+		put(document, "jss_url", result.getJSSUrl());
+		put(document, "totalcomputers", result.getTotalComputers());
+		put(document, "totalmobile", result.getTotalMobileDevices());
+		put(document, "totalusers", result.getTotalUsers());
+		writeSystem(document.addObject("system"), result.getSystem());
+		
+		JSONObject checkdata = document.addObject("checkdata");
+		JSONObject details = checkdata.addObject("activationcode").addObject("activationcode");
+		put(details, "expires", result.getActivationCodeExpires());
+		put(details, "code", result.getActivationCode());
+		
+		put(checkdata.addObject("computercheckin").addObject("computercheckin"), "frequency", result.getCheckInFrequency());
+		
+		JSONArray array = checkdata.addObject("ldapservers").addArray("ldapservers");
+		for (LDAPServer server : result.getLDAPServers()) {
+			details = array.addObject();
+			put(details, "id", server.getId());
+			put(details, "name", server.getName());
+			put(details, "type", server.getType());
+			put(details, "address", server.getAddress());
+		}
+		
+		details = checkdata.addObject("gsxconnection").addObject("gsxconnection");
+		put(details, "status", status(result.isGSXConnectionEnabled()));
+		put(details, "uri", result.getGSXConnectionUri());
+		
+		array = checkdata.addObject("vppaccounts").addArray("vppaccounts");
+		for (VPPAccount account : result.getVPPAccounts()) {
+			details = array.addObject();
+			put(details, "id", account.getId());
+			put(details, "name", account.getName());
+			put(details, "days_until_expire", account.getDaysUntilExpire());
+		}
+		
+		writeGroups(checkdata, "computergroups", result.getComputerGroups());
+		writeGroups(checkdata, "mobiledevicegroups", result.getMobileDeviceGroups());
+		writeGroups(checkdata, "usergroups", result.getUserGroups());
+		
+		put(checkdata.addObject("managedpreferenceprofiles").addObject("managedpreferenceprofiles"), "status", status(result.isManagedPreferenceProfilesEnabled()));
+		
+		array = checkdata.addObject("printers").addArray("printer_warnings");
+		for (String model : result.getPrinterWarnings()) {
+			put(array.addObject(), "model", model);
+		}
+		
+		writeCount(checkdata, "computerextensionattributes", result.getComputerExtensionAttributeCount());
+		writeCount(checkdata, "mobiledeviceextensionattributes", result.getMobileDeviceExtensionAttributeCount());
+		writeCount(checkdata, "computerconfigurations", result.getComputerConfigurationCount());
+		
+		array = checkdata.addObject("scripts").addArray("scripts_needing_update");
+		for (String name : result.getScriptsNeedingUpdate()) {
+			put(array.addObject(), "name", name);
+		}
+		
+		array = checkdata.addObject("policies").addArray("policies_with_issues");
+		for (String name : result.getPoliciesWithIssues()) {
+			details = array.addObject();
+			put(details, "name", name);
+			put(details, "ongoing", true);
+			put(details, "checkin_trigger", true);
+		}
+		
+		writeSummaryData(checkdata.addObject("summarydata"), result);
+		
+		details = checkdata.addObject("smtpserver").addObject("smtpserver");
+		put(details, "server", result.getSMTPServer());
+		put(details, "sender_email", result.getSMTPSenderEmail());
+		
+		writeAPI(document.addObject("api"), result);
+		return document;
+	}
+	
+	private static void writeAPI(JSONObject api, HealthCheckResult result) {
+		JSONArray array = api.addArray("concurrency");
+		result.getAPIConcurrency().forEach((family, limit) -> {
+			JSONObject details = array.addObject();
+			put(details, "endpoint", family);
+			put(details, "limit", limit);
+		});
+		
+		JSONObject hedging = api.addObject("hedging");
+		put(hedging, "requests", result.getAPIHedgeableRequests());
+		put(hedging, "hedged", result.getAPIHedgedRequests());
+		put(hedging, "won", result.getAPIHedgeWins());
+		
+		JSONArray timedOut = api.addArray("timed_out");
+		for (String section : result.getTimedOutSections()) {
+			put(timedOut.addObject(), "section", section);
+		}
+		
+		JSONArray incomplete = api.addArray("incomplete");
+		result.getIncompleteSections().forEach((section, missing) -> {
+			JSONObject details = incomplete.addObject();
+			put(details, "section", section);
+			put(details, "missing", missing);
+		});
+	}
+	
+	private static void writeSystem(JSONObject system, SystemInfo info) {
+		put(system, "os", info.getOS());
+		put(system, "iscloudjss", info.isCloudJSS());
+		put(system, "javaversion", info.getJavaVersion());
+		put(system, "javavendor", info.getJavaVendor());
+		put(system, "webapp_dir", info.getWebAppDir());
+		put(system, "clustering", info.getClustering());
+		put(system, "mysql_version", info.getMySQLVersion());
+		
+		JSONArray array = system.addArray("largeSQLtables");
+		info.getLargeTables().forEach((name, size) -> {
+			JSONObject table = array.addObject();
+			put(table, "table_name", name);
+			put(table, "table_size", size + " MB");
+		});
+		
+		put(system, "database_size", info.getDatabaseSize());
+		put(system, "proc_cores", info.getProcCores());
+		put(system, "free_memory", info.getFreeMemory());
+		put(system, "max_memory", info.getMaxMemory());
+		put(system, "memory_currently_in_use", info.getMemoryInUse());
+		put(system, "total_space", info.getTotalSpace());
+		put(system, "free_space", info.getFreeSpace());
+		put(system, "usable_space", info.getUsableSpace());
+	}
+	
+	private static void writeGroups(JSONObject checkdata, String objectName, List<SmartGroup> groups) {
+		JSONArray array = checkdata.addObject(objectName).addArray(objectName);
+		for (SmartGroup group : groups) {
+			JSONObject details = array.addObject();
+			put(details, "id", group.getId());
+			put(details, "name", group.getName());
+			put(details, "nested_groups_count", group.getNestedGroupsCount());
+			put(details, "criteria_count", group.getCriteriaCount());
+		}
+	}
+	
+	private static void writeCount(JSONObject checkdata, String objectName, int count) {
+		put(checkdata.addObject(objectName).addObject(objectName), "count", count);
+	}
+	
+	private static void writeSummaryData(JSONObject section, HealthCheckResult result) {
+		JSONObject details = section.addObject("password_strength");
+		put(details, "uppercase?", result.isPasswordRequiresUppercase());
+		put(details, "lowercase?", result.isPasswordRequiresLowercase());
+		put(details, "number?", result.isPasswordRequiresNumber());
+		put(details, "spec_chars?", result.isPasswordRequiresSpecialCharacters());
+		
+		details = section.addObject("changemanagment");
+		put(details, "isusinglogfile", result.isChangeManagementEnabled());
+		put(details, "logpath", result.getChangeManagementLogPath());
+		
+		details = section.addObject("tomcat");
+		put(details, "ssl_cert_issuer", result.getSSLCertIssuer());
+		put(details, "cert_expires", result.getSSLCertExpires());
+		
+		put(section.addObject("logflushing"), "log_flush_time", result.getLogFlushTime());
+		
+		details = section.addObject("push_cert_expirations");
+		put(details, "mdm_push_cert", result.getMDMPushCertExpires());
+		put(details, "push_proxy", result.getPushProxyExpires());
+		
+		put(section.addObject("loginlogouthooks"), "is_configured", result.isLoginLogoutHooksEnabled());
+		
+		details = section.addObject("device_row_counts");
+		put(details, "computers", result.getComputersRowCount());
+		put(details, "computers_denormalized", result.getComputersDenormalizedRowCount());
+		put(details, "mobile_devices", result.getMobileDevicesRowCount());
+		put(details, "mobile_devices_denormalized", result.getMobileDevicesDenormalizedRowCount());
+	}
+	
+	/**
+	 * Adds a value unless it was never read: {@code null}, or a negative count.
+	 */
+	private static void put(JSONObject object, String name, Object value) {
+		if (value != null && !(value instanceof Integer && (Integer) value < 0)) {
+			object.addElement(name, value);
+		}
+	}
+	
+	private static String status(Boolean enabled) {
+		return enabled == null ? null : enabled ? "enabled" : "disabled";
+	}
+	
+	static HealthCheckResult read(String json) {
+		JsonObject healthcheck = object(new JsonParser().parse(json).getAsJsonObject(), "healthcheck");
+		if (healthcheck == null) {
+			throw new IllegalArgumentException("The JSON does not contain a health check");
+		}
+		
+		HealthCheckResult result = new HealthCheckResult();
+		result.setJSSUrl(string(healthcheck, "jss_url"));
+		result.setTotalComputers(integer(healthcheck, "totalcomputers"));
+		result.setTotalMobileDevices(integer(healthcheck, "totalmobile"));
+		result.setTotalUsers(integer(healthcheck, "totalusers"));
+		readSystem(object(healthcheck, "system"), result.getSystem());
+		
+		JsonObject checkdata = object(healthcheck, "checkdata");
+		JsonObject details = object(checkdata, "activationcode", "activationcode");
+		result.setActivationCode(string(details, "code"), string(details, "expires"));
+		
+		result.setCheckInFrequency(integer(object(checkdata, "computercheckin", "computercheckin"), "frequency"));
+		
+		result.setLDAPServers(list(object(checkdata, "ldapservers"), "ldapservers",
+				server -> new LDAPServer(string(server, "id"), string(server, "name"), string(server, "type"), string(server, "address"))));
+				
+		details = object(checkdata, "gsxconnection", "gsxconnection");
+		if (string(details, "status") != null) {
+			result.setGSXConnection("enabled".equals(string(details, "status")), string(details, "uri"));
+		}
+		
+		result.setVPPAccounts(list(object(checkdata, "vppaccounts"), "vppaccounts",
+				account -> new VPPAccount(string(account, "id"), string(account, "name"), integer(account, "days_until_expire"))));
+				
+		result.setComputerGroups(readGroups(checkdata, "computergroups"));
+		result.setMobileDeviceGroups(readGroups(checkdata, "mobiledevicegroups"));
+		result.setUserGroups(readGroups(checkdata, "usergroups"));
+		
+		String status = string(object(checkdata, "managedpreferenceprofiles", "managedpreferenceprofiles"), "status");
+		if (status != null) {
+			result.setManagedPreferenceProfilesEnabled("enabled".equals(status));
+		}
+		
+		result.setPrinterWarnings(list(object(checkdata, "printers"), "printer_warnings", printer -> string(printer, "model")));
+		
+		result.setComputerExtensionAttributeCount(integer(object(checkdata, "computerextensionattributes", "computerextensionattributes"), "count"));
+		result.setMobileDeviceExtensionAttributeCount(integer(object(checkdata, "mobiledeviceextensionattributes", "mobiledeviceextensionattributes"), "count"));
+		result.setComputerConfigurationCount(integer(object(checkdata, "computerconfigurations", "computerconfigurations"), "count"));
+		
+		result.setScriptsNeedingUpdate(list(object(checkdata, "scripts"), "scripts_needing_update", script -> string(script, "name")));
+		result.setPoliciesWithIssues(list(object(checkdata, "policies"), "policies_with_issues", policy -> string(policy, "name")));
+		
+		readSummaryData(object(checkdata, "summarydata"), result);
+		
+		details = object(checkdata, "smtpserver", "smtpserver");
+		result.setSMTPServer(string(details, "server"), string(details, "sender_email"));
+		
+		readAPI(object(healthcheck, "api"), result);
+		return result;
+	}
+	
+	private static void readAPI(JsonObject api, HealthCheckResult result) {
+		Map<String, Integer> concurrency = new LinkedHashMap<>();
+		for (JsonObject family : list(api, "concurrency", family -> family)) {
+			concurrency.put(string(family, "endpoint"), integer(family, "limit"));
+		}
+		result.setAPIConcurrency(concurrency);
+		JsonObject hedging = object(api, "hedging");
+		result.setAPIHedging((long) number(hedging, "requests"), (long) number(hedging, "hedged"), (long) number(hedging, "won"));
+		result.setTimedOutSections(list(api, "timed_out", section -> string(section, "section")));
+		Map<String, Integer> incomplete = new LinkedHashMap<>();
+		for (JsonObject section : list(api, "incomplete", section -> section)) {
+			incomplete.put(string(section, "section"), integer(section, "missing"));
+		}
+		result.setIncompleteSections(incomplete);
+	}
+	
+	private static void readSystem(JsonObject system, SystemInfo info) {
+		info.setOS(string(system, "os"));
+		info.setCloudJSS(Boolean.parseBoolean(string(system, "iscloudjss")));
+		info.setJavaVersion(string(system, "javaversion"));
+		info.setJavaVendor(string(system, "javavendor"));
+		info.setWebAppDir(string(system, "webapp_dir"));
+		info.setClustering(string(system, "clustering"));
+		info.setMySQLVersion(string(system, "mysql_version"));
+		
+		Map<String, Double> largeTables = new LinkedHashMap<>();
+		for (JsonObject table : list(system, "largeSQLtables", table -> table)) {
+			largeTables.put(string(table, "table_name"), number(table, "table_size"));
+		}
+		info.setLargeTables(largeTables);
+		
+		info.setDatabaseSize(number(system, "database_size"));
+		info.setProcCores(integer(system, "proc_cores"));
+		info.setFreeMemory((long) number(system, "free_memory"));
+		info.setMaxMemory((long) number(system, "max_memory"));
+		info.setMemoryInUse((long) number(system, "memory_currently_in_use"));
+		info.setSpace((long) number(system, "total_space"), (long) number(system, "free_space"), (long) number(system, "usable_space"));
+	}
+	
+	private static List<SmartGroup> readGroups(JsonObject checkdata, String objectName) {
+		return list(object(checkdata, objectName), objectName,
+				group -> new SmartGroup(string(group, "id"), string(group, "name"), integer(group, "nested_groups_count"), integer(group, "criteria_count")));
+	}
+	
+	private static void readSummaryData(JsonObject section, HealthCheckResult result) {
+		JsonObject details = object(section, "password_strength");
+		result.setPasswordRequirements(flag(details, "uppercase?"), flag(details, "lowercase?"), flag(details, "number?"), flag(details, "spec_chars?"));
+		
+		details = object(section, "changemanagment");
+		String usingLogFile = string(details, "isusinglogfile");
+		result.setChangeManagement(usingLogFile == null ? null : usingLogFile.contains("true"), string(details, "logpath"));
+		
+		details = object(section, "tomcat");
+		result.setSSLCert(string(details, "ssl_cert_issuer"), string(details, "cert_expires"));
+		
+		result.setLogFlushTime(string(object(section, "logflushing"), "log_flush_time"));
+		
+		details = object(section, "push_cert_expirations");
+		result.setPushCertExpirations(string(details, "mdm_push_cert"), string(details, "push_proxy"));
+		
+		String hooks = string(object(section, "loginlogouthooks"), "is_configured");
+		result.setLoginLogoutHooksEnabled(hooks == null ? null : hooks.contains("true"));
+		
+		details = object(section, "device_row_counts");
+		result.setDeviceRowCounts(integer(details, "computers"), integer(details, "computers_denormalized"), integer(details, "mobile_devices"), integer(details, "mobile_devices_denormalized"));
+	}
+	
+	/**
+	 * @return The object at the end of {@code path}, or {@code null} if any part of it is missing
+	 */
+	private static JsonObject object(JsonObject object, String... path) {
+		for (String name : path) {
+			if (object == null || !(object.get(name) instanceof JsonObject)) {
+				return null;
+			}
+			object = object.getAsJsonObject(name);
+		}
+		return object;
+	}
+	
+	private static <T> List<T> list(JsonObject object, String name, Function<JsonObject, T> mapper) {
+		List<T> list = new ArrayList<>();
+		if (object != null && object.get(name) instanceof JsonArray) {
+			for (JsonElement element : object.getAsJsonArray(name)) {
+				if (element.isJsonObject()) {
+					list.add(mapper.apply(element.getAsJsonObject()));
+				}
+			}
+		}
+		return list;
+	}
+	
+	private static String string(JsonObject object, String name) {
+		if (object == null || object.get(name) == null || !object.get(name).isJsonPrimitive()) {
+			return null;
+		}
+		return object.get(name).getAsString();
+	}
+	
+	private static boolean flag(JsonObject object, String name) {
+		String value = string(object, name);
+		return value != null && value.contains("true");
+	}
+	
+	private static int integer(JsonObject object, String name) {
+		return (int) Math.round(number(object, name, -1));
+	}
+	
+	private static double number(JsonObject object, String name) {
+		return number(object, name, 0);
+	}
+	
+	/**
+	 * Reads a number that may be followed by a unit, such as "12.5 MB".
+	 */
+	private static double number(JsonObject object, String name, double defaultValue) {
+		String value = string(object, name);
+		if (value == null) {
+			return defaultValue;
+		}
+		
+		try {
+			return Double.parseDouble(value.trim().split("\\s+")[0]);
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+	
+}
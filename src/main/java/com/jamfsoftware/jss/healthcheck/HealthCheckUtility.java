@@ -27,44 +27,39 @@ package com.jamfsoftware.jss.healthcheck;
  */
 
 import java.awt.*;
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 import java.util.prefs.Preferences;
 import java.util.stream.Stream;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
-import org.jdom2.Document;
-import org.jdom2.Element;
-import org.jdom2.input.SAXBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.jamfsoftware.jss.healthcheck.controller.ConfigurationController;
+import com.jamfsoftware.jss.healthcheck.controller.ConfigurationSnapshot;
+import com.jamfsoftware.jss.healthcheck.monitor.JSSMonitor;
+import com.jamfsoftware.jss.healthcheck.monitor.SegmentSampleStore;
 import com.jamfsoftware.jss.healthcheck.ui.UserPrompt;
 import com.jamfsoftware.jss.healthcheck.ui.UserPromptHeadless;
 import com.jamfsoftware.jss.healthcheck.ui.component.MonitorGraph;
 import com.jamfsoftware.jss.healthcheck.util.EnvironmentUtil;
-import com.jamfsoftware.jss.healthcheck.util.StringConstants;
 
 /**
  * HealthCheckUtility.java - Written by Jacob Schultz 12/2015
  * This class handles the initial load of the program.
  * It detects the OS, and then opens the text interface for linux and a GUI for Windows and Mac.
  * Can be run with a -h flag to open the text interface on Mac and Windows
- * [STUB] If ran with the -m flag it will start a POC for the health monitor.
+ * If ran with the -m flag it monitors the JSS in config.xml until it is stopped, see {@link JSSMonitor}.
  */
 public class HealthCheckUtility {
 	
 	private static final Logger LOGGER = LoggerFactory.getLogger(HealthCheckUtility.class);
-	private static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-mm-dd HH:mm");
-	private static final String LOG_FORMAT = "%s %d %d %d %d\n";
 	private final String[] args;
 	private final Preferences prefs = Preferences.userNodeForPackage(UserPrompt.class);
 	
@@ -79,10 +74,12 @@ public class HealthCheckUtility {
 	private void start() {
 		if (isFlag("-m")) { // Monitor
 			startMonitor();
+			return;
 		}
 		
 		if (isFlag("-g")) { // Graph
-			new MonitorGraph("");
+			startGraph();
+			return;
 		}
 		
 		startUI(isFlag("-h")
@@ -90,42 +87,70 @@ public class HealthCheckUtility {
 				|| EnvironmentUtil.isLinux());
 	}
 	
+	/**
+	 * Starts monitoring the JSS in config.xml. The monitor keeps running until the tool is stopped, and flushes its
+	 * samples on the way out.
+	 */
 	private void startMonitor() {
 		Scanner scanner = new Scanner(System.in);
 		ConfigurationController con = new ConfigurationController(false);
 		
-		while (!con.canGetFile()) {
-			if (!con.attemptAutoDiscover()) {
-				System.out.println("Path to Config.xml not found. Please type the full path below or type 'exit' to close the program. ");
-				String path = scanner.next();
-				if (path.equals("exit")) {
-					System.exit(0);
-				} else {
-					prefs.put("config_xml_path", path);
-				}
+		while (!con.canGetFile() && !con.attemptAutoDiscover()) {
+			System.out.println("Path to Config.xml not found. Please type the full path below or type 'exit' to close the program. ");
+			String path = scanner.next();
+			if (path.equals("exit")) {
+				System.exit(0);
+			} else {
+				prefs.put("config_xml_path", path);
+				prefs.put("configurationPath", path);
+				con = new ConfigurationController(false);
 			}
 		}
 		
-		String xmlPath = prefs.get("config_xml_path", StringConstants.DEFAULT_CONFIGURATION_PATH);
-		SAXBuilder builder = new SAXBuilder();
-		File xmlFile = new File(xmlPath);
+		ConfigurationSnapshot config = ConfigurationSnapshot.current();
 		try {
-			Document document = builder.build(xmlFile);
-			Element root = document.getRootElement();
-			
-			
-			HealthCheck hc = new HealthCheck(
-					root.getChild("jss_url").getValue(),
-					root.getChild("jss_username").getValue(),
-					root.getChild("jss_password").getValue(),
-					true
+			JSSMonitor monitor = new JSSMonitor(
+					config.getString(null, "jss_url", ""),
+					config.getString(null, "jss_username", ""),
+					config.getString(null, "jss_password", ""),
+					config
 			);
-			
-			int mobile_device_length = hc.getAPIObjectCount("mobiledevicecommands");
-			int computer_length = hc.getAPIObjectCount("computercommands");
-			writeLogEntry(mobile_device_length, computer_length);
+			Runtime.getRuntime().addShutdownHook(new Thread(monitor::close, "health-monitor-shutdown"));
+			monitor.start();
 		} catch (Exception e) {
-			LOGGER.error("Config XML file damaged. Unable to run monitor.", e);
+			LOGGER.error("Unable to start the monitor.", e);
+		}
+	}
+	
+	/**
+	 * Graphs the samples the monitor recorded over the last day. Without a display, the graph is written to a PNG in
+	 * the monitor directory instead.
+	 */
+	private void startGraph() {
+		ConfigurationSnapshot config = ConfigurationSnapshot.current();
+		SegmentSampleStore store;
+		try {
+			store = JSSMonitor.openStore(config);
+		} catch (IOException e) {
+			LOGGER.error("Unable to open the monitor samples.", e);
+			return;
+		}
+		
+		long now = System.currentTimeMillis();
+		MonitorGraph graph = new MonitorGraph(store, now - TimeUnit.DAYS.toMillis(1), now);
+		if (!GraphicsEnvironment.isHeadless()) {
+			SwingUtilities.invokeLater(graph::showGraph);
+			return;
+		}
+		
+		try {
+			Path file = JSSMonitor.getDirectory(config).resolve("monitor_" + LocalDate.now() + ".png");
+			graph.exportPNG(file, 1600, 900);
+			System.out.println("Wrote the monitor graph to " + file.toAbsolutePath());
+		} catch (IOException e) {
+			LOGGER.error("Unable to export the monitor graph.", e);
+		} finally {
+			store.close();
 		}
 	}
 	
@@ -159,21 +184,6 @@ public class HealthCheckUtility {
 		}
 	}
 	
-	private void writeLogEntry(int mobileDeviceLength, int computerLength) {
-		try {
-			FileWriter writer = new FileWriter("", true);
-			writer.write(String.format(LOG_FORMAT,
-					DATE_FORMAT.format(new Date()),
-					mobileDeviceLength,
-					computerLength,
-					Runtime.getRuntime().freeMemory(),
-					Runtime.getRuntime().totalMemory()));
-			writer.close();
-		} catch (IOException e) {
-			LOGGER.error("Error writing to log", e);
-		}
-	}
-	
 	boolean isFlag(String arg) {
 		return Stream.of(args).anyMatch(arg::equals);
 	}
@@ -26,15 +26,11 @@ package com.jamfsoftware.jss.healthcheck;
  * #L%
  */
 
-import java.io.ByteArrayInputStream;
-
 import org.jdom2.Document;
-import org.jdom2.input.SAXBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.jamfsoftware.jss.healthcheck.controller.HTTPController;
-import com.jamfsoftware.jss.healthcheck.util.StringConstants;
 
 /*
 * JSSConnectionTest.java - Written by Jacob Schultz 1/2016
@@ -51,7 +47,12 @@ public class JSSConnectionTest {
 	
 	//Setup the HTTP Connection
 	public JSSConnectionTest(String url, String username, String password) {
-		this.api = new HTTPController(username, password);
+		this(url, new HTTPController(username, password));
+	}
+	
+	//Use an existing HTTP client, so the test shares its connections and session with the rest of the run.
+	public JSSConnectionTest(String url, HTTPController api) {
+		this.api = api;
 		if (url.endsWith("/")) {
 			this.url = url.substring(0, url.length() - 1);
 		} else {
@@ -75,9 +76,7 @@ public class JSSConnectionTest {
 	//This would indicate a cloud build.
 	public boolean isHosted() {
 		try {
-			String xml_as_string = api.doGet(url + "/JSSResource/jssuser");
-			SAXBuilder sb = new SAXBuilder();
-			Document doc = sb.build(new ByteArrayInputStream(xml_as_string.getBytes(StringConstants.DEFAULT_ENCODING)));
+			Document doc = api.doGetDocument(url + "/JSSResource/jssuser");
 			String result = doc.getRootElement().getChild("version").getValue();
 			
 			return result.contains("c");
@@ -90,9 +89,7 @@ public class JSSConnectionTest {
 	// TODO: This will need to handle semver very shortly. For now, using 'major.minor'
 	public double getJSSVersion() {
 		try {
-			String xml_as_string = api.doGet(url + "/JSSResource/jssuser");
-			SAXBuilder sb = new SAXBuilder();
-			Document doc = sb.build(new ByteArrayInputStream(xml_as_string.getBytes("UTF-8")));
+			Document doc = api.doGetDocument(url + "/JSSResource/jssuser");
 			String result = doc.getRootElement().getChild("version").getValue();
 			
 			// Get the index of the first dot
@@ -26,298 +26,297 @@ package com.jamfsoftware.jss.healthcheck;
  * #L%
  */
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Set;
 
 import javax.swing.*;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.jamfsoftware.jss.healthcheck.JSSSummaryIndex.Subsection;
 import com.jamfsoftware.jss.healthcheck.util.EnvironmentUtil;
 
+/**
+ * Reads the values used by the health check out of a JSS Summary.
+ * The summary is indexed once when this object is created (see {@link JSSSummaryIndex}), so every getter is a
+ * lookup by name. Only the sections and keys listed in {@link #SECTIONS} and {@link #KEYS} are kept. A value the
+ * summary does not contain is returned as an empty string.
+ */
 public class JSSSummary {
 	
 	private static final Logger LOGGER = LoggerFactory.getLogger(JSSSummary.class);
+	private static final String NO_DATA = "No Data Available.";
+	
+	/**
+	 * The titles of the summary sections read by the getters that are chosen with a checkbox on the summary form.
+	 */
+	static final Set<String> FORM_SECTIONS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+			"Password Policy",
+			"Clustering",
+			"Activation Code",
+			"Change Management",
+			"Apache Tomcat Settings",
+			"Log Flushing",
+			"Push Certificates",
+			"Check-In"
+	)));
+	
+	/**
+	 * The titles of every summary section read by the getters. The table sections are created by the
+	 * 'tableSize' and 'tableRowCounts' options of the summary form.
+	 */
+	static final Set<String> SECTIONS;
+	
+	static {
+		Set<String> sections = new LinkedHashSet<>(FORM_SECTIONS);
+		sections.add("Table sizes");
+		sections.add("Table row counts");
+		SECTIONS = Collections.unmodifiableSet(sections);
+	}
+	
+	/**
+	 * The keys read by the getters that are not tied to a section title.
+	 */
+	static final Set<String> KEYS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+			"Operating System",
+			"Java Version",
+			"Java Vendor",
+			"Web App Installed To",
+			"Database Size",
+			"version"
+	)));
 	
-	private String[][] summary;
-	private int password_info_index = 0;
-	private int clustered_index = 0;
-	private int activation_code_index = 0;
-	private int change_management_index = 0;
-	private int tomcat_index = 0;
-	private int log_flushing_index = 0;
-	private int push_cert_index = 0;
-	private int login_logout_hooks_index = 0;
-	private int table_sizes = 0;
-	private int table_row_counts = 0;
+	private final JSSSummaryIndex index;
+	
+	/**
+	 * Reads a summary as it streams in. Only the values used by the getters are kept.
+	 *
+	 * @param summary The text of the summary. It is read to the end, but not closed.
+	 *
+	 * @throws IOException If the summary could not be read
+	 */
+	public JSSSummary(Reader summary) throws IOException {
+		this.index = JSSSummaryIndex.parse(summary, SECTIONS, KEYS);
+	}
 	
 	public JSSSummary(String summary) {
 		if (summary == null || summary.contains("java.io.IOException: Server returned HTTP response code: 401 for URL:")) {
-			if (!EnvironmentUtil.isLinux()) {
-				showPasteError();
-			}
-			LOGGER.error("The tool was unable to get the JSS Summary with this account. Please try again with another account that has read access and access to the JSS Summary. (HTTP 401)");
-			System.exit(0);
+			exitUnavailable();
 		}
 		
-		generateArrays(summary);
-		generateIndexes();
+		try {
+			this.index = JSSSummaryIndex.parse(new StringReader(summary), SECTIONS, KEYS);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 	}
 	
-	private void generateArrays(String summary) {
-		String[] sections = summary.split("==========================================================================================");
-		String[][] sum = new String[sections.length][1];
-		for (int i = 0; i < sections.length; i++) {
-			sum[i] = sections[i].split("----------------------------------------------------------------------------------");
+	/**
+	 * Tells the user the summary could not be read with their account, and exits. There is nothing to check
+	 * without it.
+	 */
+	public static void exitUnavailable() {
+		if (!EnvironmentUtil.isLinux()) {
+			showPasteError();
 		}
-		this.summary = sum;
+		LOGGER.error("The tool was unable to get the JSS Summary with this account. Please try again with another account that has read access and access to the JSS Summary. (HTTP 401)");
+		System.exit(0);
 	}
 	
-	private void showPasteError() {
+	private static void showPasteError() {
 		JOptionPane.showMessageDialog(null, "Unable to get the JSS Summary with the supplied account. \nYou have encountered a JSS oddity that causes some accounts to not be able to access the summary.\nPlease create a new account with at least read privileges and try again.", "JSS Summary Error", JOptionPane.ERROR_MESSAGE);
 	}
 	
-	private void generateIndexes() {
-		String category;
-		for (int i = 0; i < this.summary.length; i++) {
-			if (this.summary[i] != null && this.summary[i].length > 0) {
-				category = this.summary[i][0];
-				
-				if ("Password Policy".equals(category)) {
-					password_info_index = i;
-				} else if ("Clustering".equals(category)) {
-					clustered_index = i;
-				} else if ("Activation Code".equals(category)) {
-					activation_code_index = i;
-				} else if ("Change Management".equals(category)) {
-					change_management_index = i;
-				} else if ("Apache Tomcat Settings".equals(category)) {
-					tomcat_index = i;
-				} else if ("Log Flushing".equals(category)) {
-					log_flushing_index = i;
-				} else if ("Push Certificates".equals(category)) {
-					push_cert_index = i;
-				} else if ("Check-In".equals(category)) {
-					login_logout_hooks_index = i;
-				} else if ("Table sizes".equals(category)) {
-					table_sizes = i;
-				} else if ("Table row counts".equals(category)) {
-					table_row_counts = i;
-				}
-			}
-		}
+	/**
+	 * @return {@code true} if the summary contained every section and key read by the getters
+	 */
+	public boolean isComplete() {
+		return getMissing().isEmpty();
+	}
+	
+	/**
+	 * @return The sections and keys read by the getters that the summary did not contain
+	 */
+	public Set<String> getMissing() {
+		Set<String> missing = new LinkedHashSet<>();
+		SECTIONS.stream().filter(section -> !index.hasSection(section)).forEach(missing::add);
+		KEYS.stream().filter(key -> index.get(key) == null).forEach(missing::add);
+		return missing;
 	}
 	
 	public String getWebAppDir() {
-		String[] el = this.summary[1][3].split("\t");
-		String check = "Web App Installed To";
-		String with_chars = el[1].substring(el[1].indexOf(check) + check.length(), el[1].length()).trim();
-		return with_chars.replaceAll(":", "").replaceAll("\\\\", "/");
+		return value(index.get("Web App Installed To")).replaceAll(":", "").replaceAll("\\\\", "/");
 	}
 	
 	public String getJavaVendor() {
-		String[] el = this.summary[1][4].split("\t");
-		String check = "Java Vendor";
-		return el[3].substring(el[3].indexOf(check) + check.length(), el[3].length()).trim();
+		return value(index.get("Java Vendor"));
 	}
 	
 	public String getTableRowCounts() {
-		String[] el = this.summary[table_row_counts + 1][0].split("\t");
-		String computers_denormalized = "";
-		String computers = "";
-		String mobile_devices = "";
-		String mobile_devices_denormalized = "";
-		for (String anEl : el) {
-			if (anEl.contains("computers")) {
-				if (anEl.contains("computers_denormalized")) {
-					String check = "computers_denormalized";
-					computers_denormalized = anEl.substring(anEl.indexOf(check) + check.length(), anEl.length()).trim().replace(".", "");
-				} else {
-					String check = "computers";
-					computers = anEl.substring(anEl.indexOf(check) + check.length(), anEl.length()).trim().replace(".", "");
-				}
-			}
-			
-			if (anEl.contains("mobile_devices")) {
-				if (anEl.contains("mobile_devices_denormalized")) {
-					String check = "mobile_devices_denormalized";
-					mobile_devices_denormalized = anEl.substring(anEl.indexOf(check) + check.length(), anEl.length()).trim().replace(".", "");
-				} else {
-					String check = "mobile_devices";
-					mobile_devices = anEl.substring(anEl.indexOf(check) + check.length(), anEl.length()).trim().replace(".", "");
+		Map<String, String> counts = new LinkedHashMap<>();
+		counts.put("computers", "");
+		counts.put("computers_denormalized", "");
+		counts.put("mobile_devices", "");
+		counts.put("mobile_devices_denormalized", "");
+		
+		for (Subsection subsection : index.getSubsections("Table row counts")) {
+			for (String entry : subsection.getEntries()) {
+				String[] row = splitRow(entry);
+				if (row != null && counts.get(row[0]) != null && counts.get(row[0]).isEmpty()) {
+					counts.put(row[0], row[row.length - 1].replace(",", ""));
 				}
 			}
-			
 		}
-		return (computers + "," + computers_denormalized + "," + mobile_devices + "," + mobile_devices_denormalized).trim();
+		return String.join(",", counts.values());
 	}
 	
 	public String getJavaVersion() {
-		String[] el = this.summary[1][4].split("\t");
-		String check = "Java Version";
-		return el[1].substring(el[1].indexOf(check) + check.length(), el[1].length()).trim();
+		return value(index.get("Java Version"));
 	}
 	
 	public String getOperatingSystem() {
-		String[] el = this.summary[1][2].split("\t");
-		String check = "Operating System";
-		return el[1].substring(el[1].indexOf(check) + check.length(), el[1].length()).trim();
+		return value(index.get("Operating System"));
 	}
 	
 	public String getMySQLVersion() {
-		String[] el = this.summary[1][9].split("\t");
-		String check = "version";
-		String v = el[20].substring(el[20].indexOf(check) + check.length(), el[20].length()).trim();
-		return v.replace("....................", "");
+		return value(index.get("version"));
 	}
 	
 	public double getDatabaseSize() {
-		String[] el = this.summary[1][5].split("\t");
-		String check = "Database Size";
-		String size_split = el[6].substring(el[6].indexOf(check) + check.length(), el[6].length()).trim();
-		String size = size_split.substring(size_split.indexOf(" "), size_split.length());
-		
-		double size_in_mb = 0;
-		if (size.contains("KB")) {
-			double size_in_kb = Double.parseDouble(size.substring(1, size.length() - 3));
-			size_in_mb = size_in_kb * 0.001;
-		} else if (size.contains("MB")) {
-			size_in_mb = Double.parseDouble(size.substring(1, size.length() - 3));
-		} else if (size.contains("GB")) {
-			double size_in_gb = Double.parseDouble(size.substring(1, size.length() - 3));
-			size_in_mb = size_in_gb * 1000;
+		String[] size = value(index.get("Database Size")).split("\\s+");
+		if (size.length < 2) {
+			return 0;
 		}
 		
-		return size_in_mb;
+		try {
+			double value = Double.parseDouble(size[size.length - 2]);
+			return toMegabytes(value, size[size.length - 1]);
+		} catch (NumberFormatException e) {
+			LOGGER.debug("Unable to parse the database size from the JSS Summary", e);
+			return 0;
+		}
 	}
 	
 	public String[] getPasswordInformation() {
-		String[] values = new String[4];
-		String[] el = this.summary[password_info_index + 1][1].split("\t");
-		String check = "Require Uppercase";
-		values[0] = el[1].substring(el[1].indexOf(check) + check.length(), el[1].length()).trim();
-		
-		check = "Require Lowercase";
-		values[1] = el[2].substring(el[2].indexOf(check) + check.length(), el[2].length()).replace(".", "").trim();
-		
-		check = "Require Number";
-		values[2] = el[3].substring(el[3].indexOf(check) + check.length(), el[3].length()).trim();
-		
-		check = "Require Special Characters";
-		values[3] = el[4].substring(el[4].indexOf(check) + check.length(), el[4].length()).replace(".", "").trim();
-		
-		return values;
+		return new String[] {
+				value(index.get("Password Policy", "Require Uppercase")),
+				value(index.get("Password Policy", "Require Lowercase")),
+				value(index.get("Password Policy", "Require Number")),
+				value(index.get("Password Policy", "Require Special Characters"))
+		};
 	}
 	
 	public String getIsClustered() {
-		String[] el = this.summary[this.clustered_index + 1][0].split("\t");
-		String check = "Clustering Enabled";
-		return el[1].substring(el[1].indexOf(check) + check.length(), el[1].length()).trim();
+		return value(index.get("Clustering", "Clustering Enabled"));
 	}
 	
 	public String getActivationCodeExpiration() {
-		String[] el = this.summary[this.activation_code_index + 1][1].split("\t");
-		String check = "Expires";
-		return el[4].substring(el[4].indexOf(check) + check.length(), el[4].length()).replace(".", "").trim();
+		return value(index.get("Activation Code", "Expires"));
 	}
 	
 	public String[] getChangeManagementInfo() {
-		String[] values = new String[2];
-		String[] el = this.summary[this.change_management_index + 1][0].split("\t");
-		String check = "Use Log File";
-		values[0] = el[1].substring(el[1].indexOf(check) + check.length(), el[1].length()).trim();
-		
-		check = "Location of Log File";
-		values[1] = el[2].substring(el[2].indexOf(check) + check.length(), el[2].length()).replace(".", "").trim();
-		
-		return values;
+		return new String[] {
+				value(index.get("Change Management", "Use Log File")),
+				value(index.get("Change Management", "Location of Log File"))
+		};
 	}
 	
 	public String[] getTomcatCert() {
-		String[] values = new String[2];
-		String[] el = this.summary[this.tomcat_index + 1][0].split("\t");
-		
-		String check = "SSL Cert Issuer";
-		values[0] = el[2].substring(el[2].indexOf(check) + check.length(), el[2].length()).replace(".", "").trim();
-		
-		check = "SSL Cert Expires";
-		values[1] = el[3].substring(el[3].indexOf(check) + check.length(), el[3].length()).replace(".", "").trim();
-		
-		return values;
+		return new String[] {
+				value(index.get("Apache Tomcat Settings", "SSL Cert Issuer")),
+				value(index.get("Apache Tomcat Settings", "SSL Cert Expires"))
+		};
 	}
 	
 	public String getLogFlushingInfo() {
-		return parseSummaryValue(this.log_flushing_index, "Time to Flush Logs Each Day");
+		return value(index.get("Log Flushing", "Time to Flush Logs Each Day"));
 	}
 	
 	public String[] getPushCertInfo() {
-		String[] el;
-		String check;
-		String[] values = new String[2];
-		
-		if (this.summary[this.push_cert_index + 1][0].contains("MDM Push Notification Certificate")) {
-			el = this.summary[this.push_cert_index + 1][0].split("\t");
-			check = "Expires";
-			values[0] = el[3].substring(el[3].indexOf(check) + check.length(), el[3].length()).trim();
-		} else {
-			values[0] = "No Data Available.";
-		}
-		
-		if (this.summary[this.push_cert_index + 2][0].contains("Push Proxy Authorization Token")) {
-			el = this.summary[this.push_cert_index + 1][0].split("\t");
-			check = "Expires";
-			if (el.length > 3) {
-				values[1] = el[3].substring(el[3].indexOf(check) + check.length(), el[3].length()).trim();
-			} else {
-				values[1] = "No Data Available.";
+		String mdmPushCert = null;
+		String pushProxy = null;
+		for (Subsection subsection : index.getSubsections("Push Certificates")) {
+			String expires = subsection.get("Expires");
+			if (expires == null) {
+				continue;
+			}
+			
+			if (mdmPushCert == null && mentions(subsection, "MDM Push Notification Certificate")) {
+				mdmPushCert = expires;
+			} else if (pushProxy == null && mentions(subsection, "Push Proxy Authorization Token")) {
+				pushProxy = expires;
 			}
-		} else {
-			values[1] = "No Data Available.";
 		}
-		
-		return values;
+		return new String[] { mdmPushCert == null ? NO_DATA : mdmPushCert, pushProxy == null ? NO_DATA : pushProxy };
 	}
 	
 	public Boolean loginLogoutHooksEnabled() {
-		return Boolean.parseBoolean(parseSummaryValue(this.login_logout_hooks_index, "Login/Logout Hooks"));
+		return Boolean.parseBoolean(index.get("Check-In", "Login/Logout Hooks"));
 	}
 	
+	/**
+	 * Lists the largest tables of the JSS database, largest first. The ten smallest tables are left out.
+	 *
+	 * @return The size in MB of each table, by table name
+	 */
 	public Map<String, Double> getLargeMySQLTables() {
-		String[] el = this.summary[this.table_sizes + 1][0].split("\t");
-		System.out.println(Arrays.toString(el));
+		List<String[]> tables = new ArrayList<>();
+		for (Subsection subsection : index.getSubsections("Table sizes")) {
+			for (String entry : subsection.getEntries()) {
+				String[] row = splitRow(entry);
+				if (row != null && row.length >= 3) {
+					try {
+						Double.parseDouble(row[row.length - 2]);
+						tables.add(row);
+					} catch (NumberFormatException e) {
+						// Not a table, such as the heading of the section
+					}
+				}
+			}
+		}
 		
-		return Stream.of(el)
-				.filter(s -> !s.isEmpty())
-				.map(s -> s.split(" "))
-				.sorted((o1, o2) -> Objects.compare( // Descending Order
-						Double.valueOf(o2[o2.length - 2]),
-						Double.valueOf(o1[o1.length - 2]),
-						Double::compareTo
-				))
-				.limit(el.length - 11) // Not sure why -11 was chosen...
-				.collect(Collectors.toMap(
-						a -> a[0],
-						a -> {
-							double size = Double.parseDouble(a[a.length - 2]);
-							String unit = a[a.length - 1];
-							return unit.contains("KB") ? size * 0.001 : unit.contains("GB") ? size * 1000 : size;
-						}
-				));
+		Map<String, Double> sizes = new LinkedHashMap<>();
+		tables.stream()
+				.map(row -> new Object[] { row[0], toMegabytes(Double.parseDouble(row[row.length - 2]), row[row.length - 1]) })
+				.sorted((o1, o2) -> Double.compare((Double) o2[1], (Double) o1[1])) // Descending Order
+				.limit(Math.max(0, tables.size() - 10))
+				.forEach(table -> sizes.putIfAbsent((String) table[0], (Double) table[1]));
+		return sizes;
+	}
+	
+	/**
+	 * Splits a table entry, such as {@code applications ........ 1.50 MB} or {@code computers 1200}, into the table
+	 * name followed by the remaining words.
+	 */
+	private static String[] splitRow(String entry) {
+		String[] pair = JSSSummaryIndex.splitEntry(entry);
+		String row = pair == null ? entry : pair[0] + " " + pair[1];
+		String[] words = row.trim().split("\\s+");
+		return words.length < 2 ? null : words;
+	}
+	
+	private static boolean mentions(Subsection subsection, String text) {
+		return subsection.getEntries().stream().anyMatch(entry -> entry.contains(text));
 	}
 	
-	private String parseValue(String input, String key) {
-		return input.substring(
-				input.indexOf(key) + key.length(),
-				input.length()
-		).trim();
+	private static double toMegabytes(double size, String unit) {
+		return unit.contains("KB") ? size * 0.001 : unit.contains("GB") ? size * 1000 : size;
 	}
 	
-	private String parseSummaryValue(int index, String key) {
-		return parseValue(this.summary[index + 1][1].split("\t")[1].replaceAll("\\.", ""), key);
+	private static String value(String value) {
+		return value == null ? "" : value;
 	}
 	
 }
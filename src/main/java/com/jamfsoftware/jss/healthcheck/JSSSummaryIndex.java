@@ -0,0 +1,311 @@
+package com.jamfsoftware.jss.healthcheck;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable index of a JSS Summary, built in a single pass over the text.
+ * <p>
+ * The summary is made of sections separated by lines of '=' characters. A section holding only a single line is
+ * the title of the sections that follow it (for example "Password Policy"). Lines of '-' characters split a section
+ * into subsections, and entries within a subsection are separated by tabs or line breaks. An entry of the form
+ * {@code Key ........ Value} is indexed under its key, both for its title and for the whole summary.
+ * <p>
+ * Because values are looked up by key rather than by position, fields that move between JSS versions are still
+ * found, and missing fields are reported as {@code null} instead of failing.
+ * <p>
+ * The index only keeps what it is asked for: the sections under a few titles, and a few keys from anywhere in the
+ * summary. Everything else is dropped as soon as it has been read, so a summary can be parsed straight from the
+ * network without ever being held in memory.
+ *
+ * @since 1.0
+ */
+final class JSSSummaryIndex {
+	
+	/**
+	 * The shortest run of '=' or '-' characters that is treated as a separator rather than as text.
+	 */
+	private static final int SEPARATOR_LENGTH = 20;
+	
+	private final Map<String, String> values;
+	private final Map<String, Section> sections;
+	
+	private JSSSummaryIndex(Map<String, String> values, Map<String, Section> sections) {
+		this.values = Collections.unmodifiableMap(values);
+		this.sections = Collections.unmodifiableMap(sections);
+	}
+	
+	/**
+	 * Reads a summary to the end and indexes it.
+	 *
+	 * @param summary The text of the summary. It is not closed.
+	 * @param titles The titles of the sections to keep
+	 * @param keys The keys to keep from anywhere in the summary
+	 *
+	 * @return The index of the summary
+	 *
+	 * @throws IOException If the summary could not be read
+	 */
+	static JSSSummaryIndex parse(Reader summary, Set<String> titles, Set<String> keys) throws IOException {
+		Builder builder = new Builder(titles, keys);
+		char[] buffer = new char[8192];
+		int read;
+		while ((read = summary.read(buffer)) != -1) {
+			for (int i = 0; i < read; i++) {
+				builder.accept(buffer[i]);
+			}
+		}
+		return builder.finish();
+	}
+	
+	/**
+	 * @param key The key of an entry
+	 *
+	 * @return The value of the first entry in the summary with that key, or {@code null}
+	 */
+	String get(String key) {
+		return values.get(key);
+	}
+	
+	/**
+	 * @param title The title of a section, such as "Password Policy"
+	 * @param key The key of an entry
+	 *
+	 * @return The value of the first entry with that key under the title, or {@code null}
+	 */
+	String get(String title, String key) {
+		Section section = sections.get(title);
+		return section == null ? null : section.values.get(key);
+	}
+	
+	/**
+	 * @param title The title of a section, such as "Password Policy"
+	 *
+	 * @return {@code true} if the summary had any entries under the title
+	 */
+	boolean hasSection(String title) {
+		return sections.containsKey(title);
+	}
+	
+	/**
+	 * @param title The title of a section, such as "Password Policy"
+	 *
+	 * @return The subsections under the title, in the order they appeared
+	 */
+	List<Subsection> getSubsections(String title) {
+		Section section = sections.get(title);
+		return section == null ? Collections.emptyList() : Collections.unmodifiableList(section.subsections);
+	}
+	
+	/**
+	 * Splits an entry of the form {@code Key ........ Value} at its dot leader.
+	 *
+	 * @return The key and the value, or {@code null} if the entry has no dot leader
+	 */
+	static String[] splitEntry(String entry) {
+		int leader = entry.indexOf("..");
+		if (leader <= 0) {
+			return null;
+		}
+		
+		String key = entry.substring(0, leader).trim();
+		if (key.isEmpty()) {
+			return null;
+		}
+		
+		int end = leader;
+		while (end < entry.length() && entry.charAt(end) == '.') {
+			end++;
+		}
+		return new String[] { key, entry.substring(end).trim() };
+	}
+	
+	private static final class Section {
+		
+		private final Map<String, String> values = new HashMap<>();
+		private final List<Subsection> subsections = new ArrayList<>();
+		
+	}
+	
+	/**
+	 * A block of entries between two lines of '-' characters.
+	 */
+	static final class Subsection {
+		
+		private final List<String> entries;
+		private final Map<String, String> values;
+		
+		private Subsection(List<String> entries, Map<String, String> values) {
+			this.entries = Collections.unmodifiableList(entries);
+			this.values = Collections.unmodifiableMap(values);
+		}
+		
+		/**
+		 * @return Every non-empty entry of the subsection, trimmed
+		 */
+		List<String> getEntries() {
+			return entries;
+		}
+		
+		String get(String key) {
+			return values.get(key);
+		}
+		
+	}
+	
+	/**
+	 * The tokenizer. Characters are fed one at a time; a run of '=' or '-' is held back until it is known whether it
+	 * is long enough to be a separator. Entries are only buffered while the current section is one that is kept.
+	 */
+	private static final class Builder {
+		
+		private final Set<String> titles;
+		private final Set<String> keys;
+		private final Map<String, String> values = new HashMap<>();
+		private final Map<String, Section> sections = new HashMap<>();
+		
+		private final StringBuilder entry = new StringBuilder();
+		private List<String> entries = new ArrayList<>();
+		private List<List<String>> chunk = new ArrayList<>();
+		private String title = "";
+		
+		/*
+		 * A section holding a single entry without a dot leader is a title, which is only known once the section
+		 * ends. Its first entry is therefore remembered even while a section is being skipped.
+		 */
+		private String firstEntry;
+		private int chunkEntries;
+		
+		private char run;
+		private int runLength;
+		
+		Builder(Set<String> titles, Set<String> keys) {
+			this.titles = titles;
+			this.keys = keys;
+		}
+		
+		void accept(char c) {
+			if (runLength > 0 && c != run) {
+				endRun();
+			}
+			
+			if (c == '=' || c == '-') {
+				run = c;
+				runLength++;
+			} else if (c == '\t' || c == '\n' || c == '\r') {
+				endEntry();
+			} else {
+				entry.append(c);
+			}
+		}
+		
+		JSSSummaryIndex finish() {
+			endRun();
+			endChunk();
+			return new JSSSummaryIndex(values, sections);
+		}
+		
+		private void endRun() {
+			if (runLength >= SEPARATOR_LENGTH) {
+				if (run == '=') {
+					endChunk();
+				} else {
+					endSubsection();
+				}
+			} else {
+				for (int i = 0; i < runLength; i++) {
+					entry.append(run);
+				}
+			}
+			runLength = 0;
+		}
+		
+		private void endEntry() {
+			String text = entry.toString().trim();
+			entry.setLength(0);
+			if (text.isEmpty()) {
+				return;
+			}
+			
+			if (chunkEntries++ == 0) {
+				firstEntry = text;
+			}
+			
+			String[] pair = splitEntry(text);
+			if (pair != null && keys.contains(pair[0])) {
+				values.putIfAbsent(pair[0], pair[1]);
+			}
+			
+			if (titles.contains(title)) {
+				entries.add(text);
+			}
+		}
+		
+		private void endSubsection() {
+			endEntry();
+			if (!entries.isEmpty()) {
+				chunk.add(entries);
+				entries = new ArrayList<>();
+			}
+		}
+		
+		private void endChunk() {
+			endSubsection();
+			
+			if (chunkEntries == 1 && splitEntry(firstEntry) == null) {
+				title = firstEntry;
+			} else if (!chunk.isEmpty()) {
+				Section section = sections.computeIfAbsent(title, t -> new Section());
+				for (List<String> subsectionEntries : chunk) {
+					Map<String, String> subsectionValues = new HashMap<>();
+					for (String text : subsectionEntries) {
+						String[] pair = splitEntry(text);
+						if (pair != null) {
+							subsectionValues.putIfAbsent(pair[0], pair[1]);
+							section.values.putIfAbsent(pair[0], pair[1]);
+						}
+					}
+					section.subsections.add(new Subsection(subsectionEntries, subsectionValues));
+				}
+			}
+			
+			chunk = new ArrayList<>();
+			chunkEntries = 0;
+			firstEntry = null;
+		}
+		
+	}
+	
+}
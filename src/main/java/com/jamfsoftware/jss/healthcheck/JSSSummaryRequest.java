@@ -0,0 +1,183 @@
+package com.jamfsoftware.jss.healthcheck;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the query string that asks summary.html to create a JSS Summary.
+ * <p>
+ * Each section of the summary is a numbered checkbox on the summary form. Creating every section is one of the
+ * most expensive requests a JSS can be sent, so the health check asks for only the sections {@link JSSSummary}
+ * reads. The section IDs are found by matching the titles in {@link JSSSummary#FORM_SECTIONS} against the labels of
+ * the form's checkboxes. The first checkbox of the form, which holds the server and database information, is always
+ * included. The form is only read once for each version of the JSS.
+ *
+ * @since 1.0
+ */
+final class JSSSummaryRequest {
+	
+	private static final String ALL_SECTIONS = "2=on&3=on&4=on&6=on&5=on&9=on&7=on&313=on&24=on&350=on&600=on&22=on&26=on&23=on&24=on&25=on&28=on&27=on&312=on&53=on&54=on&54=on&255=on&24=on&51=on&65=on&80=on&136=on&135=on&133=on&134=on&137=on&221=on&166=on&390=on&72=on&141=on&124=on&125=on&158=on&252=on&163=on&310=on&381=on&500=on&90=on&91=on&92=on&96=on&95=on&94=on&93=on&74=on&75=on&76=on&82=on&81=on&122=on&118=on&119=on&73=on&117=on&123=on&83=on&11=on&77=on&171=on&128=on&86=on&131=on&314=on&169=on&87=on&41=on&42=on&43=on&360=on&44=on&45=on&";
+	private static final String ALL_SECTIONS_LEGACY = "2=on&3=off&4=on&6=on&5=on&9=on&7=on&313=on&24=on&350=on&22=on&26=on&23=on&24=on&25=on&28=on&27=on&312=on&53=on&54=on&54=on&255=on&24=on&51=on&65=on&80=on&136=on&135=on&133=on&134=on&137=on&221=on&166=on&72=on&141=on&124=on&125=on&158=on&252=on&163=on&310=on&381=on&90=on&91=on&92=on&96=on&95=on&94=on&93=on&74=on&75=on&76=on&82=on&81=on&122=on&118=on&119=on&73=on&117=on&123=on&83=on&11=on&77=on&171=on&128=on&86=on&131=on&314=on&169=on&87=on&41=on&42=on&43=on&360=on&44=on&45=on&";
+	private static final String OPTIONS = "tableRowCounts=on&tableSize=on&action=Create&safari_autofill_target=&FIELD_JAMF_NATION_USERNAME=&fakeUsername=&fakePassword=&FIELD_JAMF_NATION_PASSWORD=&username=";
+	private static final String OPTIONS_LEGACY = "tableRowCounts=on&tableSize=on&Action=Create&username=";
+	
+	private static final Pattern INPUT = Pattern.compile("<input\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+	private static final Pattern CHECKBOX = Pattern.compile("type\\s*=\\s*[\"']?checkbox", Pattern.CASE_INSENSITIVE);
+	private static final Pattern NAME = Pattern.compile("name\\s*=\\s*[\"']?(\\d+)", Pattern.CASE_INSENSITIVE);
+	private static final Pattern TAG = Pattern.compile("<[^>]*>");
+	
+	/**
+	 * The section IDs found on the summary form, by the version of the JSS. An empty set means the sections can't be
+	 * chosen on that version, so every section is requested.
+	 */
+	private static final ConcurrentMap<Double, Set<String>> SECTION_IDS = new ConcurrentHashMap<>();
+	
+	private JSSSummaryRequest() {
+	}
+	
+	/**
+	 * @param version The 'major.minor' version of the JSS
+	 *
+	 * @return The query string for a summary with every section, up to and including the 'username=' parameter
+	 */
+	static String full(double version) {
+		return version >= 9.93 ? ALL_SECTIONS + OPTIONS : ALL_SECTIONS_LEGACY + OPTIONS_LEGACY;
+	}
+	
+	/**
+	 * @param version The 'major.minor' version of the JSS
+	 * @param ids The IDs of the sections to create
+	 *
+	 * @return The query string for a summary with only the given sections, up to and including the 'username='
+	 * parameter
+	 */
+	static String minimal(double version, Collection<String> ids) {
+		StringBuilder query = new StringBuilder();
+		for (String id : ids) {
+			query.append(id).append("=on&");
+		}
+		return query.append(version >= 9.93 ? OPTIONS : OPTIONS_LEGACY).toString();
+	}
+	
+	/**
+	 * @param version The 'major.minor' version of the JSS
+	 *
+	 * @return The section IDs found for {@code version}, an empty set if every section must be requested, or
+	 * {@code null} if the form of that version has not been read yet
+	 */
+	static Set<String> getSectionIds(double version) {
+		return SECTION_IDS.get(version);
+	}
+	
+	/**
+	 * @param version The 'major.minor' version of the JSS
+	 * @param ids The section IDs to request from that version, or {@code null} to request every section
+	 */
+	static void setSectionIds(double version, Set<String> ids) {
+		SECTION_IDS.put(version, ids == null ? Collections.emptySet() : Collections.unmodifiableSet(ids));
+	}
+	
+	/**
+	 * Reads the section checkboxes out of the summary form. The label of a checkbox is the text that follows it, up
+	 * to the next input.
+	 *
+	 * @param html The HTML of summary.html
+	 *
+	 * @return The label of every numbered checkbox, by ID, in the order of the form
+	 */
+	static Map<String, String> parseForm(String html) {
+		Map<String, String> sections = new LinkedHashMap<>();
+		Matcher input = INPUT.matcher(html);
+		String id = null;
+		int labelStart = 0;
+		while (input.find()) {
+			if (id != null) {
+				sections.putIfAbsent(id, label(html.substring(labelStart, input.start())));
+			}
+			
+			String tag = input.group();
+			Matcher name = NAME.matcher(tag);
+			id = CHECKBOX.matcher(tag).find() && name.find() ? name.group(1) : null;
+			labelStart = input.end();
+		}
+		if (id != null) {
+			sections.putIfAbsent(id, label(html.substring(labelStart, Math.min(html.length(), labelStart + 200))));
+		}
+		return sections;
+	}
+	
+	/**
+	 * Finds the IDs of the sections with the given titles.
+	 *
+	 * @param form The section labels of the summary form, as returned by {@link #parseForm(String)}
+	 * @param titles The titles of the sections to find
+	 *
+	 * @return The IDs to request, in the order of the form, or {@code null} if a title could not be found
+	 */
+	static Set<String> selectSections(Map<String, String> form, Set<String> titles) {
+		if (form.isEmpty()) {
+			return null;
+		}
+		
+		Set<String> ids = new LinkedHashSet<>();
+		ids.add(form.keySet().iterator().next());
+		for (String title : titles) {
+			String wanted = normalize(title);
+			String id = form.entrySet()
+					.stream()
+					.filter(e -> normalize(e.getValue()).contains(wanted))
+					.map(Map.Entry::getKey)
+					.findFirst()
+					.orElse(null);
+			if (id == null) {
+				return null;
+			}
+			ids.add(id);
+		}
+		return ids;
+	}
+	
+	private static String label(String html) {
+		return TAG.matcher(html).replaceAll(" ").replace("&amp;", "&").replace("&nbsp;", " ").replaceAll("\\s+", " ").trim();
+	}
+	
+	private static String normalize(String text) {
+		return text.toLowerCase(Locale.ENGLISH).replaceAll("[^a-z0-9]", "");
+	}
+	
+}
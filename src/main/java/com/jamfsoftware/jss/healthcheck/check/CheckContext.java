@@ -0,0 +1,224 @@
+package com.jamfsoftware.jss.healthcheck.check;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
+
+import com.jamfsoftware.jss.healthcheck.JSSSummary;
+import com.jamfsoftware.jss.healthcheck.controller.ConfigurationSnapshot;
+import com.jamfsoftware.jss.healthcheck.controller.DetailFetchController;
+import com.jamfsoftware.jss.healthcheck.controller.DetailFetchController.DetailParser;
+import com.jamfsoftware.jss.healthcheck.controller.DetailFetchController.Details;
+import com.jamfsoftware.jss.healthcheck.controller.HTTPController;
+
+/**
+ * Everything a {@link HealthCheckModule} may read during a run. API objects are requested at most once; every
+ * module asking for the same object shares the same response.
+ * <p>
+ * Each module is handed a context of its own section by the {@link CheckScheduler}, which shares everything with the
+ * context of the run. It is how detail records the module could not read are counted against its section.
+ *
+ * @since 1.0
+ */
+public class CheckContext {
+	
+	/**
+	 * The resource name of the JSS Summary, which is read before any module runs.
+	 */
+	public static final String SUMMARY = "summary";
+	
+	private final HTTPController api;
+	private final String url;
+	private final JSSSummary summary;
+	private final ConfigurationSnapshot configuration;
+	private final DetailFetchController fetcher;
+	private final ConcurrentMap<String, CompletableFuture<Document>> documents;
+	private final ConcurrentMap<String, Integer> missingDetails;
+	private final Set<String> cutShort;
+	private final String section;
+	
+	/**
+	 * Constructs a new {@link CheckContext}
+	 *
+	 * @param api The HTTP client shared by the run
+	 * @param url The URL of the JSS
+	 * @param summary The JSS Summary of the run
+	 * @param configuration The configuration of the run
+	 */
+	public CheckContext(HTTPController api, String url, JSSSummary summary, ConfigurationSnapshot configuration) {
+		this.api = api;
+		this.url = url;
+		this.summary = summary;
+		this.configuration = configuration;
+		this.fetcher = new DetailFetchController(api, url);
+		this.documents = new ConcurrentHashMap<>();
+		this.missingDetails = new ConcurrentHashMap<>();
+		this.cutShort = ConcurrentHashMap.newKeySet();
+		this.section = null;
+	}
+	
+	private CheckContext(CheckContext run, String section) {
+		this.api = run.api;
+		this.url = run.url;
+		this.summary = run.summary;
+		this.configuration = run.configuration;
+		this.fetcher = run.fetcher;
+		this.documents = run.documents;
+		this.missingDetails = run.missingDetails;
+		this.cutShort = run.cutShort;
+		this.section = section;
+	}
+	
+	/**
+	 * @return A context that shares everything with this one, for the module that writes {@code section}
+	 */
+	CheckContext forSection(String section) {
+		return new CheckContext(this, section);
+	}
+	
+	/**
+	 * @return The number of detail records that could not be read, by the section of the module that asked for them
+	 */
+	Map<String, Integer> getMissingDetails() {
+		return new TreeMap<>(missingDetails);
+	}
+	
+	/**
+	 * @return Whether the module that writes {@code section} had detail records cut short by the run being cancelled
+	 */
+	boolean wasCutShort(String section) {
+		return cutShort.contains(section);
+	}
+	
+	public JSSSummary getSummary() {
+		return summary;
+	}
+	
+	public ConfigurationSnapshot getConfiguration() {
+		return configuration;
+	}
+	
+	/**
+	 * @return Whether the run has been cancelled, after which every request fails and results may be incomplete
+	 */
+	public boolean isCancelled() {
+		return api.isCancelled();
+	}
+	
+	/**
+	 * Starts the request for a resource, unless it has already been started.
+	 *
+	 * @param resource {@link #SUMMARY} or a JSS API object
+	 *
+	 * @return A future that completes once the resource is available
+	 */
+	public CompletableFuture<?> prefetch(String resource) {
+		if (SUMMARY.equals(resource)) {
+			return CompletableFuture.completedFuture(summary);
+		}
+		return documents.computeIfAbsent(resource, r -> api.doGetAsync(url + "/JSSResource/" + r, body -> new SAXBuilder().build(body)));
+	}
+	
+	/**
+	 * Returns a JSS API object, waiting for the request if it is still in flight.
+	 *
+	 * @param resource The JSS API object, relative to /JSSResource/
+	 *
+	 * @return The parsed XML document
+	 *
+	 * @throws IOException If the request failed
+	 * @throws JDOMException If the response is not well-formed XML
+	 */
+	public Document getDocument(String resource) throws IOException, JDOMException {
+		try {
+			return (Document) prefetch(resource).join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof JDOMException) {
+				throw (JDOMException) cause;
+			}
+			throw new IOException("Unable to get API object " + resource, cause);
+		}
+	}
+	
+	/**
+	 * Reads the IDs out of a JSS API list, in the order the JSS returned them. The {@code <size>} element of the
+	 * list is skipped.
+	 *
+	 * @param resource The JSS API list object, relative to /JSSResource/
+	 *
+	 * @return The IDs of every entry of the list
+	 *
+	 * @throws IOException If the request failed
+	 * @throws JDOMException If the response is not well-formed XML
+	 */
+	public List<String> getListIds(String resource) throws IOException, JDOMException {
+		return getDocument(resource)
+				.getRootElement()
+				.getChildren()
+				.stream()
+				.filter(e -> !e.getName().equals("size"))
+				.map(e -> e.getContent().get(0).getValue())
+				.distinct()
+				.collect(Collectors.toList());
+	}
+	
+	/**
+	 * Records that could not be read are left out, and counted against the section of this context. If the run was
+	 * cancelled before every record was read, the section is marked as cut short.
+	 *
+	 * @see DetailFetchController#fetchAll(String, Collection, DetailParser)
+	 */
+	public <T> List<T> fetchDetails(String objectName, Collection<String> ids, DetailParser<T> parser)
+			throws InterruptedException {
+		Details<T> details = fetcher.fetchAll(objectName, ids, parser);
+		if (details.getMissing() > 0 && section != null) {
+			missingDetails.merge(section, details.getMissing(), Integer::sum);
+		}
+		if (details.getCancelled() > 0 && section != null) {
+			cutShort.add(section);
+		}
+		return details.getResults();
+	}
+	
+}
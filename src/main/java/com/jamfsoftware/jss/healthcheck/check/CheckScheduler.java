@@ -0,0 +1,310 @@
+package com.jamfsoftware.jss.healthcheck.check;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult;
+
+/**
+ * Runs a set of {@link HealthCheckModule}s as a dependency graph. A module starts as soon as the resources it
+ * declared have been fetched and the modules it depends on have finished, so independent modules run concurrently
+ * and the length of a run is set by its slowest chain rather than by the number of modules. A module whose
+ * dependency failed or was skipped is skipped as well.
+ *
+ * @since 1.0
+ */
+public class CheckScheduler {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(CheckScheduler.class);
+	
+	private final CheckContext context;
+	private final Map<String, Long> timings = new ConcurrentHashMap<>();
+	private final Queue<String> timedOut = new ConcurrentLinkedQueue<>();
+	private final Queue<String> skipped = new ConcurrentLinkedQueue<>();
+	
+	/**
+	 * Constructs a new {@link CheckScheduler}
+	 *
+	 * @param context The context shared by every module of the run
+	 */
+	public CheckScheduler(CheckContext context) {
+		this.context = context;
+	}
+	
+	/**
+	 * Loads every {@link HealthCheckModule} registered on the class path. A module that can not be loaded is
+	 * logged and left out.
+	 *
+	 * @return The modules, built-in modules first
+	 */
+	public static List<HealthCheckModule> loadModules() {
+		List<HealthCheckModule> modules = new ArrayList<>();
+		Iterator<HealthCheckModule> iterator = ServiceLoader.load(HealthCheckModule.class).iterator();
+		while (true) {
+			try {
+				if (!iterator.hasNext()) {
+					break;
+				}
+				modules.add(iterator.next());
+			} catch (ServiceConfigurationError e) {
+				LOGGER.error("Unable to load health check module", e);
+			}
+		}
+		return modules;
+	}
+	
+	/**
+	 * Runs the modules and waits for all of them to finish. A module that fails, that is part of a dependency cycle,
+	 * or whose dependency failed, leaves its values unset.
+	 *
+	 * @param modules The modules to run
+	 * @param result The result the modules fill in
+	 *
+	 * @throws InterruptedException If the calling thread is interrupted while waiting for the modules
+	 */
+	public void run(Collection<HealthCheckModule> modules, HealthCheckResult result) throws InterruptedException {
+		Map<String, HealthCheckModule> bySection = new LinkedHashMap<>();
+		for (HealthCheckModule module : modules) {
+			String section = module.getSection();
+			if (bySection.putIfAbsent(section, module) != null) {
+				LOGGER.warn("Ignoring " + module.getClass().getName() + ", section '" + section + "' is already written by " + bySection.get(section).getClass().getName());
+			}
+		}
+		
+		ExecutorService executor = Executors.newCachedThreadPool(new ModuleThreadFactory());
+		try {
+			Map<String, CompletableFuture<Void>> scheduled = new LinkedHashMap<>();
+			for (String section : bySection.keySet()) {
+				schedule(section, bySection, result, scheduled, new LinkedHashSet<>(), executor);
+			}
+			
+			// A failed module fails the future of its dependents too, which is only used to skip them
+			CompletableFuture.allOf(scheduled.values().stream().filter(Objects::nonNull).toArray(CompletableFuture<?>[]::new))
+					.exceptionally(error -> null)
+					.get();
+		} catch (ExecutionException e) {
+			LOGGER.error("Error running health check modules", e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * Schedules a module after its dependencies, which are scheduled first. {@code path} holds the modules on the
+	 * current branch of the graph, in order, and is how a cycle is detected. Every module on a cycle is skipped when
+	 * the cycle is found. A module that can not be scheduled is recorded with a {@code null} future, and {@code null}
+	 * is returned.
+	 */
+	private CompletableFuture<Void> schedule(String section, Map<String, HealthCheckModule> bySection, HealthCheckResult result,
+			Map<String, CompletableFuture<Void>> scheduled, Set<String> path, ExecutorService executor) {
+		if (scheduled.containsKey(section)) {
+			return scheduled.get(section);
+		}
+		
+		HealthCheckModule module = bySection.get(section);
+		if (path.contains(section)) {
+			skipCycle(section, path, scheduled);
+			return null;
+		}
+		path.add(section);
+		
+		List<CompletableFuture<?>> dependencies = new ArrayList<>();
+		boolean runnable = true;
+		for (String dependency : module.getDependencies()) {
+			if (!bySection.containsKey(dependency)) {
+				LOGGER.warn("'" + section + "' depends on '" + dependency + "', which is not installed");
+				continue;
+			}
+			
+			CompletableFuture<Void> input = schedule(dependency, bySection, result, scheduled, path, executor);
+			if (input == null) {
+				runnable = false;
+			} else {
+				dependencies.add(input);
+			}
+		}
+		path.remove(section);
+		
+		if (scheduled.containsKey(section)) {
+			// Skipped as part of a cycle that closed on one of its dependencies
+			return null;
+		}
+		if (!runnable) {
+			LOGGER.error("Not running '" + section + "', one of its dependencies could not be scheduled");
+			skipped.add(section);
+			scheduled.put(section, null);
+			return null;
+		}
+		
+		List<CompletableFuture<?>> resources = new ArrayList<>();
+		for (String resource : module.getResources()) {
+			resources.add(context.prefetch(resource));
+		}
+		
+		// A failed resource does not stop the module; it will see the error when it reads the resource.
+		CompletableFuture<Void> fetched = CompletableFuture
+				.allOf(resources.toArray(new CompletableFuture<?>[0]))
+				.handle((ignored, error) -> null);
+		CompletableFuture<Void> future = CompletableFuture
+				.allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+				.thenCombine(fetched, (ignored, none) -> none)
+				.handleAsync((ignored, error) -> {
+					if (error != null) {
+						skipModule(module);
+						throw new CompletionException(error);
+					}
+					if (!runModule(module, result)) {
+						throw new CompletionException(new IllegalStateException("'" + section + "' failed"));
+					}
+					return null;
+				}, executor);
+		scheduled.put(section, future);
+		return future;
+	}
+	
+	/**
+	 * Skips every module on the cycle that {@code section} closes, which are the modules on {@code path} from
+	 * {@code section} on.
+	 */
+	private void skipCycle(String section, Set<String> path, Map<String, CompletableFuture<Void>> scheduled) {
+		List<String> cycle = new ArrayList<>(path);
+		cycle = cycle.subList(cycle.indexOf(section), cycle.size());
+		LOGGER.error("Not running " + cycle + ", their dependencies form a cycle: " + String.join(" -> ", cycle) + " -> " + section);
+		for (String member : cycle) {
+			skipped.add(member);
+			scheduled.put(member, null);
+		}
+	}
+	
+	/**
+	 * @return The time each module that has run took, in milliseconds, by section. The time spent waiting for its
+	 * resources and dependencies is not included.
+	 */
+	public Map<String, Long> getTimings() {
+		return Collections.unmodifiableMap(timings);
+	}
+	
+	/**
+	 * @return The sections of the modules that were still running when the run was cancelled, or that had detail
+	 * records cut short by it, in the order they finished. Their values may be missing or incomplete.
+	 */
+	public List<String> getTimedOut() {
+		return new ArrayList<>(timedOut);
+	}
+	
+	/**
+	 * @return The sections of the modules that were not run because they are part of a dependency cycle, or because a
+	 * module they depend on failed or was skipped, in the order they were skipped
+	 */
+	public List<String> getSkipped() {
+		return new ArrayList<>(skipped);
+	}
+	
+	/**
+	 * @return The number of detail records each module could not read, by section. The values of these sections are
+	 * based on the records that could be read, so counts of problems may be too low.
+	 */
+	public Map<String, Integer> getIncomplete() {
+		return context.getMissingDetails();
+	}
+	
+	/**
+	 * @return Whether the module completed its check
+	 */
+	private boolean runModule(HealthCheckModule module, HealthCheckResult result) {
+		LOGGER.info("Checking API Object: " + module.getSection());
+		long start = System.nanoTime();
+		try {
+			module.check(context.forSection(module.getSection()), result);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (Exception e) {
+			if (context.isCancelled()) {
+				LOGGER.warn("Ran out of time checking " + module.getSection() + ": " + e.getMessage());
+			} else {
+				LOGGER.error("Error making API call for " + module.getSection(), e);
+			}
+			return false;
+		} finally {
+			timings.put(module.getSection(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			if (context.isCancelled() || context.wasCutShort(module.getSection())) {
+				timedOut.add(module.getSection());
+			}
+		}
+	}
+	
+	private void skipModule(HealthCheckModule module) {
+		LOGGER.warn("Not running '" + module.getSection() + "', one of its dependencies failed");
+		skipped.add(module.getSection());
+		// Had the run not been cancelled, the dependency might have finished and this module run
+		if (context.isCancelled()) {
+			timedOut.add(module.getSection());
+		}
+	}
+	
+	private static final class ModuleThreadFactory implements ThreadFactory {
+		
+		private final AtomicInteger count = new AtomicInteger();
+		
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "health-check-module-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,80 @@
+package com.jamfsoftware.jss.healthcheck.check;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult;
+
+/**
+ * A single check performed against the JSS API, filling in its part of the {@link HealthCheckResult}.
+ * <p>
+ * Modules are discovered with {@link java.util.ServiceLoader}: list the implementation class in
+ * {@code META-INF/services/com.jamfsoftware.jss.healthcheck.check.HealthCheckModule} and put the jar on the class
+ * path. Implementations need a public no-argument constructor.
+ * <p>
+ * Modules run concurrently, so {@link #check(CheckContext, HealthCheckResult)} must only set the values its own
+ * section is responsible for.
+ *
+ * @since 1.0
+ */
+public interface HealthCheckModule {
+	
+	/**
+	 * @return The name of the section of the report this module fills in. Section names must be unique.
+	 */
+	String getSection();
+	
+	/**
+	 * The resources are requested before the module runs, and each is requested only once per run no matter how
+	 * many modules need it.
+	 *
+	 * @return {@link CheckContext#SUMMARY} and/or the JSS API objects (relative to /JSSResource/) this module reads
+	 */
+	default Collection<String> getResources() {
+		return Collections.emptyList();
+	}
+	
+	/**
+	 * @return The sections of other modules that must be complete before this module runs
+	 */
+	default Collection<String> getDependencies() {
+		return Collections.emptyList();
+	}
+	
+	/**
+	 * Performs the check and writes the results.
+	 *
+	 * @param context Access to the JSS and the resources shared by the run
+	 * @param result The results of the run
+	 *
+	 * @throws Exception If the check could not be completed. The error is logged and the other modules still run.
+	 */
+	void check(CheckContext context, HealthCheckResult result) throws Exception;
+	
+}
@@ -0,0 +1,62 @@
+package com.jamfsoftware.jss.healthcheck.check.impl;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.jdom2.Element;
+
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult;
+import com.jamfsoftware.jss.healthcheck.check.CheckContext;
+import com.jamfsoftware.jss.healthcheck.check.HealthCheckModule;
+
+/**
+ * Reports the activation code of the JSS and when it expires.
+ *
+ * @since 1.0
+ */
+public class ActivationCodeModule implements HealthCheckModule {
+	
+	@Override
+	public String getSection() {
+		return "activationcode";
+	}
+	
+	@Override
+	public Collection<String> getResources() {
+		return Arrays.asList(CheckContext.SUMMARY, "activationcode");
+	}
+	
+	@Override
+	public void check(CheckContext context, HealthCheckResult result) throws Exception {
+		List<Element> activationcode = context.getDocument("activationcode").getRootElement().getChildren();
+		result.setActivationCode(activationcode.get(1).getValue(), context.getSummary().getActivationCodeExpiration());
+	}
+	
+}
@@ -0,0 +1,67 @@
+package com.jamfsoftware.jss.healthcheck.check.impl;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.jdom2.Content;
+import org.jdom2.Element;
+
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult;
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult.LDAPServer;
+import com.jamfsoftware.jss.healthcheck.check.CheckContext;
+import com.jamfsoftware.jss.healthcheck.check.HealthCheckModule;
+
+/**
+ * Lists the connection details of every LDAP server.
+ *
+ * @since 1.0
+ */
+public class LDAPServerModule implements HealthCheckModule {
+	
+	@Override
+	public String getSection() {
+		return "ldapservers";
+	}
+	
+	@Override
+	public Collection<String> getResources() {
+		return Collections.singletonList("ldapservers");
+	}
+	
+	@Override
+	public void check(CheckContext context, HealthCheckResult result) throws Exception {
+		result.setLDAPServers(context.fetchDetails("ldapservers", context.getListIds("ldapservers"), root -> {
+			List<Element> serv = root.getChildren();
+			List<Content> connection = serv.get(0).getContent();
+			return new LDAPServer(connection.get(0).getValue(), connection.get(1).getValue(), connection.get(3).getValue(), connection.get(2).getValue());
+		}));
+	}
+	
+}
@@ -0,0 +1,107 @@
+package com.jamfsoftware.jss.healthcheck.check.impl;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.ObjIntConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult;
+import com.jamfsoftware.jss.healthcheck.check.CheckContext;
+import com.jamfsoftware.jss.healthcheck.check.HealthCheckModule;
+
+/**
+ * Reports the number of elements in a JSS API list.
+ *
+ * @since 1.0
+ */
+public abstract class ObjectCountModule implements HealthCheckModule {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(ObjectCountModule.class);
+	
+	private final String objectName;
+	private final ObjIntConsumer<HealthCheckResult> setter;
+	
+	/**
+	 * @param objectName The JSS API object name of the list
+	 * @param setter Stores the count in the result
+	 */
+	protected ObjectCountModule(String objectName, ObjIntConsumer<HealthCheckResult> setter) {
+		this.objectName = objectName;
+		this.setter = setter;
+	}
+	
+	@Override
+	public String getSection() {
+		return objectName;
+	}
+	
+	@Override
+	public Collection<String> getResources() {
+		return Collections.singletonList(objectName);
+	}
+	
+	@Override
+	public void check(CheckContext context, HealthCheckResult result) {
+		int count = -1;
+		try {
+			count = context.getDocument(objectName).getRootElement().getChildren().size();
+		} catch (Exception e) {
+			LOGGER.error("Unable to parse XML document for object: " + objectName, e);
+		}
+		
+		setter.accept(result, count);
+	}
+	
+	public static class ComputerExtensionAttributes extends ObjectCountModule {
+		
+		public ComputerExtensionAttributes() {
+			super("computerextensionattributes", HealthCheckResult::setComputerExtensionAttributeCount);
+		}
+		
+	}
+	
+	public static class MobileDeviceExtensionAttributes extends ObjectCountModule {
+		
+		public MobileDeviceExtensionAttributes() {
+			super("mobiledeviceextensionattributes", HealthCheckResult::setMobileDeviceExtensionAttributeCount);
+		}
+		
+	}
+	
+	public static class ComputerConfigurations extends ObjectCountModule {
+		
+		public ComputerConfigurations() {
+			super("computerconfigurations", HealthCheckResult::setComputerConfigurationCount);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,75 @@
+package com.jamfsoftware.jss.healthcheck.check.impl;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.jdom2.Element;
+
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult;
+import com.jamfsoftware.jss.healthcheck.check.CheckContext;
+import com.jamfsoftware.jss.healthcheck.check.HealthCheckModule;
+
+/**
+ * Lists the ongoing policies that update inventory on every check-in.
+ *
+ * @since 1.0
+ */
+public class PolicyModule implements HealthCheckModule {
+	
+	@Override
+	public String getSection() {
+		return "policies";
+	}
+	
+	@Override
+	public Collection<String> getResources() {
+		return Collections.singletonList("policies");
+	}
+	
+	@Override
+	public void check(CheckContext context, HealthCheckResult result) throws Exception {
+		List<String> policies_with_issues = context.fetchDetails("policies", context.getListIds("policies"), root -> {
+			List<Element> policy = root.getChildren();
+			
+			//A policy that ongoing and updates inventory AND  is triggered on a checkin
+			if (policy.get(9).getContent().get(0).getValue().equals("true")
+					&& (policy.get(0).getContent().get(11).getValue().equals("Ongoing")
+					&& policy.get(0).getContent().get(4).getValue().equals("true"))) {
+				return policy.get(0).getContent().get(1).getValue();
+			}
+			return null;
+		});
+		
+		policies_with_issues.removeIf(Objects::isNull);
+		result.setPoliciesWithIssues(policies_with_issues);
+	}
+	
+}
@@ -0,0 +1,83 @@
+package com.jamfsoftware.jss.healthcheck.check.impl;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.jdom2.Element;
+
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult;
+import com.jamfsoftware.jss.healthcheck.check.CheckContext;
+import com.jamfsoftware.jss.healthcheck.check.HealthCheckModule;
+
+/**
+ * Lists the scripts that use the old jamf binary location or other risky commands.
+ *
+ * @since 1.0
+ */
+public class ScriptModule implements HealthCheckModule {
+	
+	@Override
+	public String getSection() {
+		return "scripts";
+	}
+	
+	@Override
+	public Collection<String> getResources() {
+		return Collections.singletonList("scripts");
+	}
+	
+	@Override
+	public void check(CheckContext context, HealthCheckResult result) throws Exception {
+		List<String> scriptsToUpdate = context.fetchDetails("scripts", context.getListIds("scripts"), root -> {
+			List<Element> script = root.getChildren();
+			//Get the script name and the actual content of the script
+			String script_name = "";
+			if (script.size() > 0) {
+				script_name = script.get(1).getContent().get(0).getValue();
+			}
+			String script_code = "";
+			//Check to make the script actually has contents
+			if (script.size() >= 10) {
+				if (script.get(9).getContent().size() > 0) {
+					script_code = script.get(9).getContent().get(0).getValue();
+				}
+			}
+			//Check for the old binary location, if it is present, add it to the list.
+			if (script_code.toLowerCase().contains("/usr/sbin/jamf") || script_code.toLowerCase().contains("rm -rf") || script_code.toLowerCase().contains("jamf recon")) {
+				return script_name;
+			}
+			return null;
+		});
+		scriptsToUpdate.removeIf(Objects::isNull);
+		result.setScriptsNeedingUpdate(scriptsToUpdate);
+	}
+	
+}
@@ -0,0 +1,130 @@
+package com.jamfsoftware.jss.healthcheck.check.impl;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+import org.jdom2.Element;
+
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult;
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult.SmartGroup;
+import com.jamfsoftware.jss.healthcheck.check.CheckContext;
+import com.jamfsoftware.jss.healthcheck.check.HealthCheckModule;
+import com.jamfsoftware.jss.healthcheck.controller.ConfigurationSnapshot;
+
+/**
+ * This module gets all of the Computer, Mobile or User Smart Groups by ID, then tallies the Criteria and Nested
+ * counts. Adds problem groups to the report.
+ *
+ * @since 1.0
+ */
+public abstract class SmartGroupModule implements HealthCheckModule {
+	
+	private final String objectName;
+	private final int criteriaIndex;
+	private final BiConsumer<HealthCheckResult, List<SmartGroup>> setter;
+	
+	/**
+	 * @param objectName The JSS API object name of the groups
+	 * @param criteriaIndex The index of the criteria count in a group. It is different in each object for some
+	 * reason.
+	 * @param setter Stores the problem groups in the result
+	 */
+	protected SmartGroupModule(String objectName, int criteriaIndex, BiConsumer<HealthCheckResult, List<SmartGroup>> setter) {
+		this.objectName = objectName;
+		this.criteriaIndex = criteriaIndex;
+		this.setter = setter;
+	}
+	
+	@Override
+	public String getSection() {
+		return objectName;
+	}
+	
+	@Override
+	public Collection<String> getResources() {
+		return Collections.singletonList(objectName);
+	}
+	
+	@Override
+	public void check(CheckContext context, HealthCheckResult result) throws Exception {
+		int criteriaCountThreshold = context.getConfiguration().getSmartGroupCriteriaCount();
+		List<SmartGroup> problemGroups = context.fetchDetails(objectName, context.getListIds(objectName), root -> {
+			List<Element> group = root.getChildren();
+			
+			String name = group.get(1).getContent().get(0).getValue();
+			int nestedGroupCount = 0;
+			int criticalCount = Integer.parseInt(group.get(criteriaIndex).getContent().get(0).getValue());
+			
+			//Loop through all of the Critical and check for nested groups.
+			for (int cri = 1; cri < group.get(4).getContent().size(); cri++) {
+				String value = group.get(4).getContent().get(1).getValue();
+				if (value.contains("Computer Group") || value.contains("Mobile Device Group") || value.contains("User Group")) {
+					nestedGroupCount++;
+				}
+			}
+			
+			//Should only add problem groups
+			if (nestedGroupCount != 0 || (criteriaCountThreshold != ConfigurationSnapshot.NOT_CONFIGURED && criticalCount > criteriaCountThreshold)) {
+				return new SmartGroup(group.get(0).getContent().get(0).getValue(), name, nestedGroupCount, criticalCount);
+			}
+			return null;
+		});
+		
+		problemGroups.removeIf(Objects::isNull);
+		setter.accept(result, problemGroups);
+	}
+	
+	public static class Computers extends SmartGroupModule {
+		
+		public Computers() {
+			super("computergroups", 4, HealthCheckResult::setComputerGroups);
+		}
+		
+	}
+	
+	public static class MobileDevices extends SmartGroupModule {
+		
+		public MobileDevices() {
+			super("mobiledevicegroups", 3, HealthCheckResult::setMobileDeviceGroups);
+		}
+		
+	}
+	
+	public static class Users extends SmartGroupModule {
+		
+		public Users() {
+			super("usergroups", 5, HealthCheckResult::setUserGroups);
+		}
+		
+	}
+	
+}
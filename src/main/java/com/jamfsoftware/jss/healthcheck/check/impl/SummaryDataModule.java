@@ -0,0 +1,91 @@
+package com.jamfsoftware.jss.healthcheck.check.impl;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult;
+import com.jamfsoftware.jss.healthcheck.JSSSummary;
+import com.jamfsoftware.jss.healthcheck.check.CheckContext;
+import com.jamfsoftware.jss.healthcheck.check.HealthCheckModule;
+
+/**
+ * Reports the settings read from the JSS Summary: password policy, change management, certificates, log flushing,
+ * login/logout hooks and the device table row counts.
+ *
+ * @since 1.0
+ */
+public class SummaryDataModule implements HealthCheckModule {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(SummaryDataModule.class);
+	
+	@Override
+	public String getSection() {
+		return "summarydata";
+	}
+	
+	@Override
+	public Collection<String> getResources() {
+		return Collections.singletonList(CheckContext.SUMMARY);
+	}
+	
+	@Override
+	public void check(CheckContext context, HealthCheckResult result) {
+		System.out.println("Parsing JSS Summary..");
+		JSSSummary summary = context.getSummary();
+		
+		String[] password_info = summary.getPasswordInformation();
+		result.setPasswordRequirements(password_info[0].contains("true"), password_info[1].contains("true"), password_info[2].contains("true"), password_info[3].contains("true"));
+		
+		String[] change_info = summary.getChangeManagementInfo();
+		result.setChangeManagement(change_info[0].isEmpty() ? null : change_info[0].contains("true"), change_info[1]);
+		
+		String[] tomcat_info = summary.getTomcatCert();
+		result.setSSLCert(tomcat_info[0], tomcat_info[1]);
+		
+		result.setLogFlushTime(summary.getLogFlushingInfo());
+		
+		String[] push_cert_info = summary.getPushCertInfo();
+		result.setPushCertExpirations(push_cert_info[0], push_cert_info[1]);
+		
+		result.setLoginLogoutHooksEnabled(summary.loginLogoutHooksEnabled());
+		
+		try {
+			String[] device_table_counts = summary.getTableRowCounts().split(",");
+			result.setDeviceRowCounts(Integer.parseInt(device_table_counts[0].trim()), Integer.parseInt(device_table_counts[1].trim()),
+					Integer.parseInt(device_table_counts[2].trim()), Integer.parseInt(device_table_counts[3].trim()));
+		} catch (Exception e) {
+			LOGGER.debug("Unable to parse table row counts", e);
+			System.out.println("Unable to parse table row counts from the JSS Summary.");
+		}
+	}
+	
+}
@@ -0,0 +1,79 @@
+package com.jamfsoftware.jss.healthcheck.check.impl;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.jdom2.Element;
+
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult;
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult.VPPAccount;
+import com.jamfsoftware.jss.healthcheck.check.CheckContext;
+import com.jamfsoftware.jss.healthcheck.check.HealthCheckModule;
+import com.jamfsoftware.jss.healthcheck.util.DateUtil;
+
+/**
+ * Lists every VPP account and the number of days until its token expires.
+ *
+ * @since 1.0
+ */
+public class VPPAccountModule implements HealthCheckModule {
+	
+	@Override
+	public String getSection() {
+		return "vppaccounts";
+	}
+	
+	@Override
+	public Collection<String> getResources() {
+		return Collections.singletonList("vppaccounts");
+	}
+	
+	@Override
+	public void check(CheckContext context, HealthCheckResult result) throws Exception {
+		List<String[]> vpp_account_info = context.fetchDetails("vppaccounts", context.getListIds("vppaccounts"), root -> {
+			List<Element> acc = root.getChildren();
+			return new String[] { acc.get(0).getContent().get(0).getValue(), acc.get(1).getContent().get(0).getValue(), acc.get(5).getContent().get(0).getValue() };
+		});
+		
+		DateFormat format = new SimpleDateFormat("yyyy/MM/dd");
+		String today = format.format(new Date());
+		
+		List<VPPAccount> accounts = new ArrayList<>();
+		for (String[] vpp_account : vpp_account_info) {
+			accounts.add(new VPPAccount(vpp_account[0], vpp_account[1], DateUtil.calculateDays(today, vpp_account[2])));
+		}
+		result.setVPPAccounts(accounts);
+	}
+	
+}
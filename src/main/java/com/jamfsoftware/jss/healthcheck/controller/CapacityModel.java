@@ -0,0 +1,266 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jdom2.Element;
+
+/**
+ * Recommends the size of a JSS server for any number of devices.
+ * <p>
+ * Each recommendation is configured as a list of breakpoints: the recommended value at a number of devices. Between
+ * two breakpoints the value is interpolated along a straight line. Past the last breakpoint the line of the last two
+ * breakpoints is followed, so very large environments still get a recommendation, except for bounded metrics such
+ * as the check-in frequency, which keep the value of the last breakpoint. Below the first breakpoint its value is
+ * used.
+ * <p>
+ * A breakpoint with an empty value leaves the metric unconfigured for the devices up to that breakpoint, so the
+ * next breakpoint's value only applies above it.
+ * <p>
+ * The breakpoints are read from the {@code capacity_model} element of config.xml. Older config.xml files only have
+ * the {@code jss_size} tiers, and each {@code up_to_N} tier is then used as a breakpoint at N devices.
+ *
+ * @since 1.0
+ */
+public final class CapacityModel {
+	
+	/**
+	 * A value of the model, with the config.xml element that configures it.
+	 */
+	public enum Metric {
+		
+		DATABASE_SIZE("db_size", "Maximum Database Size", "MB", false),
+		TOMCAT_MEMORY("tomcat_mem", "Minimum Tomcat Memory", "MB", false),
+		SERVER_MEMORY("server_mem", "Minimum Server Memory", "MB", false),
+		CHECK_IN_FREQUENCY("checkin", "Maximum Checkin Frequency", "Minutes", true);
+		
+		private final String element;
+		private final String label;
+		private final String unit;
+		private final boolean bounded;
+		
+		Metric(String element, String label, String unit, boolean bounded) {
+			this.element = element;
+			this.label = label;
+			this.unit = unit;
+			this.bounded = bounded;
+		}
+		
+		public String getLabel() {
+			return label;
+		}
+		
+		public String getUnit() {
+			return unit;
+		}
+		
+	}
+	
+	private static final Pattern TIER = Pattern.compile("up_to_(\\d+)");
+	
+	/**
+	 * The value of a breakpoint whose element is present but empty.
+	 */
+	private static final double UNCONFIGURED = Double.NaN;
+	
+	private final Map<Metric, NavigableMap<Integer, Double>> breakpoints;
+	
+	private CapacityModel(Map<Metric, NavigableMap<Integer, Double>> breakpoints) {
+		this.breakpoints = breakpoints;
+	}
+	
+	/**
+	 * Reads the breakpoints out of the {@code configurations} element of config.xml.
+	 *
+	 * @param configurations The {@code configurations} element, or {@code null}
+	 *
+	 * @return The model. A metric without breakpoints is {@link ConfigurationSnapshot#NOT_CONFIGURED}.
+	 */
+	static CapacityModel read(Element configurations) {
+		Map<Metric, NavigableMap<Integer, Double>> breakpoints = new EnumMap<>(Metric.class);
+		for (Metric metric : Metric.values()) {
+			breakpoints.put(metric, new TreeMap<>());
+		}
+		if (configurations == null) {
+			return new CapacityModel(breakpoints);
+		}
+		
+		Element model = configurations.getChild("capacity_model");
+		if (model != null) {
+			for (Element breakpoint : model.getChildren("breakpoint")) {
+				Double devices = number(breakpoint.getChildTextTrim("devices"));
+				if (devices != null) {
+					addBreakpoint(breakpoints, devices.intValue(), breakpoint);
+				}
+			}
+		} else if (configurations.getChild("jss_size") != null) {
+			for (Element tier : configurations.getChild("jss_size").getChildren()) {
+				Matcher matcher = TIER.matcher(tier.getName());
+				if (matcher.matches()) {
+					addBreakpoint(breakpoints, Integer.parseInt(matcher.group(1)), tier);
+				}
+			}
+		}
+		return new CapacityModel(breakpoints);
+	}
+	
+	private static void addBreakpoint(Map<Metric, NavigableMap<Integer, Double>> breakpoints, int devices, Element values) {
+		for (Metric metric : Metric.values()) {
+			String text = values.getChildTextTrim(metric.element);
+			Double value = number(text);
+			if (value != null) {
+				breakpoints.get(metric).put(devices, value);
+			} else if (text != null && text.isEmpty()) {
+				breakpoints.get(metric).put(devices, UNCONFIGURED);
+			}
+		}
+	}
+	
+	private static Double number(String text) {
+		if (text == null || text.isEmpty()) {
+			return null;
+		}
+		
+		try {
+			return Double.valueOf(text);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Evaluates every metric of the model for an environment.
+	 *
+	 * @param totalDevices The number of computers and mobile devices in the JSS
+	 *
+	 * @return The recommendations for the environment
+	 */
+	public Recommendation evaluate(int totalDevices) {
+		int devices = Math.max(totalDevices, 0);
+		Map<Metric, Integer> values = new EnumMap<>(Metric.class);
+		for (Metric metric : Metric.values()) {
+			values.put(metric, interpolate(this.breakpoints.getOrDefault(metric, Collections.emptyNavigableMap()), devices, metric.bounded));
+		}
+		return new Recommendation(devices, values);
+	}
+	
+	/**
+	 * @param bounded Whether the value stays at the last breakpoint past it, instead of following the last segment
+	 *
+	 * @return The value of the line through the breakpoints at {@code devices}, rounded to a whole number, or {@link
+	 * ConfigurationSnapshot#NOT_CONFIGURED} if there are no breakpoints or the breakpoint that covers {@code devices}
+	 * is empty
+	 */
+	static int interpolate(NavigableMap<Integer, Double> points, int devices, boolean bounded) {
+		if (points.isEmpty()) {
+			return ConfigurationSnapshot.NOT_CONFIGURED;
+		}
+		
+		Map.Entry<Integer, Double> low = points.floorEntry(devices);
+		Map.Entry<Integer, Double> high = points.ceilingEntry(devices);
+		if (high == null) {
+			if (bounded || Double.isNaN(low.getValue())) {
+				return round(low.getValue());
+			}
+			//Past the last breakpoint, keep following the last segment.
+			high = low;
+			low = points.lowerEntry(high.getKey());
+		}
+		//An empty breakpoint has no line to the next one, whose value then applies all the way down to it.
+		if (low == null || low.getKey().equals(high.getKey()) || Double.isNaN(low.getValue()) || Double.isNaN(high.getValue())) {
+			return round(high.getValue());
+		}
+		
+		double slope = (high.getValue() - low.getValue()) / (high.getKey() - low.getKey());
+		double value = low.getValue() + slope * (devices - low.getKey());
+		return (int) Math.max(0, Math.round(value));
+	}
+	
+	private static int round(double value) {
+		return Double.isNaN(value) ? ConfigurationSnapshot.NOT_CONFIGURED : (int) Math.round(value);
+	}
+	
+	/**
+	 * The recommendations of the model for one environment.
+	 */
+	public static final class Recommendation {
+		
+		private final int devices;
+		private final Map<Metric, Integer> values;
+		
+		private Recommendation(int devices, Map<Metric, Integer> values) {
+			this.devices = devices;
+			this.values = Collections.unmodifiableMap(values);
+		}
+		
+		/**
+		 * @return The number of devices the recommendation is for
+		 */
+		public int getDevices() {
+			return devices;
+		}
+		
+		/**
+		 * @return The recommended value, or {@link ConfigurationSnapshot#NOT_CONFIGURED}
+		 */
+		public int get(Metric metric) {
+			return values.get(metric);
+		}
+		
+		/**
+		 * @return Every recommended value, in the order of {@link Metric}
+		 */
+		public Map<Metric, Integer> getValues() {
+			return values;
+		}
+		
+		public int getDatabaseSize() {
+			return get(Metric.DATABASE_SIZE);
+		}
+		
+		public int getTomcatMemory() {
+			return get(Metric.TOMCAT_MEMORY);
+		}
+		
+		public int getServerMemory() {
+			return get(Metric.SERVER_MEMORY);
+		}
+		
+		public int getCheckInFrequency() {
+			return get(Metric.CHECK_IN_FREQUENCY);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,118 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops sending requests to an endpoint family once the JSS has clearly stopped answering it.
+ * <p>
+ * Each family counts its failures in a row. When the count reaches the threshold the circuit opens, and every
+ * request to the family fails with a {@link CircuitOpenException} without being sent. Once the open period is over,
+ * requests are let through again; the first success closes the circuit, and the first failure opens it again.
+ *
+ * @since 1.0
+ */
+class CircuitBreaker {
+	
+	private final int threshold;
+	private final long openNanos;
+	private final Map<String, State> states = new ConcurrentHashMap<>();
+	
+	/**
+	 * @param threshold The number of failures in a row that opens the circuit
+	 * @param openSeconds How long the circuit stays open
+	 */
+	CircuitBreaker(int threshold, long openSeconds) {
+		this.threshold = threshold;
+		this.openNanos = TimeUnit.SECONDS.toNanos(openSeconds);
+	}
+	
+	/**
+	 * @throws CircuitOpenException If the circuit of {@code family} is open
+	 */
+	void check(String family) throws CircuitOpenException {
+		State state = states.get(family);
+		if (state != null) {
+			state.check(family, System.nanoTime());
+		}
+	}
+	
+	void recordSuccess(String family) {
+		State state = states.get(family);
+		if (state != null) {
+			state.recordSuccess();
+		}
+	}
+	
+	void recordFailure(String family) {
+		states.computeIfAbsent(family, f -> new State()).recordFailure(System.nanoTime());
+	}
+	
+	/**
+	 * @return Whether the circuit of {@code family} is open now
+	 */
+	boolean isOpen(String family) {
+		State state = states.get(family);
+		return state != null && state.isOpen(System.nanoTime());
+	}
+	
+	private final class State {
+		
+		private int failures;
+		private long openUntil;
+		private boolean open;
+		
+		synchronized void check(String family, long now) throws CircuitOpenException {
+			if (isOpen(now)) {
+				throw new CircuitOpenException(family, TimeUnit.NANOSECONDS.toMillis(openUntil - now));
+			}
+		}
+		
+		synchronized boolean isOpen(long now) {
+			return open && now - openUntil < 0;
+		}
+		
+		synchronized void recordSuccess() {
+			failures = 0;
+			open = false;
+		}
+		
+		synchronized void recordFailure(long now) {
+			failures++;
+			// After the open period, a single failure opens the circuit again
+			if (failures >= threshold || open && !isOpen(now)) {
+				open = true;
+				openUntil = now + openNanos;
+			}
+		}
+		
+	}
+	
+}
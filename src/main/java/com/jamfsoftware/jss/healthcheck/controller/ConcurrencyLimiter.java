@@ -0,0 +1,220 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limits the number of requests in flight to each {@link EndpointFamily}, and adjusts the limit to what the JSS
+ * tolerates (additive increase, multiplicative decrease).
+ * <p>
+ * Each family starts at {@link #INITIAL_LIMIT} requests and doubles the limit on every response until the first
+ * sign of overload, then grows it by about one request per round trip. A response is a sign of overload if it was
+ * a 5xx or 429 error, the request failed without a response (a timeout or a refused connection), or the response
+ * took more than {@link #TOLERANCE} times the quickest recent response of the family. Overload cuts the limit by
+ * {@link #BACKOFF}, but only for requests sent since the limit was last cut, so a burst of slow responses only
+ * counts once.
+ * <p>
+ * The limit never exceeds the number of threads that can send requests, and never drops below one. A hedge may take
+ * one place over the limit, so the copy of a slow request is not queued behind the request it is meant to overtake.
+ *
+ * @since 1.0
+ */
+class ConcurrencyLimiter {
+	
+	static final int INITIAL_LIMIT = 2;
+	static final double TOLERANCE = 2.0;
+	static final double BACKOFF = 0.7;
+	static final int HEDGE_RESERVE = 1;
+	
+	private final int maxLimit;
+	private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+	
+	/**
+	 * @param maxLimit The most requests that may be in flight to one family
+	 */
+	ConcurrencyLimiter(int maxLimit) {
+		this.maxLimit = Math.max(1, maxLimit);
+	}
+	
+	/**
+	 * Waits until another request to the family of {@code url} may be sent.
+	 *
+	 * @return The place of the request. {@link Permit#release(long, boolean)} must be called once the request is done.
+	 *
+	 * @throws InterruptedIOException If the thread is interrupted while waiting
+	 */
+	Permit acquire(String url) throws InterruptedIOException {
+		Limit limit = limits.computeIfAbsent(EndpointFamily.of(url), family -> new Limit(Math.min(INITIAL_LIMIT, maxLimit), maxLimit));
+		try {
+			return new Permit(limit, limit.acquire());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to request " + url);
+		}
+	}
+	
+	/**
+	 * Takes a place for a hedge to the family of {@code url} without waiting. Hedges may use {@link #HEDGE_RESERVE}
+	 * places over the limit.
+	 *
+	 * @return The place of the hedge, or {@code null} if there is no place left for it
+	 */
+	Permit tryAcquireHedge(String url) {
+		Limit limit = limits.computeIfAbsent(EndpointFamily.of(url), family -> new Limit(Math.min(INITIAL_LIMIT, maxLimit), maxLimit));
+		long ticket = limit.tryAcquire(HEDGE_RESERVE);
+		return ticket < 0 ? null : new Permit(limit, ticket);
+	}
+	
+	/**
+	 * @return The limit each family converged on, for families that had more than one request in flight at once
+	 */
+	Map<String, Integer> getLimits() {
+		Map<String, Integer> converged = new TreeMap<>();
+		limits.forEach((family, limit) -> {
+			if (limit.getPeak() > 1) {
+				converged.put(family, limit.getLimit());
+			}
+		});
+		return converged;
+	}
+	
+	/**
+	 * The place of one request in the limit of its family.
+	 */
+	static final class Permit {
+		
+		private final Limit limit;
+		private final long ticket;
+		
+		private Permit(Limit limit, long ticket) {
+			this.limit = limit;
+			this.ticket = ticket;
+		}
+		
+		/**
+		 * Ends the request, and adjusts the limit.
+		 *
+		 * @param nanos The time the request took to answer
+		 * @param failed Whether the request failed in a way that suggests the JSS is overloaded
+		 */
+		void release(long nanos, boolean failed) {
+			limit.release(ticket, nanos, failed);
+		}
+		
+		/**
+		 * Gives the place back without sending a request, so the limit is not adjusted.
+		 */
+		void cancel() {
+			limit.cancel();
+		}
+		
+	}
+	
+	/**
+	 * The limit of one family.
+	 */
+	private static final class Limit {
+		
+		private final int maxLimit;
+		private double limit;
+		private int inFlight;
+		private int peak;
+		private boolean slowStart = true;
+		private double baselineNanos;
+		private long sent;
+		private long sentBeforeDecrease;
+		
+		Limit(int initial, int maxLimit) {
+			this.limit = initial;
+			this.maxLimit = maxLimit;
+		}
+		
+		/**
+		 * @return The number of the request
+		 */
+		synchronized long acquire() throws InterruptedException {
+			while (inFlight >= (int) limit) {
+				wait();
+			}
+			inFlight++;
+			peak = Math.max(peak, inFlight);
+			return ++sent;
+		}
+		
+		/**
+		 * @return The number of the request, or {@code -1} if {@code reserve} places over the limit are taken too
+		 */
+		synchronized long tryAcquire(int reserve) {
+			if (inFlight >= (int) limit + reserve) {
+				return -1;
+			}
+			inFlight++;
+			peak = Math.max(peak, inFlight);
+			return ++sent;
+		}
+		
+		synchronized void cancel() {
+			inFlight--;
+			notifyAll();
+		}
+		
+		synchronized void release(long ticket, long nanos, boolean failed) {
+			inFlight--;
+			
+			// The quickest response sets the baseline, which drifts up slowly so one lucky response is forgotten
+			if (!failed) {
+				baselineNanos = baselineNanos == 0 || nanos < baselineNanos ? nanos : baselineNanos + (nanos - baselineNanos) * 0.01;
+			}
+			
+			if (failed || nanos > TOLERANCE * baselineNanos) {
+				if (ticket > sentBeforeDecrease) {
+					limit = Math.max(1, limit * BACKOFF);
+					slowStart = false;
+					sentBeforeDecrease = sent;
+				}
+			} else if (inFlight + 1 >= (int) limit / 2) {
+				// Only grow a limit that is being used
+				limit = Math.min(maxLimit, limit + (slowStart ? 1 : 1 / limit));
+			}
+			notifyAll();
+		}
+		
+		synchronized int getLimit() {
+			return (int) limit;
+		}
+		
+		synchronized int getPeak() {
+			return peak;
+		}
+		
+	}
+	
+}
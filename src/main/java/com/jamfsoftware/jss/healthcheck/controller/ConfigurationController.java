@@ -111,6 +111,15 @@ public class ConfigurationController {
 		}
 	}
 	
+	/**
+	 * @return The configuration file stored in the preferences, or {@code null} if one has not been chosen
+	 *
+	 * @see ConfigurationSnapshot#current()
+	 */
+	public File getConfigurationFile() {
+		return isCustomConfigurationPath() ? new File(configurationPath) : null;
+	}
+	
 	/**
 	 * Checks to see if the config.xml is in the default location.
 	 *
@@ -0,0 +1,357 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An immutable copy of the values in config.xml, read once and shared by the whole process.
+ * <p>
+ * Use {@link #current()} to get the snapshot of the configured file. The file is watched, and a new snapshot is
+ * compiled when it changes. If the new file can not be read, the last good snapshot is kept. A caller that needs
+ * several values should keep the snapshot it got, so they all come from the same version of the file.
+ * <p>
+ * The server size recommendations are compiled into a {@link CapacityModel}, and the request rate limits into
+ * {@link RateLimits}.
+ *
+ * @since 1.0
+ */
+public final class ConfigurationSnapshot {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationSnapshot.class);
+	
+	/**
+	 * The value of a threshold that is not set in config.xml. Checks skip thresholds that are not configured.
+	 */
+	public static final int NOT_CONFIGURED = -1;
+	
+	/**
+	 * A snapshot without any values, used when there is no configuration file.
+	 */
+	public static final ConfigurationSnapshot EMPTY = new ConfigurationSnapshot(null, null);
+	
+	private static volatile ConfigurationSnapshot current;
+	private static WatchService watchService;
+	private static WatchKey watchKey;
+	
+	private final Path path;
+	private final Map<String, String> values;
+	private final CapacityModel capacityModel;
+	private final RateLimits rateLimits;
+	
+	private ConfigurationSnapshot(Path path, Element root) {
+		this.path = path;
+		
+		Map<String, String> values = new HashMap<>();
+		if (root != null) {
+			for (Element child : root.getChildren()) {
+				flatten(child, null, values);
+			}
+		}
+		this.values = Collections.unmodifiableMap(values);
+		
+		Element configurations = root == null ? null : root.getChild("configurations");
+		this.capacityModel = CapacityModel.read(configurations);
+		this.rateLimits = RateLimits.read(configurations == null ? null : configurations.getChild("api"));
+	}
+	
+	/**
+	 * Returns the snapshot of the configuration file stored in the preferences. The file is only read the first
+	 * time it is asked for, and again when it changes on disk or another file is chosen.
+	 *
+	 * @return The current snapshot, or {@link #EMPTY} if no configuration file has been chosen
+	 */
+	public static ConfigurationSnapshot current() {
+		File file = new ConfigurationController(false).getConfigurationFile();
+		Path path = file == null ? null : file.toPath().toAbsolutePath();
+		
+		ConfigurationSnapshot snapshot = current;
+		if (snapshot == null || !Objects.equals(path, snapshot.path)) {
+			synchronized (ConfigurationSnapshot.class) {
+				snapshot = current;
+				if (snapshot == null || !Objects.equals(path, snapshot.path)) {
+					snapshot = path == null ? EMPTY : load(path, EMPTY);
+					current = snapshot;
+					watch(path);
+				}
+			}
+		}
+		return snapshot;
+	}
+	
+	/**
+	 * Compiles a snapshot from the text of a configuration file.
+	 *
+	 * @param xml The contents of a config.xml file
+	 *
+	 * @return The compiled snapshot
+	 *
+	 * @throws JDOMException If the XML is malformed
+	 * @throws IOException If the XML can not be read
+	 */
+	public static ConfigurationSnapshot parse(String xml) throws JDOMException, IOException {
+		return new ConfigurationSnapshot(null, new SAXBuilder().build(new StringReader(xml)).getRootElement());
+	}
+	
+	private static ConfigurationSnapshot load(Path path, ConfigurationSnapshot fallback) {
+		try {
+			ConfigurationSnapshot snapshot = new ConfigurationSnapshot(path, new SAXBuilder().build(path.toFile()).getRootElement());
+			LOGGER.debug("Loaded configuration from " + path);
+			return snapshot;
+		} catch (Exception e) {
+			LOGGER.warn("Unable to read the configuration file " + path + "; keeping the previous values.", e);
+			return Objects.equals(fallback.path, path) ? fallback : new ConfigurationSnapshot(path, null);
+		}
+	}
+	
+	/**
+	 * Watches the directory of the configuration file. Only one file is watched at a time.
+	 */
+	private static void watch(Path path) {
+		if (watchKey != null) {
+			watchKey.cancel();
+			watchKey = null;
+		}
+		if (path == null || path.getParent() == null) {
+			return;
+		}
+		
+		try {
+			if (watchService == null) {
+				watchService = FileSystems.getDefault().newWatchService();
+				Thread watcher = new Thread(ConfigurationSnapshot::watchForChanges, "configuration-watcher");
+				watcher.setDaemon(true);
+				watcher.start();
+			}
+			watchKey = path.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to watch " + path + " for changes. Changes will be used the next time the tool runs.", e);
+		}
+	}
+	
+	private static void watchForChanges() {
+		while (true) {
+			WatchKey key;
+			try {
+				key = watchService.take();
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+			
+			boolean changed = false;
+			synchronized (ConfigurationSnapshot.class) {
+				Path path = current == null ? null : current.path;
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (key == watchKey && path != null && (event.kind() == OVERFLOW || path.getFileName().equals(event.context()))) {
+						changed = true;
+					}
+				}
+				key.reset();
+				
+				if (changed) {
+					current = load(path, current);
+				}
+			}
+		}
+	}
+	
+	private static void flatten(Element element, String path, Map<String, String> values) {
+		String key = path == null ? element.getName() : path + "," + element.getName();
+		if (element.getChildren().isEmpty()) {
+			values.put(key, element.getTextTrim());
+		}
+		for (Element child : element.getChildren()) {
+			flatten(child, key, values);
+		}
+	}
+	
+	/**
+	 * Reads a single value. Older config.xml files may not contain every element, so a missing or empty value falls
+	 * back to the supplied default.
+	 *
+	 * @param pathString A comma-delimited path of the XML element, below the root element
+	 * @param key The name of the element holding the value
+	 * @param defaultValue The value to use if the element is not set
+	 *
+	 * @return The configured value, trimmed, or {@code defaultValue}
+	 */
+	public String getString(String pathString, String key, String defaultValue) {
+		String value = this.values.get(pathString == null ? key : pathString + "," + key);
+		return value == null || value.isEmpty() ? defaultValue : value;
+	}
+	
+	/**
+	 * Reads a single integer value. A missing, empty or malformed value falls back to the supplied default.
+	 *
+	 * @param pathString A comma-delimited path of the XML element, below the root element
+	 * @param key The name of the element holding the value
+	 * @param defaultValue The value to use if the element is not set
+	 *
+	 * @return The configured value, or {@code defaultValue}
+	 */
+	public int getInt(String pathString, String key, int defaultValue) {
+		return parseInt(getString(pathString, key, null), defaultValue);
+	}
+	
+	private static int parseInt(String value, int defaultValue) {
+		if (value == null || value.isEmpty()) {
+			return defaultValue;
+		}
+		
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			LOGGER.debug("Unable to read configuration value " + value + ", using " + defaultValue);
+			return defaultValue;
+		}
+	}
+	
+	/**
+	 * @return The recommended server size for any number of devices
+	 */
+	public CapacityModel getCapacityModel() {
+		return this.capacityModel;
+	}
+	
+	/**
+	 * @return The request rates allowed against each JSS
+	 */
+	public RateLimits getRateLimits() {
+		return this.rateLimits;
+	}
+	
+	/**
+	 * @return The most criteria a smart group should have, or {@link #NOT_CONFIGURED}
+	 */
+	public int getSmartGroupCriteriaCount() {
+		return getInt("configurations,smart_groups", "criteria_count", NOT_CONFIGURED);
+	}
+	
+	/**
+	 * @return The most computer extension attributes the JSS should have, or {@link #NOT_CONFIGURED}
+	 */
+	public int getComputerExtensionAttributeCount() {
+		return getInt("configurations,extension_attributes", "computer", NOT_CONFIGURED);
+	}
+	
+	/**
+	 * @return The most mobile device extension attributes the JSS should have, or {@link #NOT_CONFIGURED}
+	 */
+	public int getMobileDeviceExtensionAttributeCount() {
+		return getInt("configurations,extension_attributes", "mobile", NOT_CONFIGURED);
+	}
+	
+	/**
+	 * @return The most API requests to have in flight at once
+	 */
+	public int getAPIMaxConcurrency() {
+		return getInt("configurations,api", "max_concurrency", HTTPController.DEFAULT_CONCURRENCY);
+	}
+	
+	/**
+	 * @return How failed API requests are retried
+	 */
+	public RetryPolicy getRetryPolicy() {
+		RetryPolicy defaults = RetryPolicy.DEFAULT;
+		return new RetryPolicy(
+				getInt("configurations,api,retry", "max_attempts", defaults.getMaxAttempts()),
+				getInt("configurations,api,retry", "base_delay", (int) defaults.getBaseDelayMillis()),
+				getInt("configurations,api,retry", "max_delay", (int) defaults.getMaxDelayMillis()),
+				getInt("configurations,api,circuit_breaker", "failure_threshold", defaults.getFailureThreshold()),
+				getInt("configurations,api,circuit_breaker", "open_seconds", (int) defaults.getOpenSeconds()));
+	}
+	
+	/**
+	 * @return When slow API requests are sent a second time. Nothing is hedged unless config.xml sets max_percent.
+	 */
+	public HedgePolicy getHedgePolicy() {
+		HedgePolicy defaults = HedgePolicy.DISABLED;
+		return new HedgePolicy(
+				getInt("configurations,api,hedge", "percentile", (int) Math.round(defaults.getPercentile() * 100)) / 100.0,
+				getInt("configurations,api,hedge", "max_percent", (int) Math.round(defaults.getMaxRatio() * 100)) / 100.0,
+				getInt("configurations,api,hedge", "min_samples", defaults.getMinSamples()));
+	}
+	
+	/**
+	 * @return How long each API request may wait on the JSS
+	 */
+	public RequestTimeouts getRequestTimeouts() {
+		RequestTimeouts defaults = RequestTimeouts.DEFAULT;
+		return new RequestTimeouts(
+				getInt("configurations,api", "connect_timeout", defaults.getConnectMillis() / 1000) * 1000,
+				getInt("configurations,api", "read_timeout", defaults.getReadMillis() / 1000) * 1000);
+	}
+	
+	/**
+	 * @return The most seconds a health check may run before the unfinished sections are reported as timed out, or
+	 * {@code 0} for no limit
+	 */
+	public int getRunTimeout() {
+		return getInt("configurations,api", "run_timeout", 0);
+	}
+	
+	/**
+	 * @return {@code true} unless config.xml asks for every section of the JSS Summary
+	 */
+	public boolean isMinimalSummaryRequested() {
+		return !"full".equalsIgnoreCase(getString("configurations,summary", "request_mode", "minimal"));
+	}
+	
+	/**
+	 * @return The configured IDs of the JSS Summary sections to request, or {@code null} if they should be found on
+	 * the summary form
+	 */
+	public List<String> getSummarySectionIds() {
+		String configured = getString("configurations,summary", "section_ids", null);
+		return configured == null ? null : Collections.unmodifiableList(Arrays.asList(configured.replaceAll("\\s", "").split(",")));
+	}
+	
+}
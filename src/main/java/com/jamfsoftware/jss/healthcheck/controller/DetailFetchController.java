@@ -0,0 +1,178 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class fans out the per-ID detail requests (/JSSResource/&lt;object&gt;/id/&lt;id&gt;) that follow a list
+ * request. All of the requests are issued through {@link HTTPController#doGetAsync(String,
+ * HTTPController.ResponseHandler)}, which bounds how many are in flight at once, and each body is parsed as it is
+ * read from the connection.
+ * Results are always handed back in the order of the IDs that were supplied, so the report does not change
+ * between runs just because one request happened to finish before another.
+ *
+ * @since 1.0
+ */
+public class DetailFetchController {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(DetailFetchController.class);
+	
+	private final HTTPController api;
+	private final String url;
+	
+	/**
+	 * Constructs a new {@link DetailFetchController}
+	 *
+	 * @param api The HTTP client shared by the run
+	 * @param url The URL of the JSS
+	 */
+	public DetailFetchController(HTTPController api, String url) {
+		this.api = api;
+		this.url = url;
+	}
+	
+	/**
+	 * Requests the detail record for every ID of an API object.
+	 * A failed request is logged and left out of the results; it does not abort the remaining requests. Every record
+	 * left out is counted, so the caller can tell a complete set of records from a partial one. Requests that were
+	 * not sent because the JSS stopped answering, or because the run was cancelled, are logged once.
+	 *
+	 * @param objectName The JSS API object name
+	 * @param ids The IDs to request, in the order the results should be returned
+	 * @param parser Reduces a single detail record to only the values the caller needs, so that thousands of XML
+	 * documents are not held in memory at once
+	 *
+	 * @return The result of each successful request, in the order of {@code ids}, and the number of records left out
+	 *
+	 * @throws InterruptedException If the calling thread is interrupted while waiting for the results
+	 */
+	public <T> Details<T> fetchAll(String objectName, Collection<String> ids, DetailParser<T> parser)
+			throws InterruptedException {
+		List<CompletableFuture<T>> futures = ids
+				.stream()
+				.map(id -> api.doGetAsync(url + "/JSSResource/" + objectName + "/id/" + id, body -> parse(body, parser)))
+				.collect(Collectors.toList());
+				
+		List<T> results = new ArrayList<>(futures.size());
+		int rejected = 0;
+		int cancelled = 0;
+		int failed = 0;
+		for (CompletableFuture<T> future : futures) {
+			try {
+				results.add(future.get());
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof CircuitOpenException) {
+					rejected++;
+				} else if (api.isCancelled()) {
+					cancelled++;
+				} else {
+					failed++;
+					LOGGER.error("Unable to get API object detail for " + objectName, e.getCause());
+				}
+			}
+		}
+		if (rejected > 0) {
+			LOGGER.error("Skipped " + rejected + " of " + futures.size() + " " + objectName + " detail requests, the JSS stopped answering them.");
+		}
+		if (cancelled > 0) {
+			LOGGER.warn("Ran out of time for " + cancelled + " of " + futures.size() + " " + objectName + " detail requests.");
+		}
+		return new Details<>(results, rejected + failed, cancelled);
+	}
+	
+	private static <T> T parse(InputStream body, DetailParser<T> parser) throws IOException, JDOMException {
+		SAXBuilder sb = new SAXBuilder();
+		return parser.parse(sb.build(body).getRootElement());
+	}
+	
+	/**
+	 * The detail records of one API object that could be read, and how many could not.
+	 *
+	 * @param <T> The type of value extracted from each record
+	 */
+	public static final class Details<T> {
+		
+		private final List<T> results;
+		private final int missing;
+		private final int cancelled;
+		
+		Details(List<T> results, int missing, int cancelled) {
+			this.results = results;
+			this.missing = missing;
+			this.cancelled = cancelled;
+		}
+		
+		/**
+		 * @return The value extracted from each record that was read, in the order of the IDs
+		 */
+		public List<T> getResults() {
+			return results;
+		}
+		
+		/**
+		 * @return The number of records that failed, or were not requested because the JSS stopped answering
+		 */
+		public int getMissing() {
+			return missing;
+		}
+		
+		/**
+		 * @return The number of records that were not read because the run was cancelled
+		 */
+		public int getCancelled() {
+			return cancelled;
+		}
+		
+	}
+	
+	/**
+	 * Extracts the values needed by a check from a single detail record.
+	 *
+	 * @param <T> The type of value extracted from the record
+	 */
+	@FunctionalInterface
+	public interface DetailParser<T> {
+		
+		T parse(Element root);
+		
+	}
+	
+}
@@ -0,0 +1,65 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+/**
+ * Groups request URLs by the endpoint they call. The query string is dropped and every numeric path segment is
+ * replaced by {@code *}, so {@code /JSSResource/policies/id/12} and {@code /JSSResource/policies/id/13} are both
+ * {@code /JSSResource/policies/id/*}.
+ *
+ * @since 1.0
+ */
+public final class EndpointFamily {
+	
+	private EndpointFamily() {
+	}
+	
+	/**
+	 * @param url The URL of a request
+	 *
+	 * @return The family of the request
+	 */
+	public static String of(String url) {
+		int start = url.indexOf("://");
+		start = start < 0 ? 0 : url.indexOf('/', start + 3);
+		if (start < 0) {
+			return "/";
+		}
+		int end = url.indexOf('?', start);
+		String path = end < 0 ? url.substring(start) : url.substring(start, end);
+		
+		StringBuilder family = new StringBuilder(path.length());
+		for (String segment : path.split("/", -1)) {
+			if (family.length() > 0 || !segment.isEmpty()) {
+				family.append('/');
+			}
+			family.append(!segment.isEmpty() && segment.chars().allMatch(Character::isDigit) ? "*" : segment);
+		}
+		return family.length() == 0 ? "/" : family.toString();
+	}
+	
+}
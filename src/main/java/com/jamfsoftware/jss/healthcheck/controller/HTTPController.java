@@ -26,18 +26,53 @@ package com.jamfsoftware.jss.healthcheck.controller;
  * #L%
  */
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.CookieHandler;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UnsupportedEncodingException;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
 import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLEncoder;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import org.apache.commons.codec.binary.Base64;
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,53 +80,372 @@ import com.jamfsoftware.jss.healthcheck.TrustModifier;
 
 /**
  * This class handles all of the HTTP Connections and API calls.
+ * A single instance is meant to be shared for every request made against one JSS during a run. It is thread-safe,
+ * and keeps its own session cookies (JSESSIONID and any load balancer affinity cookies) so that every request in the
+ * run is routed to the same node of a clustered JSS.
+ * Response bodies are always read to the end and closed, which lets the JVM return the underlying socket to its
+ * keep-alive pool. Since the relaxed {@link javax.net.ssl.SSLSocketFactory} from {@link TrustModifier} is shared,
+ * pooled HTTPS connections and TLS sessions are reused as well.
+ * <p>
+ * Every request offers gzip and deflate transfer compression. Compressed bodies are inflated while they are read,
+ * so callers always see the plain body. The bytes received on the wire and after decompression are logged for each
+ * request and totalled in {@link #getMetrics()}.
+ * <p>
+ * Requests made through {@link #doGetAsync(String)} run on a bounded pool owned by the controller, which caps the
+ * number of requests in flight against the JSS. The blocking methods run on the calling thread and remain usable
+ * after {@link #close()}.
+ * <p>
+ * Within that cap, every request waits on a {@link ConcurrencyLimiter}, which finds how many requests to each
+ * endpoint family the JSS answers without slowing down or failing. The limits it converged on are reported by
+ * {@link #getConcurrencyLimits()}.
+ * <p>
+ * Before it is sent, every request also takes a token from a {@link TokenBucket}, which keeps the run within the
+ * request rate allowed against the JSS. summary.html and healthCheck.html, the most expensive pages, have a bucket
+ * of their own. The time spent waiting for tokens is recorded in {@link #getMetrics()}.
+ * <p>
+ * Every request is a GET, so a request that fails because the JSS is unavailable (no response, a 429 or a 5xx) is
+ * sent again as set by the {@link RetryPolicy}, as long as no part of the body has been handed to the caller. A
+ * {@link CircuitBreaker} per endpoint family makes requests fail at once while the JSS is down, instead of each one
+ * waiting for its own timeouts and retries.
+ * <p>
+ * Every request gives up after the {@link RequestTimeouts} it was built with. {@link #cancel()} stops the whole run:
+ * requests in flight are disconnected, queued requests fail at once, and no request is sent or retried afterwards.
+ * <p>
+ * The latency of every endpoint family is kept, and an asynchronous request that runs past the usual latency of its
+ * family may be hedged with a copy, as set by the {@link HedgePolicy}. Whichever copy answers first is used and the
+ * other is disconnected.
  *
  * @author Jacob Schultz
  * @since 1.0
  */
-public class HTTPController {
+public class HTTPController implements AutoCloseable {
 	
 	private static final Logger LOGGER = LoggerFactory.getLogger(HTTPController.class);
 	private static final String USER_AGENT = "Mozilla/5.0";
+	private static final int BUFFER_SIZE = 8192;
 	
-	private String username;
-	private String password;
+	/**
+	 * The number of concurrent asynchronous requests used when config.xml does not specify one.
+	 */
+	public static final int DEFAULT_CONCURRENCY = 8;
 	
 	/**
-	 * Constructs a new {@link ConfigurationController} that optionally loads the XML configuration file
+	 * The number of idle connections the JVM keeps alive per host. The JVM default of 5 is lower than the number of
+	 * concurrent detail requests, which would close and re-open a connection for most of them.
+	 */
+	private static final String MAX_POOLED_CONNECTIONS = "32";
+	
+	static {
+		if (System.getProperty("http.maxConnections") == null) {
+			System.setProperty("http.maxConnections", MAX_POOLED_CONNECTIONS);
+		}
+	}
+	
+	private final String authorization;
+	private final CookieManager cookies;
+	private final ExecutorService executor;
+	private final HTTPMetrics metrics = new HTTPMetrics();
+	private final ConcurrencyLimiter limiter;
+	private final TokenBucket requests;
+	private final TokenBucket pages;
+	private final RetryPolicy retryPolicy;
+	private final CircuitBreaker breaker;
+	private final RequestTimeouts timeouts;
+	private final Set<HttpURLConnection> connections = ConcurrentHashMap.newKeySet();
+	private final ConcurrentMap<String, LatencyHistogram> familyLatency = new ConcurrentHashMap<>();
+	private final HedgePolicy hedgePolicy;
+	private final ScheduledThreadPoolExecutor hedgeTimer;
+	private final ExecutorService hedges;
+	private final LongAdder hedgeable = new LongAdder();
+	private final AtomicLong hedgesSent = new AtomicLong();
+	private volatile boolean cancelled;
+	
+	/**
+	 * Constructs a new {@link HTTPController} for a single JSS
 	 *
 	 * @param username The username to use when authenticating to the JSS
 	 * @param password The password to use when authenticating to the JSS
 	 */
 	public HTTPController(String username, String password) {
-		this.username = username;
-		this.password = password;
+		this(username, password, DEFAULT_CONCURRENCY);
 	}
 	
-	public String doGet(String url)
-			throws IOException, KeyManagementException, NoSuchAlgorithmException {
-		CookieHandler.setDefault(new CookieManager(null, CookiePolicy.ACCEPT_ALL));
+	/**
+	 * Constructs a new {@link HTTPController} for a single JSS
+	 *
+	 * @param username The username to use when authenticating to the JSS
+	 * @param password The password to use when authenticating to the JSS
+	 * @param concurrency The maximum number of asynchronous requests that may be in flight at once. Fewer are sent
+	 * while the JSS is slow to answer.
+	 */
+	public HTTPController(String username, String password, int concurrency) {
+		this(username, password, concurrency, RateLimits.UNLIMITED);
+	}
+	
+	/**
+	 * Constructs a new {@link HTTPController} for a single JSS
+	 *
+	 * @param username The username to use when authenticating to the JSS
+	 * @param password The password to use when authenticating to the JSS
+	 * @param concurrency The maximum number of asynchronous requests that may be in flight at once. Fewer are sent
+	 * while the JSS is slow to answer.
+	 * @param rateLimits The request rates allowed against the JSS
+	 */
+	public HTTPController(String username, String password, int concurrency, RateLimits.Target rateLimits) {
+		this(username, password, concurrency, rateLimits, RetryPolicy.DEFAULT);
+	}
+	
+	/**
+	 * Constructs a new {@link HTTPController} for a single JSS
+	 *
+	 * @param username The username to use when authenticating to the JSS
+	 * @param password The password to use when authenticating to the JSS
+	 * @param concurrency The maximum number of asynchronous requests that may be in flight at once. Fewer are sent
+	 * while the JSS is slow to answer.
+	 * @param rateLimits The request rates allowed against the JSS
+	 * @param retryPolicy How failed requests are retried
+	 */
+	public HTTPController(String username, String password, int concurrency, RateLimits.Target rateLimits, RetryPolicy retryPolicy) {
+		this(username, password, concurrency, rateLimits, retryPolicy, RequestTimeouts.DEFAULT);
+	}
+	
+	/**
+	 * Constructs a new {@link HTTPController} for a single JSS
+	 *
+	 * @param username The username to use when authenticating to the JSS
+	 * @param password The password to use when authenticating to the JSS
+	 * @param concurrency The maximum number of asynchronous requests that may be in flight at once. Fewer are sent
+	 * while the JSS is slow to answer.
+	 * @param rateLimits The request rates allowed against the JSS
+	 * @param retryPolicy How failed requests are retried
+	 * @param timeouts How long each request may wait on the JSS
+	 */
+	public HTTPController(String username, String password, int concurrency, RateLimits.Target rateLimits, RetryPolicy retryPolicy, RequestTimeouts timeouts) {
+		this(username, password, concurrency, rateLimits, retryPolicy, timeouts, HedgePolicy.DISABLED);
+	}
+	
+	/**
+	 * Constructs a new {@link HTTPController} for a single JSS
+	 *
+	 * @param username The username to use when authenticating to the JSS
+	 * @param password The password to use when authenticating to the JSS
+	 * @param concurrency The maximum number of asynchronous requests that may be in flight at once. Fewer are sent
+	 * while the JSS is slow to answer.
+	 * @param rateLimits The request rates allowed against the JSS
+	 * @param retryPolicy How failed requests are retried
+	 * @param timeouts How long each request may wait on the JSS
+	 * @param hedgePolicy When slow asynchronous requests are sent a second time
+	 */
+	public HTTPController(String username, String password, int concurrency, RateLimits.Target rateLimits, RetryPolicy retryPolicy, RequestTimeouts timeouts, HedgePolicy hedgePolicy) {
+		this.timeouts = timeouts;
+		this.hedgePolicy = hedgePolicy;
+		if (hedgePolicy.isEnabled()) {
+			// The timer only hands hedges off, so a slow hedge never holds up the next one
+			this.hedgeTimer = new ScheduledThreadPoolExecutor(1, new RequestThreadFactory("jss-hedge-timer-"));
+			this.hedgeTimer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+			// Hedges run apart from the request pool, which is busy with the slow requests they are meant to overtake
+			this.hedges = Executors.newFixedThreadPool(Math.max(1, concurrency), new RequestThreadFactory("jss-hedge-"));
+		} else {
+			this.hedgeTimer = null;
+			this.hedges = null;
+		}
+		this.retryPolicy = retryPolicy;
+		this.breaker = new CircuitBreaker(retryPolicy.getFailureThreshold(), retryPolicy.getOpenSeconds());
+		this.requests = new TokenBucket(rateLimits.getRate(), rateLimits.getBurst());
+		this.pages = new TokenBucket(rateLimits.getPageRate(), rateLimits.getPageBurst());
+		this.authorization = "Basic " + new Base64().encodeAsString((username + ":" + password).getBytes());
+		this.cookies = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+		this.executor = Executors.newFixedThreadPool(Math.max(1, concurrency), new RequestThreadFactory("jss-request-"));
+		this.limiter = new ConcurrencyLimiter(concurrency);
+	}
+	
+	/**
+	 * Performs an authenticated GET request to the specified URL without blocking the calling thread.
+	 *
+	 * @param url The URL to request
+	 *
+	 * @return A {@link CompletableFuture} that completes with the exact bytes of the response body, or completes
+	 * exceptionally if the request fails or the JSS returns an error
+	 */
+	public CompletableFuture<ByteBuffer> doGetAsync(String url) {
+		return doGetAsync(url, HTTPController::readFully);
+	}
+	
+	/**
+	 * Performs an authenticated GET request to the specified URL without blocking the calling thread, and hands the
+	 * response body to {@code handler} as it arrives on the request pool.
+	 *
+	 * @param url The URL to request
+	 * @param handler Consumes the response body
+	 *
+	 * @return A {@link CompletableFuture} that completes with the value returned by {@code handler}, or completes
+	 * exceptionally if the request fails, the JSS returns an error or the handler throws
+	 */
+	public <T> CompletableFuture<T> doGetAsync(String url, ResponseHandler<T> handler) {
+		Request primary = new Request(url, false);
+		if (hedges == null) {
+			return submit(primary, handler);
+		}
 		
-		HttpURLConnection con = getConnection(url);
+		hedgeable.increment();
+		Race<T> race = new Race<>(primary, handler);
+		primary.onSent = () -> scheduleHedge(race);
+		submit(primary, handler).whenComplete((value, error) -> race.finish(primary, value, error));
+		return race.result;
+	}
+	
+	private <T> CompletableFuture<T> submit(Request request, ResponseHandler<T> handler) {
+		try {
+			return CompletableFuture.supplyAsync(() -> {
+				try {
+					return doGet(request, handler);
+				} catch (Exception e) {
+					throw new CompletionException(e);
+				}
+			}, executor);
+		} catch (RejectedExecutionException e) {
+			if (!cancelled) {
+				throw e;
+			}
+			CompletableFuture<T> failed = new CompletableFuture<>();
+			failed.completeExceptionally(new InterruptedIOException("The request to " + request.family + " was cancelled"));
+			return failed;
+		}
+	}
+	
+	/**
+	 * Sends a hedge for the request of {@code race} if it is still running after the usual latency of its family.
+	 * Called once the request has been sent.
+	 */
+	private void scheduleHedge(Race<?> race) {
+		long delay = hedgePolicy.getDelay(familyLatency.get(race.primary.family));
+		if (delay < 0) {
+			return;
+		}
 		
-		int responseCode = con.getResponseCode();
-		LOGGER.debug("Sending 'GET' request to URL : " + url);
-		LOGGER.debug("Response Code : " + responseCode);
+		try {
+			hedgeTimer.schedule(() -> sendHedge(race), delay, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// The controller was closed or cancelled, so nothing is hedged any more
+		}
+	}
+	
+	/**
+	 * Runs on the hedge timer. The hedge itself is sent on the hedge pool.
+	 */
+	private <T> void sendHedge(Race<T> race) {
+		if (race.result.isDone() || cancelled || !reserveHedge()) {
+			return;
+		}
+		// Waiting for a place would only send the hedge once the request it copies has made room, which is too late
+		ConcurrencyLimiter.Permit permit = limiter.tryAcquireHedge(race.primary.url);
+		if (permit == null) {
+			hedgesSent.decrementAndGet();
+			LOGGER.debug("Not hedging request to URL : " + race.primary.url + ", its family has no room for a hedge");
+			return;
+		}
+		if (!race.join()) {
+			permit.cancel();
+			hedgesSent.decrementAndGet();
+			return;
+		}
 		
-		try (BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()))) {
-			StringBuilder response = new StringBuilder();
-			
-			String inputLine;
-			while ((inputLine = in.readLine()) != null) {
-				response.append(inputLine);
+		Request hedge = new Request(race.primary.url, true);
+		hedge.reserved = permit;
+		race.hedge = hedge;
+		if (race.result.isDone()) {
+			hedge.abandon();
+		}
+		metrics.recordHedge();
+		LOGGER.debug("Hedging request to URL : " + race.primary.url);
+		try {
+			hedges.execute(() -> {
+				try {
+					race.finish(hedge, doGet(hedge, race.handler), null);
+				} catch (Exception e) {
+					race.finish(hedge, null, e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			hedge.cancelReserved();
+			race.finish(hedge, null, new InterruptedIOException("The hedge to " + hedge.family + " was not sent, the controller was closed"));
+		}
+	}
+	
+	/**
+	 * @return Whether one more hedge may be sent without going over the cap of the {@link HedgePolicy}
+	 */
+	private boolean reserveHedge() {
+		while (true) {
+			long sent = hedgesSent.get();
+			if (!hedgePolicy.allows(sent, hedgeable.sum())) {
+				return false;
+			}
+			if (hedgesSent.compareAndSet(sent, sent + 1)) {
+				return true;
 			}
-			
-			return response.toString();
 		}
 	}
 	
 	/**
-	 * Performs an authenticated GET request to the specified URL and returns the status code.
+	 * Performs an authenticated GET request to the specified URL and streams the response body straight into
+	 * {@code handler}. No copy of the body is made, so the handler sees exactly the bytes the JSS sent.
+	 *
+	 * @param url The URL to request
+	 * @param handler Consumes the response body. The stream is closed once the handler returns.
+	 *
+	 * @return The value returned by {@code handler}
+	 *
+	 * @throws IOException If an IOException occurs in the underlying connection, or the JSS returns an error
+	 * @throws KeyManagementException If a KeyManagementException is thrown while relaxing trust
+	 * @throws NoSuchAlgorithmException 
+	 * @throws JDOMException If the handler is unable to parse the response
+	 */
+	public <T> T doGet(String url, ResponseHandler<T> handler)
+			throws IOException, KeyManagementException, NoSuchAlgorithmException, JDOMException {
+		return doGet(new Request(url, false), handler);
+	}
+	
+	private <T> T doGet(Request request, ResponseHandler<T> handler)
+			throws IOException, KeyManagementException, NoSuchAlgorithmException, JDOMException {
+		try (InputStream in = openStream(request)) {
+			return handler.handle(in);
+		}
+	}
+	
+	/**
+	 * Performs an authenticated GET request to the specified URL and parses the response as XML while it is
+	 * being read.
+	 *
+	 * @param url The URL to request
+	 *
+	 * @return The parsed XML document
+	 *
+	 * @throws IOException If an IOException occurs in the underlying connection, or the JSS returns an error
+	 * @throws KeyManagementException If a KeyManagementException is thrown while relaxing trust
+	 * @throws NoSuchAlgorithmException 
+	 * @throws JDOMException If the response is not well-formed XML
+	 */
+	public Document doGetDocument(String url)
+			throws IOException, KeyManagementException, NoSuchAlgorithmException, JDOMException {
+		return doGet(url, body -> new SAXBuilder().build(body));
+	}
+	
+	/**
+	 * Performs an authenticated GET request to the specified URL and returns the body as text. The body is decoded
+	 * as UTF-8, which the JSS uses for its pages, and is returned exactly, line breaks included.
+	 */
+	public String doGet(String url)
+			throws IOException, KeyManagementException, NoSuchAlgorithmException {
+		try (InputStream in = openStream(new Request(url, false))) {
+			ByteBuffer body = readFully(in);
+			return new String(body.array(), body.position(), body.remaining(), StandardCharsets.UTF_8);
+		}
+	}
+	
+	/**
+	 * Performs an authenticated GET request to the specified URL and returns the status code. The request is only
+	 * sent once, since an error status is an answer rather than a failure.
 	 *
 	 * @param url The URL to request
 	 *
@@ -103,23 +457,656 @@ public class HTTPController {
 	 */
 	public int returnGETResponseCode(String url)
 			throws IOException, KeyManagementException, NoSuchAlgorithmException {
-		return getConnection(url).getResponseCode();
+		ConcurrencyLimiter.Permit permit = limiter.acquire(url);
+		throttle(url, permit);
+		long start = System.nanoTime();
+		int responseCode = -1;
+		HttpURLConnection con = null;
+		try {
+			con = getConnection(new Request(url, false));
+			responseCode = getResponseCode(con, true);
+			if (responseCode < HttpURLConnection.HTTP_BAD_REQUEST) {
+				discard(con.getInputStream());
+			}
+			return responseCode;
+		} catch (IOException e) {
+			throw cancelled ? cancellation(e) : e;
+		} finally {
+			if (con != null) {
+				connections.remove(con);
+			}
+			permit.release(System.nanoTime() - start, isOverloaded(responseCode));
+		}
+	}
+	
+	/**
+	 * @return The transfer totals for every response body read through this controller so far
+	 */
+	public HTTPMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * @return The number of asynchronous requests that could have been hedged, which is what the hedge cap is a share
+	 * of
+	 */
+	public long getHedgeableRequests() {
+		return hedgeable.sum();
+	}
+	
+	/**
+	 * @return The number of requests in flight each endpoint family settled on, for the families that were sent
+	 * requests in parallel
+	 */
+	public Map<String, Integer> getConcurrencyLimits() {
+		return limiter.getLimits();
+	}
+	
+	/**
+	 * Stops every request of the run. Requests in flight are disconnected and fail, as do the queued asynchronous
+	 * requests and every request made afterwards. Requests that already finished are not affected.
+	 */
+	public void cancel() {
+		cancelled = true;
+		for (HttpURLConnection connection : connections) {
+			connection.disconnect();
+		}
+		// Run the queued requests here so their futures fail instead of never completing
+		for (Runnable queued : executor.shutdownNow()) {
+			queued.run();
+		}
+		if (hedges != null) {
+			hedgeTimer.shutdownNow();
+			// Queued hedges have joined their race, which only completes once they fail
+			for (Runnable queued : hedges.shutdownNow()) {
+				queued.run();
+			}
+		}
+	}
+	
+	/**
+	 * @return Whether {@link #cancel()} has been called
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+	
+	@Override
+	public void close() {
+		executor.shutdown();
+		if (hedges != null) {
+			hedgeTimer.shutdown();
+			hedges.shutdown();
+		}
+	}
+	
+	/**
+	 * Sends the request and returns the response body, retrying it while the JSS is unavailable.
+	 *
+	 * @throws HTTPStatusException If the JSS answered with an error status
+	 * @throws CircuitOpenException If the JSS has failed too many requests to the family of {@code url} in a row
+	 */
+	private InputStream openStream(Request request)
+			throws IOException, KeyManagementException, NoSuchAlgorithmException {
+		try {
+			return retry(request);
+		} finally {
+			// A hedge that never got as far as being sent gives its place back
+			request.cancelReserved();
+		}
 	}
 	
-	private HttpURLConnection getConnection(String urlString)
+	private InputStream retry(Request request)
 			throws IOException, KeyManagementException, NoSuchAlgorithmException {
-		URL url = new URL(urlString);
+		String family = request.family;
+		for (int attempt = 1; ; attempt++) {
+			if (cancelled || request.abandoned) {
+				throw new InterruptedIOException("The request to " + family + " was " + (cancelled ? "cancelled" : "answered by a hedge"));
+			}
+			try {
+				breaker.check(family);
+			} catch (CircuitOpenException e) {
+				metrics.recordRejected();
+				throw e;
+			}
+			
+			try {
+				InputStream stream = attempt(request);
+				breaker.recordSuccess(family);
+				return stream;
+			} catch (IOException e) {
+				if (cancelled || request.abandoned) {
+					throw cancellation(e);
+				}
+				if (!isRetryable(e)) {
+					if (e instanceof HTTPStatusException) {
+						// The JSS answered, so it is up
+						breaker.recordSuccess(family);
+					}
+					throw e;
+				}
+				
+				breaker.recordFailure(family);
+				if (attempt >= retryPolicy.getMaxAttempts()) {
+					throw e;
+				}
+				
+				long delay = retryPolicy.getDelay(attempt, e instanceof HTTPStatusException ? ((HTTPStatusException) e).getRetryAfterMillis() : 0);
+				LOGGER.warn("Request to " + family + " failed (" + e.getMessage() + "), trying again in " + delay + " ms. Attempt " + attempt + " of " + retryPolicy.getMaxAttempts() + ".");
+				metrics.recordRetry();
+				try {
+					TimeUnit.MILLISECONDS.sleep(delay);
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting to retry " + family);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return An exception for a request that failed because the run was cancelled or another copy of the request
+	 * answered first, caused by {@code e}
+	 */
+	private static InterruptedIOException cancellation(IOException e) {
+		if (e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException)) {
+			return (InterruptedIOException) e;
+		}
+		InterruptedIOException cancellation = new InterruptedIOException("The request was cancelled");
+		cancellation.initCause(e);
+		return cancellation;
+	}
+	
+	/**
+	 * @return Whether a request that failed with {@code e} may succeed if it is sent again
+	 */
+	private static boolean isRetryable(IOException e) {
+		if (e instanceof HTTPStatusException) {
+			return isOverloaded(((HTTPStatusException) e).getResponseCode());
+		}
+		if (e instanceof CircuitOpenException || e instanceof UnknownHostException) {
+			return false;
+		}
+		return e instanceof SocketTimeoutException || !(e instanceof InterruptedIOException);
+	}
+	
+	/**
+	 * Sends the request once and returns the response body. Closing the returned stream before the end of the body
+	 * has been read is allowed; the JVM will either skip the remainder or drop the connection from its pool.
+	 * A compressed body is inflated as it is read, and the transfer is recorded in {@link #metrics} once the stream
+	 * is closed. The request counts against the limit of its family until then.
+	 */
+	private InputStream attempt(Request request)
+			throws IOException, KeyManagementException, NoSuchAlgorithmException {
+		String url = request.url;
+		ConcurrencyLimiter.Permit permit = place(request);
+		throttle(url, permit);
+		request.sent();
+		long start = System.nanoTime();
+		int responseCode = -1;
+		InputStream stream = null;
+		HttpURLConnection con = null;
+		try {
+			con = getConnection(request);
+			
+			responseCode = getResponseCode(con, !request.hedge);
+			long answered = System.nanoTime() - start;
+			LOGGER.debug("Sending 'GET' request to URL : " + url);
+			LOGGER.debug("Response Code : " + responseCode);
+			if (responseCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+				throw new HTTPStatusException(responseCode, getRetryAfter(con), "The JSS returned HTTP " + responseCode + " for " + EndpointFamily.of(url));
+			}
+			
+			String encoding = con.getContentEncoding();
+			if (encoding != null) {
+				encoding = encoding.trim().toLowerCase();
+				if (encoding.isEmpty() || encoding.equals("identity")) {
+					encoding = null;
+				}
+			}
+			
+			CountingInputStream wire = new CountingInputStream(con.getInputStream(), null);
+			InputStream decoded;
+			try {
+				if (encoding == null) {
+					decoded = wire;
+				} else if (encoding.equals("gzip") || encoding.equals("x-gzip")) {
+					decoded = new GZIPInputStream(wire, BUFFER_SIZE);
+				} else if (encoding.equals("deflate")) {
+					decoded = inflate(wire);
+				} else {
+					throw new IOException("Unsupported Content-Encoding '" + encoding + "' from " + url);
+				}
+			} catch (IOException e) {
+				wire.close();
+				throw e;
+			}
+			
+			String recordedEncoding = encoding;
+			HttpURLConnection open = con;
+			stream = new CountingInputStream(decoded, body -> {
+				connections.remove(open);
+				LOGGER.debug("Received " + wire.getCount() + " bytes (" + body.getCount() + " uncompressed"
+						+ (recordedEncoding == null ? "" : ", " + recordedEncoding) + ") from URL : " + url);
+				long nanos = System.nanoTime() - start;
+				metrics.record(recordedEncoding, wire.getCount(), body.getCount(), nanos);
+				if (!request.abandoned) {
+					familyLatency.computeIfAbsent(request.family, family -> new LatencyHistogram()).record(nanos);
+				}
+				permit.release(answered, false);
+			});
+			return stream;
+		} finally {
+			// Once the stream is returned, the limit is released when it is closed
+			if (stream == null) {
+				if (con != null) {
+					connections.remove(con);
+				}
+				// A copy that was disconnected because the other answered first says nothing about the load on the JSS
+				permit.release(System.nanoTime() - start, isOverloaded(responseCode) && !request.abandoned);
+			}
+		}
+	}
+	
+	/**
+	 * @return The place of the request in the limit of its family. A hedge uses the place it was given when it was
+	 * scheduled, and is not retried if there is no place left for it.
+	 */
+	private ConcurrencyLimiter.Permit place(Request request) throws InterruptedIOException {
+		ConcurrencyLimiter.Permit permit = request.takeReserved();
+		if (permit == null) {
+			permit = request.hedge ? limiter.tryAcquireHedge(request.url) : limiter.acquire(request.url);
+		}
+		if (permit == null) {
+			throw new InterruptedIOException("No room to send the hedge to " + request.family + " again");
+		}
+		return permit;
+	}
+	
+	/**
+	 * Waits for a token from the bucket of {@code url}. If the wait is interrupted, the place of the request in the
+	 * concurrency limit is given up.
+	 */
+	private void throttle(String url, ConcurrencyLimiter.Permit permit) throws InterruptedIOException {
+		String family = EndpointFamily.of(url);
+		TokenBucket bucket = family.endsWith("/summary.html") || family.endsWith("/healthCheck.html") ? pages : requests;
+		try {
+			long waited = bucket.acquire();
+			if (waited > 0) {
+				metrics.recordThrottle(waited);
+			}
+		} catch (InterruptedIOException e) {
+			permit.release(0, false);
+			throw e;
+		}
+	}
+	
+	/**
+	 * @return The wait asked for by the Retry-After header of the response, in milliseconds, or {@code 0}
+	 */
+	private static long getRetryAfter(HttpURLConnection connection) {
+		String retryAfter = connection.getHeaderField("Retry-After");
+		if (retryAfter != null) {
+			try {
+				return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+			} catch (NumberFormatException e) {
+				// An HTTP date; the backoff is used instead
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * @param responseCode The status code of a response, or {@code -1} if the request failed without one
+	 *
+	 * @return Whether the response suggests the JSS is overloaded
+	 */
+	private static boolean isOverloaded(int responseCode) {
+		return responseCode < 0 || responseCode == 429 || responseCode >= HttpURLConnection.HTTP_INTERNAL_ERROR;
+	}
+	
+	/**
+	 * Opens a deflate encoded body. The HTTP specification calls for a zlib wrapped stream, but some servers send
+	 * raw deflate data, so the first two bytes are checked for a zlib header before choosing the inflater.
+	 */
+	private static InputStream inflate(InputStream in) throws IOException {
+		BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+		buffered.mark(2);
+		int cmf = buffered.read();
+		int flg = buffered.read();
+		buffered.reset();
+		
+		boolean zlib = cmf != -1 && flg != -1 && (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0;
+		Inflater inflater = new Inflater(!zlib);
+		return new InflaterInputStream(buffered, inflater, BUFFER_SIZE) {
+			
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				} finally {
+					inflater.end();
+				}
+			}
+			
+		};
+	}
+	
+	private static ByteBuffer readFully(InputStream in) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int count = 0;
+		int read;
+		while ((read = in.read(buffer, count, buffer.length - count)) != -1) {
+			count += read;
+			if (count == buffer.length) {
+				buffer = Arrays.copyOf(buffer, buffer.length * 2);
+			}
+		}
+		return ByteBuffer.wrap(buffer, 0, count);
+	}
+	
+	/**
+	 * Opens the connection for a request. A hedge is sent without the session cookies, so a load balancer may route
+	 * it to another node than the one that is slow to answer.
+	 */
+	private HttpURLConnection getConnection(Request request)
+			throws IOException, KeyManagementException, NoSuchAlgorithmException {
+		URL url = new URL(request.url);
 		
 		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
 		TrustModifier.relaxHostChecking(connection);
+		connection.setConnectTimeout(timeouts.getConnectMillis());
+		connection.setReadTimeout(timeouts.getReadMillis());
 		
 		connection.setRequestMethod("GET");
 		connection.setRequestProperty("User_Agent", USER_AGENT);
-		Base64 b = new Base64();
-		String encoding = b.encodeAsString((username + ":" + password).getBytes());
-		connection.setRequestProperty("Authorization", "Basic " + encoding);
+		connection.setRequestProperty("Authorization", authorization);
+		connection.setRequestProperty("Accept-Encoding", "gzip, deflate");
 		
+		List<String> sessionCookies = request.hedge ? null : cookies.get(cookieURI(url), Collections.emptyMap()).get("Cookie");
+		if (sessionCookies != null && !sessionCookies.isEmpty()) {
+			connection.setRequestProperty("Cookie", String.join("; ", sessionCookies));
+		}
+		
+		connections.add(connection);
+		request.connection = connection;
+		if (cancelled || request.abandoned) {
+			// cancel() or abandon() may have missed a connection added while it ran
+			connections.remove(connection);
+			throw new InterruptedIOException("The request to " + request.family + " was " + (cancelled ? "cancelled" : "answered by a hedge"));
+		}
 		return connection;
 	}
 	
+	/**
+	 * Sends the request and, unless {@code storeCookies} is {@code false}, stores any cookies the JSS set on the
+	 * session. A hedge does not store them, since it may have been answered by another node.
+	 * If the JSS returned an error the error body is drained, so the connection can still be reused.
+	 */
+	private int getResponseCode(HttpURLConnection connection, boolean storeCookies) throws IOException {
+		int responseCode = connection.getResponseCode();
+		
+		if (storeCookies) {
+			Map<String, List<String>> headers = connection.getHeaderFields();
+			cookies.put(cookieURI(connection.getURL()), headers);
+		}
+		
+		if (responseCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+			discard(connection.getErrorStream());
+		}
+		return responseCode;
+	}
+	
+	/**
+	 * @return The key of the session cookies of {@code url} in the cookie jar. The query is left out, since it may
+	 * hold credentials with characters a URI does not allow.
+	 */
+	static URI cookieURI(URL url) throws IOException {
+		try {
+			return new URI(url.getProtocol(), null, url.getHost(), url.getPort(), url.getPath().isEmpty() ? "/" : url.getPath(), null, null);
+		} catch (URISyntaxException e) {
+			throw new IOException("Invalid JSS URL: " + url, e);
+		}
+	}
+	
+	/**
+	 * Encodes a value for the query string of a URL, such as the credentials sent to summary.html and
+	 * healthCheck.html.
+	 *
+	 * @param value The value to encode
+	 *
+	 * @return The value, URL encoded as UTF-8
+	 */
+	public static String encode(String value) {
+		try {
+			return URLEncoder.encode(value, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static void discard(InputStream in) throws IOException {
+		if (in == null) {
+			return;
+		}
+		
+		try (InputStream stream = in) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			while (stream.read(buffer) != -1) {
+				// Read to the end of the body so the connection is returned to the keep-alive pool
+			}
+		}
+	}
+	
+	/**
+	 * Consumes the body of a single response.
+	 *
+	 * @param <T> The type of value produced from the body
+	 */
+	@FunctionalInterface
+	public interface ResponseHandler<T> {
+		
+		T handle(InputStream body) throws IOException, JDOMException;
+		
+	}
+	
+	/**
+	 * Counts the bytes read through it, and reports the total to {@code onClose} the first time it is closed.
+	 */
+	private static final class CountingInputStream extends FilterInputStream {
+		
+		private final Consumer<CountingInputStream> onClose;
+		private long count;
+		private long mark;
+		private boolean closed;
+		
+		CountingInputStream(InputStream in, Consumer<CountingInputStream> onClose) {
+			super(in);
+			this.onClose = onClose;
+		}
+		
+		long getCount() {
+			return count;
+		}
+		
+		@Override
+		public int read() throws IOException {
+			int read = super.read();
+			if (read != -1) {
+				count++;
+			}
+			return read;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+		
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+		
+		@Override
+		public synchronized void mark(int readLimit) {
+			super.mark(readLimit);
+			mark = count;
+		}
+		
+		@Override
+		public synchronized void reset() throws IOException {
+			super.reset();
+			count = mark;
+		}
+		
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				super.close();
+			} finally {
+				if (onClose != null) {
+					onClose.accept(this);
+				}
+			}
+		}
+		
+	}
+	
+	/**
+	 * One request made through the controller, which is sent again on each retry. A hedge is a copy of an
+	 * asynchronous request that was slow to answer. Whichever copy answers first abandons the other.
+	 */
+	private static final class Request {
+		
+		private final String url;
+		private final String family;
+		private final boolean hedge;
+		private volatile HttpURLConnection connection;
+		private volatile boolean abandoned;
+		private volatile Runnable onSent;
+		private volatile ConcurrencyLimiter.Permit reserved;
+		
+		Request(String url, boolean hedge) {
+			this.url = url;
+			this.family = EndpointFamily.of(url);
+			this.hedge = hedge;
+		}
+		
+		/**
+		 * Called when the request is sent for the first time.
+		 */
+		void sent() {
+			Runnable callback = onSent;
+			if (callback != null) {
+				onSent = null;
+				callback.run();
+			}
+		}
+		
+		/**
+		 * @return The place taken for this hedge before it was handed to the hedge pool, or {@code null} if it has
+		 * been used
+		 */
+		ConcurrencyLimiter.Permit takeReserved() {
+			ConcurrencyLimiter.Permit permit = reserved;
+			reserved = null;
+			return permit;
+		}
+		
+		void cancelReserved() {
+			ConcurrencyLimiter.Permit permit = takeReserved();
+			if (permit != null) {
+				permit.cancel();
+			}
+		}
+		
+		/**
+		 * Stops the request. If it is in flight its connection is dropped, and it is not retried.
+		 */
+		void abandon() {
+			abandoned = true;
+			HttpURLConnection open = connection;
+			if (open != null) {
+				open.disconnect();
+			}
+		}
+		
+	}
+	
+	/**
+	 * An asynchronous request and its hedge, if one is sent. The result is the first response to be handled. If both
+	 * fail, the result fails with the first error.
+	 */
+	private final class Race<T> {
+		
+		private final Request primary;
+		private final ResponseHandler<T> handler;
+		private final CompletableFuture<T> result = new CompletableFuture<>();
+		private final AtomicInteger running = new AtomicInteger(1);
+		private final AtomicReference<Throwable> failure = new AtomicReference<>();
+		private volatile Request hedge;
+		
+		Race(Request primary, ResponseHandler<T> handler) {
+			this.primary = primary;
+			this.handler = handler;
+		}
+		
+		/**
+		 * @return Whether a hedge may still join the race, which is not the case once every request has failed
+		 */
+		boolean join() {
+			return running.getAndUpdate(count -> count == 0 ? 0 : count + 1) > 0;
+		}
+		
+		void finish(Request request, T value, Throwable error) {
+			if (error == null) {
+				if (result.complete(value)) {
+					Request other = request == primary ? hedge : primary;
+					if (other != null) {
+						other.abandon();
+					}
+					if (request.hedge) {
+						metrics.recordHedgeWin();
+					}
+				}
+				return;
+			}
+			
+			failure.compareAndSet(null, error);
+			if (running.decrementAndGet() == 0) {
+				result.completeExceptionally(failure.get());
+			}
+		}
+		
+	}
+	
+	private static final class RequestThreadFactory implements ThreadFactory {
+		
+		private final String prefix;
+		private final AtomicInteger count = new AtomicInteger();
+		
+		RequestThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+		
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+		
+	}
+	
 }
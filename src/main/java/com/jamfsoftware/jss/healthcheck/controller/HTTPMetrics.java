@@ -0,0 +1,184 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of the response bodies received by one {@link HTTPController}.
+ * Compressed bytes are counted as they come off the wire, uncompressed bytes as they are handed to the caller,
+ * so the two are equal for responses the JSS did not compress. The time from sending each request to closing its
+ * body is kept in a {@link LatencyHistogram}. The time requests spent waiting on the rate limit before they were
+ * sent is counted separately, and is not part of their latency. Hedges are counted as requests of their own.
+ *
+ * @since 1.0
+ */
+public class HTTPMetrics {
+	
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder compressedResponses = new LongAdder();
+	private final LongAdder compressedBytes = new LongAdder();
+	private final LongAdder uncompressedBytes = new LongAdder();
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder throttledRequests = new LongAdder();
+	private final LongAdder throttledNanos = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder hedges = new LongAdder();
+	private final LongAdder hedgeWins = new LongAdder();
+	
+	/**
+	 * Records a single response body once it has been closed.
+	 *
+	 * @param encoding The Content-Encoding of the response, or {@code null} if the body was not encoded
+	 * @param wireBytes The number of bytes read from the connection
+	 * @param bodyBytes The number of bytes read after decompression
+	 * @param nanos The time from sending the request to closing the body
+	 */
+	void record(String encoding, long wireBytes, long bodyBytes, long nanos) {
+		requests.increment();
+		if (encoding != null) {
+			compressedResponses.increment();
+		}
+		compressedBytes.add(wireBytes);
+		uncompressedBytes.add(bodyBytes);
+		latency.record(nanos);
+	}
+	
+	/**
+	 * Records a request that had to wait on the rate limit.
+	 *
+	 * @param nanos The time it waited
+	 */
+	void recordThrottle(long nanos) {
+		throttledRequests.increment();
+		throttledNanos.add(nanos);
+	}
+	
+	/**
+	 * Records a failed request that is about to be sent again.
+	 */
+	void recordRetry() {
+		retries.increment();
+	}
+	
+	/**
+	 * Records a request that was not sent because its circuit breaker was open.
+	 */
+	void recordRejected() {
+		rejected.increment();
+	}
+	
+	/**
+	 * Records a copy sent of a request that was slow to answer.
+	 */
+	void recordHedge() {
+		hedges.increment();
+	}
+	
+	/**
+	 * Records a hedge that answered before the request it copied.
+	 */
+	void recordHedgeWin() {
+		hedgeWins.increment();
+	}
+	
+	public long getRequests() {
+		return requests.sum();
+	}
+	
+	public long getCompressedResponses() {
+		return compressedResponses.sum();
+	}
+	
+	public long getCompressedBytes() {
+		return compressedBytes.sum();
+	}
+	
+	public long getUncompressedBytes() {
+		return uncompressedBytes.sum();
+	}
+	
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+	
+	/**
+	 * @return The number of requests that waited on the rate limit
+	 */
+	public long getThrottledRequests() {
+		return throttledRequests.sum();
+	}
+	
+	/**
+	 * @return The total time requests waited on the rate limit, in seconds
+	 */
+	public double getThrottledSeconds() {
+		return throttledNanos.sum() / 1e9;
+	}
+	
+	/**
+	 * @return The number of times a failed request was sent again
+	 */
+	public long getRetries() {
+		return retries.sum();
+	}
+	
+	/**
+	 * @return The number of requests failed at once because the JSS was not answering their endpoint
+	 */
+	public long getRejected() {
+		return rejected.sum();
+	}
+	
+	/**
+	 * @return The number of slow requests that were hedged
+	 */
+	public long getHedges() {
+		return hedges.sum();
+	}
+	
+	/**
+	 * @return The number of hedges that answered first
+	 */
+	public long getHedgeWins() {
+		return hedgeWins.sum();
+	}
+	
+	@Override
+	public String toString() {
+		long wire = getCompressedBytes();
+		long body = getUncompressedBytes();
+		long saved = body == 0 ? 0 : Math.round(100.0 * (body - wire) / body);
+		return getRequests() + " responses (" + getCompressedResponses() + " compressed), " + wire
+				+ " bytes transferred for " + body + " bytes of content (" + saved + "% saved), p95 latency " + Math.round(latency.getPercentile(0.95)) + " ms, "
+				+ getThrottledRequests() + " requests waited " + Math.round(getThrottledSeconds() * 1000) + " ms on the rate limit, "
+				+ getRetries() + " retries, " + getRejected() + " requests not sent while the JSS was down, "
+				+ getHedges() + " hedged (" + getHedgeWins() + " answered first)";
+	}
+	
+}
@@ -0,0 +1,62 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.IOException;
+
+/**
+ * Thrown when the JSS answers a request with an error status.
+ *
+ * @since 1.0
+ */
+public class HTTPStatusException extends IOException {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final int responseCode;
+	private final long retryAfterMillis;
+	
+	/**
+	 * @param responseCode The status code of the response
+	 * @param retryAfterMillis The time the JSS asked the client to wait before trying again, or {@code 0}
+	 * @param message The detail message
+	 */
+	public HTTPStatusException(int responseCode, long retryAfterMillis, String message) {
+		super(message);
+		this.responseCode = responseCode;
+		this.retryAfterMillis = retryAfterMillis;
+	}
+	
+	public int getResponseCode() {
+		return responseCode;
+	}
+	
+	public long getRetryAfterMillis() {
+		return retryAfterMillis;
+	}
+	
+}
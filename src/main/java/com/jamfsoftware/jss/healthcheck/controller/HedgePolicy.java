@@ -0,0 +1,100 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+/**
+ * When a slow asynchronous request is sent a second time.
+ * <p>
+ * Once an endpoint family has answered {@code min_samples} requests, a request to it that has not finished after the
+ * {@code percentile} latency of the family is hedged: a copy is sent, and whichever copy answers first is used. The
+ * copy is sent without the session cookies, so a load balancer is free to route it to another node of a clustered
+ * JSS. No more than {@code max_percent} of the asynchronous requests are hedged.
+ *
+ * @since 1.0
+ */
+public final class HedgePolicy {
+	
+	/**
+	 * The policy used when config.xml does not set one. Nothing is hedged.
+	 */
+	public static final HedgePolicy DISABLED = new HedgePolicy(0.95, 0, 20);
+	
+	private final double percentile;
+	private final double maxRatio;
+	private final int minSamples;
+	
+	/**
+	 * @param percentile The latency of its family, as a fraction, after which a request is hedged
+	 * @param maxRatio The most hedges to send, as a fraction of the asynchronous requests, or {@code 0} to send none
+	 * @param minSamples The number of responses a family needs before its latency is trusted
+	 */
+	public HedgePolicy(double percentile, double maxRatio, int minSamples) {
+		this.percentile = Math.min(1, Math.max(0.5, percentile));
+		this.maxRatio = Math.min(1, Math.max(0, maxRatio));
+		this.minSamples = Math.max(1, minSamples);
+	}
+	
+	public boolean isEnabled() {
+		return maxRatio > 0;
+	}
+	
+	public double getPercentile() {
+		return percentile;
+	}
+	
+	public double getMaxRatio() {
+		return maxRatio;
+	}
+	
+	public int getMinSamples() {
+		return minSamples;
+	}
+	
+	/**
+	 * @param latency The latencies of the family of a request
+	 *
+	 * @return How long to wait for the request before hedging it, in milliseconds, or {@code -1} if the family has
+	 * not answered enough requests yet
+	 */
+	public long getDelay(LatencyHistogram latency) {
+		if (latency == null || latency.getCount() < minSamples) {
+			return -1;
+		}
+		return Math.max(1, Math.round(latency.getPercentile(percentile)));
+	}
+	
+	/**
+	 * @param hedges The number of hedges sent so far
+	 * @param requests The number of asynchronous requests made so far
+	 *
+	 * @return Whether one more hedge stays within {@code max_percent}
+	 */
+	public boolean allows(long hedges, long requests) {
+		return hedges + 1 <= maxRatio * requests;
+	}
+	
+}
@@ -0,0 +1,116 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts request latencies in fixed buckets, so recording is a single atomic increment and percentiles can be read
+ * at any time without keeping the latencies themselves. A percentile is interpolated within its bucket, which is
+ * accurate to the width of the bucket.
+ *
+ * @since 1.0
+ */
+public class LatencyHistogram {
+	
+	/**
+	 * The upper bound of each bucket, in milliseconds. Latencies above the last bound are counted in one more
+	 * bucket.
+	 */
+	static final long[] BOUNDS = { 1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000 };
+	
+	private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length + 1);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	
+	/**
+	 * Records one latency.
+	 *
+	 * @param nanos The latency, in nanoseconds
+	 */
+	public void record(long nanos) {
+		long millis = TimeUnit.NANOSECONDS.toMillis(Math.max(0, nanos));
+		int bucket = 0;
+		while (bucket < BOUNDS.length && millis >= BOUNDS[bucket]) {
+			bucket++;
+		}
+		counts.incrementAndGet(bucket);
+		count.increment();
+		totalNanos.add(nanos);
+	}
+	
+	/**
+	 * @return The number of latencies recorded
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+	
+	/**
+	 * @return The sum of every latency recorded, in seconds
+	 */
+	public double getTotalSeconds() {
+		return totalNanos.sum() / 1e9;
+	}
+	
+	/**
+	 * @param quantile The quantile, between 0 and 1; 0.95 is the 95th percentile
+	 *
+	 * @return The estimated latency below which {@code quantile} of the recorded latencies fall, in milliseconds, or
+	 * {@code -1} if nothing has been recorded
+	 */
+	public double getPercentile(double quantile) {
+		long[] snapshot = new long[counts.length()];
+		long total = 0;
+		for (int i = 0; i < snapshot.length; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return -1;
+		}
+		
+		double rank = Math.min(1, Math.max(0, quantile)) * total;
+		long seen = 0;
+		for (int i = 0; i < snapshot.length; i++) {
+			if (snapshot[i] == 0 || seen + snapshot[i] < rank) {
+				seen += snapshot[i];
+				continue;
+			}
+			
+			double lower = i == 0 ? 0 : BOUNDS[i - 1];
+			if (i == BOUNDS.length) {
+				return lower;
+			}
+			return lower + (BOUNDS[i] - lower) * (rank - seen) / snapshot[i];
+		}
+		return BOUNDS[BOUNDS.length - 1];
+	}
+	
+}
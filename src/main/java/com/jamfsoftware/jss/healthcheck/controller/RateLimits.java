@@ -0,0 +1,208 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jdom2.Element;
+
+/**
+ * The request rates allowed against each JSS, read from the {@code rate_limit} element of the {@code api}
+ * configuration.
+ * <p>
+ * There are two budgets. The pages that make the JSS do the most work, summary.html and healthCheck.html, have a
+ * budget of their own ({@code page_rate} and {@code page_burst}); every other request shares the main budget
+ * ({@code rate} and {@code burst}). Rates are in requests a second, and a missing or zero rate is not limited.
+ * <p>
+ * A {@code target} element overrides any of these values for the JSS at its {@code url}: the same scheme, host and
+ * port, and a path at or below the path of the target.
+ *
+ * @since 1.0
+ */
+public final class RateLimits {
+	
+	/**
+	 * No limits at all.
+	 */
+	public static final Target UNLIMITED = new Target(0, 1, 0, 1);
+	
+	private static final String[] KEYS = { "rate", "burst", "page_rate", "page_burst" };
+	
+	private final Target defaults;
+	private final TreeMap<String, Target> targets;
+	
+	private RateLimits(Target defaults, TreeMap<String, Target> targets) {
+		this.defaults = defaults;
+		this.targets = targets;
+	}
+	
+	/**
+	 * Reads the limits out of the {@code api} element of config.xml.
+	 *
+	 * @param api The {@code api} element, or {@code null}
+	 *
+	 * @return The limits. Without a {@code rate_limit} element, nothing is limited.
+	 */
+	static RateLimits read(Element api) {
+		Element limits = api == null ? null : api.getChild("rate_limit");
+		if (limits == null) {
+			return new RateLimits(UNLIMITED, new TreeMap<>());
+		}
+		
+		double[] values = override(new double[] { 0, 1, 0, 1 }, limits);
+		Target defaults = new Target(values[0], values[1], values[2], values[3]);
+		
+		TreeMap<String, Target> targets = new TreeMap<>();
+		for (Element target : limits.getChildren("target")) {
+			String url = target.getChildTextTrim("url");
+			if (url != null && !url.isEmpty()) {
+				double[] overridden = override(values.clone(), target);
+				targets.put(normalize(url), new Target(overridden[0], overridden[1], overridden[2], overridden[3]));
+			}
+		}
+		return new RateLimits(defaults, targets);
+	}
+	
+	private static double[] override(double[] values, Element element) {
+		for (int i = 0; i < KEYS.length; i++) {
+			String text = element.getChildTextTrim(KEYS[i]);
+			if (text != null && !text.isEmpty()) {
+				try {
+					values[i] = Double.parseDouble(text);
+				} catch (NumberFormatException e) {
+					// Keep the value it overrides
+				}
+			}
+		}
+		return values;
+	}
+	
+	private static String normalize(String url) {
+		String normalized = url.trim().toLowerCase(Locale.ENGLISH);
+		return normalized.endsWith("/") ? normalized.substring(0, normalized.length() - 1) : normalized;
+	}
+	
+	/**
+	 * @param url The URL of a JSS
+	 *
+	 * @return The limits of the longest {@code target} that {@code url} is at, or the default limits
+	 */
+	public Target getTarget(String url) {
+		String normalized = normalize(url);
+		Map.Entry<String, Target> longest = null;
+		for (Map.Entry<String, Target> target : targets.entrySet()) {
+			if ((longest == null || target.getKey().length() > longest.getKey().length()) && matches(normalized, target.getKey())) {
+				longest = target;
+			}
+		}
+		return longest == null ? defaults : longest.getValue();
+	}
+	
+	/**
+	 * @return Whether {@code url} has the scheme, host and port of {@code target}, and a path at or below its path.
+	 * A URL without a host is matched as text, up to a '/', ':' or '?' or its end.
+	 */
+	private static boolean matches(String url, String target) {
+		URI jss = parse(url);
+		URI limited = parse(target);
+		if (jss == null || limited == null) {
+			return url.startsWith(target) && (url.length() == target.length() || "/:?".indexOf(url.charAt(target.length())) >= 0);
+		}
+		
+		String path = jss.getRawPath() == null ? "" : jss.getRawPath();
+		String targetPath = limited.getRawPath() == null ? "" : limited.getRawPath();
+		return jss.getScheme().equals(limited.getScheme())
+				&& jss.getHost().equals(limited.getHost())
+				&& port(jss) == port(limited)
+				&& (targetPath.isEmpty() || path.equals(targetPath) || path.startsWith(targetPath + "/"));
+	}
+	
+	/**
+	 * @return The URL, or {@code null} if it has no scheme and host
+	 */
+	private static URI parse(String url) {
+		try {
+			URI uri = new URI(url);
+			return uri.getScheme() == null || uri.getHost() == null ? null : uri;
+		} catch (URISyntaxException e) {
+			return null;
+		}
+	}
+	
+	private static int port(URI uri) {
+		if (uri.getPort() != -1) {
+			return uri.getPort();
+		}
+		return "https".equals(uri.getScheme()) ? 443 : "http".equals(uri.getScheme()) ? 80 : -1;
+	}
+	
+	/**
+	 * The limits of one JSS.
+	 */
+	public static final class Target {
+		
+		private final double rate;
+		private final double burst;
+		private final double pageRate;
+		private final double pageBurst;
+		
+		Target(double rate, double burst, double pageRate, double pageBurst) {
+			this.rate = rate;
+			this.burst = burst;
+			this.pageRate = pageRate;
+			this.pageBurst = pageBurst;
+		}
+		
+		public double getRate() {
+			return rate;
+		}
+		
+		public double getBurst() {
+			return burst;
+		}
+		
+		public double getPageRate() {
+			return pageRate;
+		}
+		
+		public double getPageBurst() {
+			return pageBurst;
+		}
+		
+		@Override
+		public String toString() {
+			return (rate > 0 ? rate + "/s (burst " + burst + ")" : "unlimited") + ", pages "
+					+ (pageRate > 0 ? pageRate + "/s (burst " + pageBurst + ")" : "unlimited");
+		}
+		
+	}
+	
+}
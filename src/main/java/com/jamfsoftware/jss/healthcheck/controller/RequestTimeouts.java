@@ -0,0 +1,63 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+/**
+ * How long a single request may wait on the JSS before it fails. A request that times out is retried as set by the
+ * {@link RetryPolicy}.
+ *
+ * @since 1.0
+ */
+public final class RequestTimeouts {
+	
+	/**
+	 * The timeouts used when config.xml does not set them. The read timeout is long enough for the JSS to build a
+	 * full summary.
+	 */
+	public static final RequestTimeouts DEFAULT = new RequestTimeouts(15000, 300000);
+	
+	private final int connectMillis;
+	private final int readMillis;
+	
+	/**
+	 * @param connectMillis The most time to wait for a connection, or {@code 0} to wait forever
+	 * @param readMillis The most time to wait for the next part of a response, or {@code 0} to wait forever
+	 */
+	public RequestTimeouts(int connectMillis, int readMillis) {
+		this.connectMillis = Math.max(0, connectMillis);
+		this.readMillis = Math.max(0, readMillis);
+	}
+	
+	public int getConnectMillis() {
+		return connectMillis;
+	}
+	
+	public int getReadMillis() {
+		return readMillis;
+	}
+	
+}
@@ -0,0 +1,105 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How failed requests are tried again, and when to stop trying.
+ * <p>
+ * A request that failed because the JSS was unavailable is tried up to {@code max_attempts} times in all. Before
+ * each retry the controller sleeps for a random time between zero and an exponential ceiling, which starts at
+ * {@code base_delay} milliseconds, doubles with every attempt and is capped at {@code max_delay}. The random part
+ * stops parallel requests from retrying in lockstep. If the JSS sent a Retry-After header, the wait is at least that
+ * long, up to the cap.
+ * <p>
+ * Once {@code failure_threshold} requests to one endpoint family fail in a row, its {@link CircuitBreaker} opens for
+ * {@code open_seconds}, and requests to the family fail at once instead of waiting for the JSS.
+ *
+ * @since 1.0
+ */
+public final class RetryPolicy {
+	
+	/**
+	 * The policy used when config.xml does not set one.
+	 */
+	public static final RetryPolicy DEFAULT = new RetryPolicy(4, 250, 10000, 5, 30);
+	
+	private final int maxAttempts;
+	private final long baseDelayMillis;
+	private final long maxDelayMillis;
+	private final int failureThreshold;
+	private final long openSeconds;
+	
+	/**
+	 * @param maxAttempts The number of times a request is sent before giving up, including the first
+	 * @param baseDelayMillis The ceiling of the wait before the first retry
+	 * @param maxDelayMillis The most to wait before any retry
+	 * @param failureThreshold The number of failures in a row that opens the circuit breaker of a family
+	 * @param openSeconds How long an open circuit breaker fails requests before letting them through again
+	 */
+	public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, int failureThreshold, long openSeconds) {
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.baseDelayMillis = Math.max(0, baseDelayMillis);
+		this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+		this.failureThreshold = Math.max(1, failureThreshold);
+		this.openSeconds = Math.max(0, openSeconds);
+	}
+	
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+	
+	public long getBaseDelayMillis() {
+		return baseDelayMillis;
+	}
+	
+	public long getMaxDelayMillis() {
+		return maxDelayMillis;
+	}
+	
+	public int getFailureThreshold() {
+		return failureThreshold;
+	}
+	
+	public long getOpenSeconds() {
+		return openSeconds;
+	}
+	
+	/**
+	 * @param attempt The attempt that just failed, starting at 1
+	 * @param retryAfterMillis The wait the JSS asked for, or {@code 0}
+	 *
+	 * @return The time to wait before the next attempt, in milliseconds
+	 */
+	public long getDelay(int attempt, long retryAfterMillis) {
+		long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+		long delay = ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+		return Math.min(maxDelayMillis, Math.max(delay, retryAfterMillis));
+	}
+	
+}
@@ -0,0 +1,97 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets requests through at a steady rate, with room for a short burst.
+ * <p>
+ * The bucket holds up to {@code burst} tokens and gains {@code rate} tokens a second. Each request takes a token.
+ * A request that finds the bucket empty reserves the next token anyway and sleeps until it would have arrived, so
+ * waiting requests go out in the order they asked, and never faster than the rate.
+ *
+ * @since 1.0
+ */
+class TokenBucket {
+	
+	private final double rate;
+	private final double burst;
+	private double tokens;
+	private long updated;
+	
+	/**
+	 * @param rate The number of requests a second, or {@code 0} for no limit
+	 * @param burst The number of requests that may be sent at once after a quiet period
+	 */
+	TokenBucket(double rate, double burst) {
+		this.rate = rate;
+		this.burst = Math.max(1, burst);
+		this.tokens = this.burst;
+		this.updated = System.nanoTime();
+	}
+	
+	/**
+	 * Waits for a token.
+	 *
+	 * @return The time spent waiting, in nanoseconds
+	 *
+	 * @throws InterruptedIOException If the thread is interrupted while waiting
+	 */
+	long acquire() throws InterruptedIOException {
+		long wait = reserve(System.nanoTime());
+		if (wait > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting on the request rate limit");
+			}
+		}
+		return wait;
+	}
+	
+	/**
+	 * Takes a token, which may not have arrived yet.
+	 *
+	 * @param now The current {@link System#nanoTime()}
+	 *
+	 * @return The time until the token arrives, in nanoseconds
+	 */
+	synchronized long reserve(long now) {
+		if (rate <= 0) {
+			return 0;
+		}
+		
+		tokens = Math.min(burst, tokens + (now - updated) * rate / 1e9);
+		updated = now;
+		tokens--;
+		return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / rate * 1e9);
+	}
+	
+}
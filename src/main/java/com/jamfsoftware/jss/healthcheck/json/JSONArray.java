@@ -1,31 +1,50 @@
 package com.jamfsoftware.jss.healthcheck.json;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.stream.Collectors;
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2002 - 2026 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.Writer;
 
 public final class JSONArray extends JSONObject {
 	
-	private final String name;
-	private final Collection<JSONObject> objects;
-	
 	JSONArray(String name) {
 		super(name);
-		
-		this.name = name;
-		this.objects = new HashSet<>();
 	}
 	
 	public JSONObject addObject() {
-		JSONObject obj = super.addObject(null);
-		return objects.add(obj) ? obj : null;
+		return super.addObject(null);
 	}
 	
 	@Override
-	public String toString() {
-		return "\"" + name + "\":[" +
-				String.join(",", objects.stream().map(o -> o.toString(false)).collect(Collectors.toSet())) +
-				"]";
+	void write(Writer out, boolean includeName) throws IOException {
+		JSONElement.writeString(out, String.valueOf(name));
+		out.write(":[");
+		writeObjects(out);
+		out.write(']');
 	}
 	
 }
@@ -1,13 +1,73 @@
 package com.jamfsoftware.jss.healthcheck.json;
 
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2002 - 2026 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
 public class JSONDocument extends JSONObject {
 	
 	public JSONDocument(String root) {
 		super(root);
 	}
 	
+	/**
+	 * Writes the document to {@code out} as it walks the tree, so even a very large report is never built up as
+	 * a single string. The writer is not flushed or closed.
+	 *
+	 * @param out The destination
+	 *
+	 * @throws IOException If {@code out} throws
+	 */
+	public void writeTo(Writer out) throws IOException {
+		out.write('{');
+		write(out, true);
+		out.write('}');
+	}
+	
+	/**
+	 * Writes the document to {@code out} as UTF-8. The stream is flushed, but not closed.
+	 *
+	 * @param out The destination
+	 *
+	 * @throws IOException If {@code out} throws
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		writeTo(writer);
+		writer.flush();
+	}
+	
 	@Override
 	public String toString() {
-		return "{" + super.toString() + "}";
+		return toString(this::writeTo);
 	}
 }
@@ -1,7 +1,38 @@
 package com.jamfsoftware.jss.healthcheck.json;
 
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2002 - 2026 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+
 public final class JSONElement {
 	
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	
 	private final String name;
 	private final Object value;
 	
@@ -10,9 +41,61 @@ public final class JSONElement {
 		this.value = value;
 	}
 	
+	void write(Writer out) throws IOException {
+		writeString(out, name);
+		out.write(':');
+		writeString(out, String.valueOf(value));
+	}
+	
+	/**
+	 * Writes a quoted JSON string, escaping quotes, backslashes and control characters.
+	 */
+	static void writeString(Writer out, String value) throws IOException {
+		out.write('"');
+		int start = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c != '"' && c != '\\' && c >= 0x20) {
+				continue;
+			}
+			
+			out.write(value, start, i - start);
+			start = i + 1;
+			switch (c) {
+				case '"':
+					out.write("\\\"");
+					break;
+				case '\\':
+					out.write("\\\\");
+					break;
+				case '\n':
+					out.write("\\n");
+					break;
+				case '\r':
+					out.write("\\r");
+					break;
+				case '\t':
+					out.write("\\t");
+					break;
+				case '\b':
+					out.write("\\b");
+					break;
+				case '\f':
+					out.write("\\f");
+					break;
+				default:
+					out.write("\\u00");
+					out.write(HEX[c >> 4]);
+					out.write(HEX[c & 0xF]);
+			}
+		}
+		out.write(value, start, value.length() - start);
+		out.write('"');
+	}
+	
 	@Override
 	public String toString() {
-		return "\"" + name + "\":\"" + value + "\"";
+		return JSONObject.toString(this::write);
 	}
 	
-}
\ No newline at end of file
+}
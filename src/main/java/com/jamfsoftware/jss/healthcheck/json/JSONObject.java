@@ -1,38 +1,75 @@
 package com.jamfsoftware.jss.healthcheck.json;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2002 - 2026 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
 
-import org.apache.commons.lang3.StringUtils;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
 
+/**
+ * A JSON object whose members are written in the order they were added, so the same report always produces the same
+ * bytes. Members are kept in a single array that is only allocated once the first member is added.
+ */
 public class JSONObject {
 	
-	private final String name;
-	private final Collection<JSONArray> arrays;
-	private final Collection<JSONElement> elements;
-	private final Collection<JSONObject> objects;
+	private static final Object[] EMPTY = new Object[0];
+	
+	final String name;
+	
+	/**
+	 * The {@link JSONElement}s, {@link JSONObject}s and {@link JSONArray}s of this object, in insertion order.
+	 */
+	private Object[] children = EMPTY;
+	private int size;
 	
 	JSONObject(String name) {
 		this.name = name;
-		this.arrays = new HashSet<>();
-		this.elements = new HashSet<>();
-		this.objects = new HashSet<>();
 	}
 	
 	public Object addElement(String name, Object value) {
-		return elements.add(new JSONElement(name, value));
+		return add(new JSONElement(name, value)) != null;
 	}
 	
 	public JSONObject addObject(String name) {
-		JSONObject obj = new JSONObject(name);
-		return objects.add(obj) ? obj : null;
+		return add(new JSONObject(name));
 	}
 	
 	public JSONArray addArray(String name) {
-		JSONArray arr = new JSONArray(name);
-		return arrays.add(arr) ? arr : null;
+		return add(new JSONArray(name));
+	}
+	
+	private <T> T add(T child) {
+		if (size == children.length) {
+			children = Arrays.copyOf(children, Math.max(4, size * 2));
+		}
+		children[size++] = child;
+		return child;
 	}
 	
 	@Override
@@ -41,13 +78,73 @@ public class JSONObject {
 	}
 	
 	public String toString(boolean includeName) {
-		return (includeName ? "\"" + name + "\":{" : "{") +
-				Stream.of(arrays, elements, objects)
-						.flatMap(Collection::stream)
-						.map(Object::toString)
-						.filter(StringUtils::isNotBlank)
-						.collect(Collectors.joining(",")) +
-				"}";
+		return toString(out -> write(out, includeName));
+	}
+	
+	/**
+	 * Writes this object and everything below it straight to {@code out}, without building any intermediate
+	 * strings.
+	 *
+	 * @param out The destination
+	 * @param includeName Whether to write the name of this object in front of it
+	 *
+	 * @throws IOException If {@code out} throws
+	 */
+	void write(Writer out, boolean includeName) throws IOException {
+		if (includeName) {
+			JSONElement.writeString(out, String.valueOf(name));
+			out.write(':');
+		}
+		
+		out.write('{');
+		for (int i = 0; i < size; i++) {
+			separate(out, i == 0);
+			Object child = children[i];
+			if (child instanceof JSONElement) {
+				((JSONElement) child).write(out);
+			} else {
+				((JSONObject) child).write(out, true);
+			}
+		}
+		out.write('}');
+	}
+	
+	/**
+	 * Writes the objects added to this object, without their names, as the entries of a JSON array.
+	 */
+	void writeObjects(Writer out) throws IOException {
+		boolean first = true;
+		for (int i = 0; i < size; i++) {
+			if (children[i] instanceof JSONObject) {
+				first = separate(out, first);
+				((JSONObject) children[i]).write(out, false);
+			}
+		}
+	}
+	
+	static boolean separate(Writer out, boolean first) throws IOException {
+		if (!first) {
+			out.write(',');
+		}
+		return false;
+	}
+	
+	static String toString(JSONWriter writer) {
+		StringWriter out = new StringWriter();
+		try {
+			writer.write(out);
+		} catch (IOException e) {
+			// A StringWriter does not throw
+			throw new UncheckedIOException(e);
+		}
+		return out.toString();
+	}
+	
+	@FunctionalInterface
+	interface JSONWriter {
+		
+		void write(Writer out) throws IOException;
+		
 	}
 	
 }
@@ -0,0 +1,105 @@
+package com.jamfsoftware.jss.healthcheck.monitor;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jamfsoftware.jss.healthcheck.monitor.SampleBuffer.Samples;
+
+/**
+ * Reduces a series of samples to the points needed to draw it.
+ * <p>
+ * The Largest-Triangle-Three-Buckets algorithm keeps the first and last sample, and splits the rest into equal
+ * buckets. From each bucket it keeps the sample that forms the largest triangle with the sample kept from the
+ * bucket before, and the average of the bucket after. Spikes form large triangles, so they are kept even when a
+ * million samples are drawn as a few thousand points.
+ *
+ * @since 1.0
+ */
+public final class Downsampler {
+	
+	private Downsampler() {
+	}
+	
+	/**
+	 * @param samples The samples to reduce, oldest first
+	 * @param threshold The number of samples to keep
+	 *
+	 * @return At most {@code threshold} of the samples, or {@code samples} itself if there are not more than that
+	 */
+	public static Samples largestTriangleThreeBuckets(Samples samples, int threshold) {
+		int size = samples.size();
+		if (threshold >= size || threshold < 3) {
+			return samples;
+		}
+		
+		//Times are measured from the first sample, so they keep their precision as doubles.
+		long origin = samples.getTime(0);
+		long[] times = new long[threshold];
+		double[] values = new double[threshold];
+		times[0] = samples.getTime(0);
+		values[0] = samples.getValue(0);
+		
+		double bucketSize = (double) (size - 2) / (threshold - 2);
+		int previous = 0;
+		for (int bucket = 0; bucket < threshold - 2; bucket++) {
+			//The average of the next bucket is the third point of each triangle.
+			int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+			int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+			double averageTime = 0;
+			double averageValue = 0;
+			for (int i = nextStart; i < nextEnd; i++) {
+				averageTime += samples.getTime(i) - origin;
+				averageValue += samples.getValue(i);
+			}
+			averageTime /= nextEnd - nextStart;
+			averageValue /= nextEnd - nextStart;
+			
+			double previousTime = samples.getTime(previous) - origin;
+			double previousValue = samples.getValue(previous);
+			int start = (int) (bucket * bucketSize) + 1;
+			int end = (int) ((bucket + 1) * bucketSize) + 1;
+			double largestArea = -1;
+			int selected = start;
+			for (int i = start; i < end; i++) {
+				double area = Math.abs((previousTime - averageTime) * (samples.getValue(i) - previousValue)
+						- (previousTime - (samples.getTime(i) - origin)) * (averageValue - previousValue));
+				if (area > largestArea) {
+					largestArea = area;
+					selected = i;
+				}
+			}
+			
+			times[bucket + 1] = samples.getTime(selected);
+			values[bucket + 1] = samples.getValue(selected);
+			previous = selected;
+		}
+		
+		times[threshold - 1] = samples.getTime(size - 1);
+		values[threshold - 1] = samples.getValue(size - 1);
+		return new Samples(times, values, threshold);
+	}
+	
+}
@@ -0,0 +1,258 @@
+package com.jamfsoftware.jss.healthcheck.monitor;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jamfsoftware.jss.healthcheck.monitor.SampleBuffer.Samples;
+
+/**
+ * Runs sampling tasks on their own schedules, and keeps the samples of each metric in a {@link SampleBuffer}.
+ * The buffers are flushed to a {@link SampleStore} in batches, on a schedule of their own, so sampling never waits
+ * on the disk.
+ * <p>
+ * A task that fails is logged and runs again at its next time. Closing the monitor stops every task and flushes
+ * what is left.
+ *
+ * @since 1.0
+ */
+public class HealthMonitor implements AutoCloseable {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(HealthMonitor.class);
+	
+	private final SampleStore store;
+	private final int bufferSize;
+	private final ScheduledExecutorService scheduler;
+	private final Map<String, SampleBuffer> buffers = new ConcurrentHashMap<>();
+	private final AtomicLong generation = new AtomicLong();
+	
+	/**
+	 * @param store The store to flush samples to
+	 * @param bufferSize The number of samples of each metric to keep in memory
+	 * @param threads The number of tasks that may run at the same time
+	 */
+	public HealthMonitor(SampleStore store, int bufferSize, int threads) {
+		this.store = store;
+		this.bufferSize = bufferSize;
+		this.scheduler = Executors.newScheduledThreadPool(threads, new MonitorThreadFactory());
+	}
+	
+	/**
+	 * Records a sample taken now.
+	 *
+	 * @param metric The name of the metric
+	 * @param value The value of the sample
+	 */
+	public void record(String metric, double value) {
+		getBuffer(metric).add(System.currentTimeMillis(), value);
+	}
+	
+	/**
+	 * @return The buffer of {@code metric}, which is created the first time it is asked for
+	 */
+	public SampleBuffer getBuffer(String metric) {
+		SampleBuffer buffer = buffers.get(metric);
+		if (buffer == null) {
+			// Counted once the buffer is in the map, so a reader that sees the new generation also sees the buffer
+			buffer = buffers.computeIfAbsent(metric, name -> new SampleBuffer(bufferSize));
+			generation.incrementAndGet();
+		}
+		return buffer;
+	}
+	
+	/**
+	 * @return The buffer of every metric recorded so far, by name
+	 */
+	public Map<String, SampleBuffer> getBuffers() {
+		return Collections.unmodifiableMap(buffers);
+	}
+	
+	/**
+	 * @return A number that changes each time a buffer is added or removed. Read it before
+	 * {@link #getBuffers()}.
+	 */
+	public long getGeneration() {
+		return generation.get();
+	}
+	
+	/**
+	 * Stops keeping {@code metric}, for example a table that is no longer large. Its unflushed samples are written
+	 * to the store first.
+	 */
+	public synchronized void remove(String metric) {
+		SampleBuffer buffer = buffers.remove(metric);
+		if (buffer == null) {
+			return;
+		}
+		generation.incrementAndGet();
+		
+		Samples samples = buffer.unflushed();
+		if (samples.size() > 0) {
+			try {
+				store.append(metric, samples);
+			} catch (IOException e) {
+				LOGGER.warn("Unable to flush " + samples.size() + " samples of " + metric, e);
+			}
+		}
+	}
+	
+	/**
+	 * Runs {@code task} every {@code period}, starting after {@code initialDelay}. A run that takes longer than the
+	 * period delays the next one; runs of one task never overlap.
+	 *
+	 * @param name The name of the task, used when it fails
+	 * @param initialDelay The time to wait before the first run
+	 * @param period The time between the start of each run
+	 * @param unit The unit of {@code initialDelay} and {@code period}
+	 * @param task The task
+	 */
+	public void schedule(String name, long initialDelay, long period, TimeUnit unit, Task task) {
+		LOGGER.info("Monitoring " + name + " every " + period + " " + unit.toString().toLowerCase());
+		scheduler.scheduleAtFixedRate(() -> {
+			try {
+				task.sample(this);
+			} catch (Exception e) {
+				LOGGER.warn("Unable to sample " + name, e);
+			}
+		}, initialDelay, period, unit);
+	}
+	
+	/**
+	 * Runs {@code task} each time the delay returned by {@code untilNext} has passed. The delay is asked for again
+	 * once a run has finished, so a task can keep to a time of day when a day is not 24 hours long.
+	 *
+	 * @param name The name of the task, used when it fails
+	 * @param untilNext The time to wait before the next run
+	 * @param task The task
+	 */
+	public void scheduleAt(String name, Supplier<Duration> untilNext, Task task) {
+		Duration delay = untilNext.get();
+		LOGGER.info("Running " + name + " in " + delay.toMinutes() + " minutes");
+		try {
+			scheduler.schedule(() -> {
+				try {
+					task.sample(this);
+				} catch (Exception e) {
+					LOGGER.warn("Unable to sample " + name, e);
+				} finally {
+					scheduleAt(name, untilNext, task);
+				}
+			}, delay.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// The monitor has been closed
+		}
+	}
+	
+	/**
+	 * Flushes every buffer to the store every {@code period}.
+	 */
+	public void scheduleFlush(long period, TimeUnit unit) {
+		scheduler.scheduleWithFixedDelay(this::flush, period, period, unit);
+	}
+	
+	/**
+	 * Writes the unflushed samples of every metric to the store. Samples that could not be written stay in their
+	 * buffer and are tried again by the next flush.
+	 */
+	public synchronized void flush() {
+		for (Map.Entry<String, SampleBuffer> buffer : buffers.entrySet()) {
+			Samples samples = buffer.getValue().unflushed();
+			if (samples.size() == 0) {
+				continue;
+			}
+			
+			try {
+				store.append(buffer.getKey(), samples);
+				buffer.getValue().markFlushed(samples);
+			} catch (IOException e) {
+				LOGGER.warn("Unable to flush " + samples.size() + " samples of " + buffer.getKey(), e);
+			}
+		}
+	}
+	
+	/**
+	 * Stops every task, then flushes the samples that are left and closes the store.
+	 */
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+		try {
+			if (!scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
+				LOGGER.warn("Monitor tasks are still running; flushing anyway.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		flush();
+		try {
+			store.close();
+		} catch (IOException e) {
+			LOGGER.warn("Unable to close the sample store", e);
+		}
+	}
+	
+	/**
+	 * A sampling task. It records its samples with {@link HealthMonitor#record(String, double)}.
+	 */
+	@FunctionalInterface
+	public interface Task {
+		
+		void sample(HealthMonitor monitor) throws Exception;
+		
+	}
+	
+	/**
+	 * Monitor threads are not daemon threads, so the tool keeps running until the monitor is closed.
+	 */
+	private static final class MonitorThreadFactory implements ThreadFactory {
+		
+		private final AtomicInteger count = new AtomicInteger();
+		
+		@Override
+		public Thread newThread(Runnable runnable) {
+			return new Thread(runnable, "health-monitor-" + count.incrementAndGet());
+		}
+		
+	}
+	
+}
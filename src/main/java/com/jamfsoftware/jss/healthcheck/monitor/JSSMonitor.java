@@ -0,0 +1,286 @@
+package com.jamfsoftware.jss.healthcheck.monitor;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.jamfsoftware.jss.healthcheck.HealthCheck;
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult;
+import com.jamfsoftware.jss.healthcheck.controller.ConfigurationSnapshot;
+import com.jamfsoftware.jss.healthcheck.controller.HTTPController;
+import com.jamfsoftware.jss.healthcheck.controller.LatencyHistogram;
+import com.jamfsoftware.jss.healthcheck.util.XMLStreamUtil;
+
+/**
+ * Monitors a JSS over time. Cheap values are sampled often, and the full, expensive health check is only run once
+ * a day. By default:
+ * <ul>
+ * <li>The length of the computer and mobile device command queues, every 30 seconds</li>
+ * <li>The status of healthCheck.html, every 10 seconds</li>
+ * <li>The memory of the tool, every minute</li>
+ * <li>A full health check, every night at 02:00. Its JSON report is kept next to the samples, and its device
+ * counts, database and table sizes, request latencies and the time each check took are recorded.</li>
+ * </ul>
+ * The schedules, the sample directory and the buffer sizes are set in the {@code monitor} element of config.xml.
+ * If it sets a {@code metrics_port}, the latest samples are also served to Prometheus by a {@link MetricsExporter}.
+ * The exporter only listens on the loopback address unless {@code metrics_bind} names another one, since anyone who
+ * can reach it can read the metrics.
+ *
+ * @since 1.0
+ */
+public class JSSMonitor implements AutoCloseable {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(JSSMonitor.class);
+	
+	private static final String CONFIG_PATH = "configurations,monitor";
+	private static final double MEGABYTE = 1024 * 1024;
+	
+	private final String url;
+	private final String username;
+	private final String password;
+	private final ConfigurationSnapshot config;
+	private final Path directory;
+	private final HTTPController api;
+	private final HealthMonitor monitor;
+	private final MetricsExporter exporter;
+	
+	/**
+	 * @param url The URL of the JSS
+	 * @param username The username to use when authenticating to the JSS
+	 * @param password The password to use when authenticating to the JSS
+	 * @param config The configuration to read the schedules from
+	 *
+	 * @throws IOException If the sample directory could not be created
+	 */
+	public JSSMonitor(String url, String username, String password, ConfigurationSnapshot config) throws IOException {
+		this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+		this.username = username;
+		this.password = password;
+		this.config = config;
+		this.directory = getDirectory(config);
+		this.api = new HTTPController(username, password, 2, config.getRateLimits().getTarget(this.url), config.getRetryPolicy(), config.getRequestTimeouts());
+		this.monitor = new HealthMonitor(openStore(config), config.getInt(CONFIG_PATH, "buffer_size", 2880), 3);
+		this.exporter = new MetricsExporter(monitor, api.getMetrics());
+		this.exporter.label("table_size_bytes", "table");
+		this.exporter.label("check_duration_seconds", "section");
+		this.exporter.label("full_check_api_latency_seconds", "quantile");
+	}
+	
+	/**
+	 * @return The directory the monitor keeps its samples and reports in
+	 */
+	public static Path getDirectory(ConfigurationSnapshot config) {
+		return Paths.get(config.getString(CONFIG_PATH, "directory", Paths.get(System.getProperty("user.home"), "HealthCheckMonitor").toString()));
+	}
+	
+	/**
+	 * Opens the sample store of the monitor.
+	 *
+	 * @throws IOException If the sample directory could not be created
+	 */
+	public static SegmentSampleStore openStore(ConfigurationSnapshot config) throws IOException {
+		return new SegmentSampleStore(getDirectory(config).resolve("samples"), config.getInt(CONFIG_PATH, "segment_records", SegmentSampleStore.DEFAULT_SEGMENT_RECORDS));
+	}
+	
+	/**
+	 * Schedules every task, and starts serving metrics if a port is set. The monitor runs until it is closed.
+	 *
+	 * @throws IOException If the metrics port can not be bound
+	 */
+	public void start() throws IOException {
+		InetSocketAddress address = getMetricsAddress(config);
+		if (address != null) {
+			exporter.start(address);
+		}
+		
+		LOGGER.info("Monitoring " + url + ", samples are written to " + directory);
+		monitor.schedule("the command queues", 0, seconds("command_queue_interval", 30), TimeUnit.SECONDS, this::sampleCommandQueues);
+		monitor.schedule("healthCheck.html", 0, seconds("health_status_interval", 10), TimeUnit.SECONDS, this::sampleHealthStatus);
+		monitor.schedule("the tool memory", 0, seconds("memory_interval", 60), TimeUnit.SECONDS, this::sampleMemory);
+		monitor.scheduleAt("the full health check", () -> untilNext(fullCheckTime(), ZonedDateTime.now()), this::runFullCheck);
+		monitor.scheduleFlush(seconds("flush_interval", 60), TimeUnit.SECONDS);
+	}
+	
+	/**
+	 * @return The address to serve metrics at, which is on the loopback address unless {@code metrics_bind} is set,
+	 * or {@code null} if no {@code metrics_port} is set
+	 */
+	static InetSocketAddress getMetricsAddress(ConfigurationSnapshot config) {
+		int port = config.getInt(CONFIG_PATH, "metrics_port", 0);
+		if (port <= 0) {
+			return null;
+		}
+		String bind = config.getString(CONFIG_PATH, "metrics_bind", null);
+		return bind == null ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port) : new InetSocketAddress(bind, port);
+	}
+	
+	public HealthMonitor getMonitor() {
+		return monitor;
+	}
+	
+	private long seconds(String key, int defaultValue) {
+		return Math.max(1, config.getInt(CONFIG_PATH, key, defaultValue));
+	}
+	
+	private LocalTime fullCheckTime() {
+		String time = config.getString(CONFIG_PATH, "full_check_time", "02:00");
+		try {
+			return LocalTime.parse(time);
+		} catch (DateTimeParseException e) {
+			LOGGER.warn("Unable to read the full check time " + time + ", using 02:00");
+			return LocalTime.of(2, 0);
+		}
+	}
+	
+	/**
+	 * @return The time from {@code now} until the next {@code time} of day in its time zone. Days that daylight saving
+	 * time makes longer or shorter are taken into account. A time less than a minute away is taken to be the one
+	 * that was just run, in case the run was started a little early, so the next day's is used.
+	 */
+	static Duration untilNext(LocalTime time, ZonedDateTime now) {
+		ZonedDateTime next = now.toLocalDate().atTime(time).atZone(now.getZone());
+		if (!next.isAfter(now.plusMinutes(1))) {
+			next = now.toLocalDate().plusDays(1).atTime(time).atZone(now.getZone());
+		}
+		return Duration.between(now, next);
+	}
+	
+	private void sampleCommandQueues(HealthMonitor monitor) throws Exception {
+		monitor.record("computercommands", api.doGet(url + "/JSSResource/computercommands", XMLStreamUtil::countListEntries));
+		monitor.record("mobiledevicecommands", api.doGet(url + "/JSSResource/mobiledevicecommands", XMLStreamUtil::countListEntries));
+	}
+	
+	/**
+	 * Records whether healthCheck.html answered, and how many errors it listed. An empty list means the JSS is
+	 * healthy.
+	 */
+	private void sampleHealthStatus(HealthMonitor monitor) throws Exception {
+		String status;
+		try {
+			status = api.doGet(url + "/healthCheck.html?username=" + HTTPController.encode(username) + "&password=" + HTTPController.encode(password));
+		} catch (Exception e) {
+			monitor.record("jss_available", 0);
+			throw e;
+		}
+		monitor.record("jss_available", 1);
+		
+		JsonElement errors = new JsonParser().parse(status);
+		monitor.record("healthcheck_errors", errors.isJsonArray() ? errors.getAsJsonArray().size() : 1);
+	}
+	
+	private void sampleMemory(HealthMonitor monitor) {
+		monitor.record("tool_free_memory", Runtime.getRuntime().freeMemory());
+		monitor.record("tool_total_memory", Runtime.getRuntime().totalMemory());
+	}
+	
+	private void runFullCheck(HealthMonitor monitor) throws IOException {
+		long start = System.nanoTime();
+		HealthCheck check;
+		try {
+			// A failed check is logged by the monitor and tried again the next night, rather than exiting
+			check = new HealthCheck(url, username, password, true, false);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		monitor.record("full_check_duration_seconds", (System.nanoTime() - start) / 1e9);
+		
+		HealthCheckResult result = check.getResult();
+		monitor.record("computers", result.getTotalComputers());
+		monitor.record("mobiledevices", result.getTotalMobileDevices());
+		monitor.record("users", result.getTotalUsers());
+		
+		// The summary reports sizes in megabytes
+		HealthCheckResult.SystemInfo system = result.getSystem();
+		monitor.record("database_size_bytes", system.getDatabaseSize() * MEGABYTE);
+		for (Map.Entry<String, Double> table : system.getLargeTables().entrySet()) {
+			monitor.record("table_size_bytes." + table.getKey(), table.getValue() * MEGABYTE);
+		}
+		removeStale(monitor, "table_size_bytes.", system.getLargeTables().keySet());
+		
+		for (Map.Entry<String, Long> timing : check.getCheckTimings().entrySet()) {
+			monitor.record("check_duration_seconds." + timing.getKey(), timing.getValue() / 1000.0);
+		}
+		removeStale(monitor, "check_duration_seconds.", check.getCheckTimings().keySet());
+		
+		LatencyHistogram latency = check.getHTTPMetrics().getLatency();
+		for (String quantile : new String[] { "0.5", "0.95", "0.99" }) {
+			if (latency.getCount() > 0) {
+				monitor.record("full_check_api_latency_seconds." + quantile, latency.getPercentile(Double.parseDouble(quantile)) / 1000);
+			}
+		}
+		
+		try (OutputStream out = Files.newOutputStream(directory.resolve("healthcheck_" + LocalDate.now() + ".json"))) {
+			check.writeJSON(out);
+		}
+	}
+	
+	/**
+	 * Removes the metrics named {@code prefix} and a key that the latest full check did not record, such as a table
+	 * that is no longer one of the large ones, so they are not exported with a value from an older night.
+	 */
+	static void removeStale(HealthMonitor monitor, String prefix, Set<String> recorded) {
+		List<String> stale = monitor.getBuffers()
+				.keySet()
+				.stream()
+				.filter(metric -> metric.startsWith(prefix) && !recorded.contains(metric.substring(prefix.length())))
+				.collect(Collectors.toList());
+		stale.forEach(monitor::remove);
+	}
+	
+	/**
+	 * Stops monitoring, and writes every sample that is left.
+	 */
+	@Override
+	public void close() {
+		exporter.close();
+		monitor.close();
+		api.close();
+	}
+	
+}
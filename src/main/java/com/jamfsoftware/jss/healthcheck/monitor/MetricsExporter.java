@@ -0,0 +1,283 @@
+package com.jamfsoftware.jss.healthcheck.monitor;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jamfsoftware.jss.healthcheck.controller.HTTPMetrics;
+import com.jamfsoftware.jss.healthcheck.controller.LatencyHistogram;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the latest value of every monitor metric at {@code /metrics}, in the Prometheus text format.
+ * <p>
+ * A scrape only reads the newest sample of each {@link SampleBuffer} and the latency totals of the monitor's
+ * {@link HTTPMetrics}; it never sends a request to the JSS. The names of the series are rendered once, and the
+ * exposition is written into a buffer that is reused by every scrape.
+ * <p>
+ * A metric named {@code base.value} is exported as {@code jss_base{label="value"}}, where the label is the one
+ * registered for {@code base} with {@link #label(String, String)}, or {@code name}.
+ *
+ * @since 1.0
+ */
+public class MetricsExporter implements AutoCloseable {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(MetricsExporter.class);
+	
+	private static final String PREFIX = "jss_";
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.95, 0.99 };
+	
+	private final HealthMonitor monitor;
+	private final HTTPMetrics http;
+	private final Map<String, String> labels = new ConcurrentHashMap<>();
+	
+	private final StringBuilder text = new StringBuilder(8192);
+	private byte[] bytes = new byte[8192];
+	private Series[] series = new Series[0];
+	private long generation = -1;
+	
+	private HttpServer server;
+	private ExecutorService executor;
+	
+	/**
+	 * @param monitor The monitor whose metrics are served
+	 * @param http The transfer totals of the requests the monitor sends
+	 */
+	public MetricsExporter(HealthMonitor monitor, HTTPMetrics http) {
+		this.monitor = monitor;
+		this.http = http;
+	}
+	
+	/**
+	 * Sets the name of the label that holds the part of a metric name after {@code base.}
+	 */
+	public void label(String base, String label) {
+		labels.put(base, sanitize(label));
+	}
+	
+	/**
+	 * Starts serving {@code /metrics}.
+	 *
+	 * @param address The address to listen on
+	 *
+	 * @throws IOException If the address can not be bound
+	 */
+	public void start(InetSocketAddress address) throws IOException {
+		executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "metrics-exporter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server = HttpServer.create(address, 0);
+		server.createContext("/metrics", this::handle);
+		server.setExecutor(executor);
+		server.start();
+		LOGGER.info("Serving metrics at http://" + address.getHostString() + ":" + server.getAddress().getPort() + "/metrics");
+	}
+	
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			
+			exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+			synchronized (this) {
+				int length = encode();
+				exchange.sendResponseHeaders(200, length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(bytes, 0, length);
+				}
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+	
+	/**
+	 * Renders the exposition into {@link #bytes}.
+	 *
+	 * @return The number of bytes written
+	 */
+	private int encode() {
+		text.setLength(0);
+		render(text);
+		if (bytes.length < text.length()) {
+			bytes = new byte[Math.max(text.length(), bytes.length * 2)];
+		}
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			bytes[i] = c < 0x80 ? (byte) c : (byte) '?';
+		}
+		return text.length();
+	}
+	
+	/**
+	 * Writes the exposition to {@code out}.
+	 */
+	synchronized void render(StringBuilder out) {
+		String family = null;
+		for (Series metric : currentSeries()) {
+			if (!metric.family.equals(family)) {
+				family = metric.family;
+				out.append("# TYPE ").append(family).append(" gauge\n");
+			}
+			out.append(metric.name).append(' ');
+			appendValue(out, metric.buffer.getLastValue());
+			out.append('\n');
+		}
+		
+		LatencyHistogram latency = http.getLatency();
+		String name = PREFIX + "api_request_duration_seconds";
+		out.append("# TYPE ").append(name).append(" summary\n");
+		for (double quantile : QUANTILES) {
+			double millis = latency.getPercentile(quantile);
+			out.append(name).append("{quantile=\"").append(quantile).append("\"} ");
+			appendValue(out, millis < 0 ? Double.NaN : millis / 1000);
+			out.append('\n');
+		}
+		out.append(name).append("_sum ");
+		appendValue(out, latency.getTotalSeconds());
+		out.append('\n').append(name).append("_count ").append(latency.getCount()).append('\n');
+		
+		name = PREFIX + "api_response_bytes_total";
+		out.append("# TYPE ").append(name).append(" counter\n");
+		out.append(name).append("{encoding=\"wire\"} ").append(http.getCompressedBytes()).append('\n');
+		out.append(name).append("{encoding=\"content\"} ").append(http.getUncompressedBytes()).append('\n');
+		
+		name = PREFIX + "api_throttled_requests_total";
+		out.append("# TYPE ").append(name).append(" counter\n");
+		out.append(name).append(' ').append(http.getThrottledRequests()).append('\n');
+		name = PREFIX + "api_throttled_seconds_total";
+		out.append("# TYPE ").append(name).append(" counter\n");
+		out.append(name).append(' ');
+		appendValue(out, http.getThrottledSeconds());
+		out.append('\n');
+		name = PREFIX + "api_retries_total";
+		out.append("# TYPE ").append(name).append(" counter\n");
+		out.append(name).append(' ').append(http.getRetries()).append('\n');
+		name = PREFIX + "api_circuit_rejections_total";
+		out.append("# TYPE ").append(name).append(" counter\n");
+		out.append(name).append(' ').append(http.getRejected()).append('\n');
+		name = PREFIX + "api_hedged_requests_total";
+		out.append("# TYPE ").append(name).append(" counter\n");
+		out.append(name).append(' ').append(http.getHedges()).append('\n');
+		name = PREFIX + "api_hedge_wins_total";
+		out.append("# TYPE ").append(name).append(" counter\n");
+		out.append(name).append(' ').append(http.getHedgeWins()).append('\n');
+	}
+	
+	/**
+	 * @return The series of every buffer, sorted so each family is together. The array is only rebuilt when a
+	 * metric has been added or removed.
+	 */
+	private Series[] currentSeries() {
+		long current = monitor.getGeneration();
+		if (current != generation) {
+			series = monitor.getBuffers()
+					.entrySet()
+					.stream()
+					.map(buffer -> new Series(buffer.getKey(), buffer.getValue()))
+					.sorted(Comparator.comparing((Series s) -> s.family).thenComparing(s -> s.name))
+					.toArray(Series[]::new);
+			generation = current;
+		}
+		return series;
+	}
+	
+	private static void appendValue(StringBuilder out, double value) {
+		if (Double.isInfinite(value)) {
+			out.append(value > 0 ? "+Inf" : "-Inf");
+		} else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			out.append((long) value);
+		} else {
+			out.append(value);
+		}
+	}
+	
+	/**
+	 * @return {@code name} with every character that is not allowed in a metric name replaced by an underscore
+	 */
+	static String sanitize(String name) {
+		StringBuilder sanitized = new StringBuilder(name.length());
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			boolean allowed = c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_' || c == ':' || i > 0 && c >= '0' && c <= '9';
+			sanitized.append(allowed ? c : '_');
+		}
+		return sanitized.toString();
+	}
+	
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+	
+	/**
+	 * Stops serving metrics.
+	 */
+	@Override
+	public void close() {
+		if (server != null) {
+			server.stop(0);
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * One exported series, with its name rendered ahead of time.
+	 */
+	private final class Series {
+		
+		private final String family;
+		private final String name;
+		private final SampleBuffer buffer;
+		
+		Series(String metric, SampleBuffer buffer) {
+			int dot = metric.indexOf('.');
+			String base = dot < 0 ? metric : metric.substring(0, dot);
+			this.family = PREFIX + sanitize(base);
+			this.name = dot < 0 ? family : family + "{" + labels.getOrDefault(base, "name") + "=\"" + escape(metric.substring(dot + 1)) + "\"}";
+			this.buffer = buffer;
+		}
+		
+	}
+	
+}
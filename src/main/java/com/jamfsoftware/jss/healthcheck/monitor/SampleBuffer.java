@@ -0,0 +1,164 @@
+package com.jamfsoftware.jss.healthcheck.monitor;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+/**
+ * A fixed-size ring buffer of the most recent samples of one metric.
+ * <p>
+ * Samples are kept in memory until they are flushed to a {@link SampleStore}. Flushing is done in two steps, so a
+ * failed write can be tried again: {@link #unflushed()} copies the samples that have not been written, and
+ * {@link #markFlushed(Samples)} releases them once they have. If a store falls so far behind that the buffer wraps,
+ * the oldest unflushed samples are overwritten and counted as dropped.
+ *
+ * @since 1.0
+ */
+public class SampleBuffer {
+	
+	private final long[] times;
+	private final double[] values;
+	
+	private long written;
+	private long flushed;
+	private long dropped;
+	
+	/**
+	 * @param capacity The number of samples to keep in memory
+	 */
+	public SampleBuffer(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+		}
+		this.times = new long[capacity];
+		this.values = new double[capacity];
+	}
+	
+	/**
+	 * Adds a sample, overwriting the oldest one if the buffer is full.
+	 *
+	 * @param time The time of the sample, in milliseconds since the epoch
+	 * @param value The value of the sample
+	 */
+	public synchronized void add(long time, double value) {
+		int index = (int) (written % times.length);
+		times[index] = time;
+		values[index] = value;
+		written++;
+	}
+	
+	/**
+	 * @return A copy of every sample still in the buffer, oldest first
+	 */
+	public synchronized Samples latest() {
+		return copy(Math.max(0, written - times.length), written);
+	}
+	
+	/**
+	 * @return The value of the newest sample, or {@code NaN} if nothing has been added
+	 */
+	public synchronized double getLastValue() {
+		return written == 0 ? Double.NaN : values[(int) ((written - 1) % values.length)];
+	}
+	
+	/**
+	 * @return A copy of the samples that have not been flushed, oldest first
+	 */
+	public synchronized Samples unflushed() {
+		long first = Math.max(flushed, written - times.length);
+		dropped += first - flushed;
+		flushed = first;
+		return copy(first, written);
+	}
+	
+	/**
+	 * Releases samples that have been written to a store.
+	 *
+	 * @param samples Samples returned by {@link #unflushed()}
+	 */
+	public synchronized void markFlushed(Samples samples) {
+		flushed = Math.max(flushed, samples.end);
+	}
+	
+	/**
+	 * @return The number of samples overwritten before they could be flushed
+	 */
+	public synchronized long getDropped() {
+		return dropped;
+	}
+	
+	/**
+	 * @return The number of samples ever added
+	 */
+	public synchronized long getCount() {
+		return written;
+	}
+	
+	public int getCapacity() {
+		return times.length;
+	}
+	
+	private Samples copy(long from, long to) {
+		int size = (int) (to - from);
+		long[] t = new long[size];
+		double[] v = new double[size];
+		for (int i = 0; i < size; i++) {
+			int index = (int) ((from + i) % times.length);
+			t[i] = times[index];
+			v[i] = values[index];
+		}
+		return new Samples(t, v, to);
+	}
+	
+	/**
+	 * An immutable copy of consecutive samples.
+	 */
+	public static final class Samples {
+		
+		private final long[] times;
+		private final double[] values;
+		private final long end;
+		
+		Samples(long[] times, double[] values, long end) {
+			this.times = times;
+			this.values = values;
+			this.end = end;
+		}
+		
+		public int size() {
+			return times.length;
+		}
+		
+		public long getTime(int index) {
+			return times[index];
+		}
+		
+		public double getValue(int index) {
+			return values[index];
+		}
+		
+	}
+	
+}
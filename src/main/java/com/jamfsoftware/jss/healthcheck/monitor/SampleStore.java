@@ -0,0 +1,52 @@
+package com.jamfsoftware.jss.healthcheck.monitor;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import com.jamfsoftware.jss.healthcheck.monitor.SampleBuffer.Samples;
+
+/**
+ * Durable storage for monitor samples. A {@link HealthMonitor} hands each metric's new samples to its store in
+ * batches.
+ *
+ * @since 1.0
+ */
+public interface SampleStore extends Closeable {
+	
+	/**
+	 * Writes a batch of samples. The batch is kept in memory and tried again if this throws.
+	 *
+	 * @param metric The name of the metric
+	 * @param samples The samples to write, oldest first
+	 *
+	 * @throws IOException If the samples could not be written
+	 */
+	void append(String metric, Samples samples) throws IOException;
+	
+}
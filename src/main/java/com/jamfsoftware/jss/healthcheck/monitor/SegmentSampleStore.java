@@ -0,0 +1,369 @@
+package com.jamfsoftware.jss.healthcheck.monitor;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jamfsoftware.jss.healthcheck.monitor.SampleBuffer.Samples;
+
+/**
+ * Stores the samples of each metric in append-only binary segment files, which are read and written through a
+ * {@link MappedByteBuffer}.
+ * <p>
+ * Each metric has a directory of segments. A segment is a fixed-size file: a header, followed by records of a
+ * {@code long} time and a {@code double} value. The header holds the number of records written, which is updated
+ * after each batch. When a segment is full, a new one is started; it is named after the time of its first sample.
+ * <p>
+ * The start times of the segments form a sparse index of the samples. A range query finds its first segment in
+ * that index, and its first record with a binary search of the segment, so reading a day out of a year of samples
+ * does not read the rest of the year. Times are kept in order: a sample older than the one before it is stored with
+ * the time of the one before it.
+ *
+ * @since 1.0
+ */
+public class SegmentSampleStore implements SampleStore {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(SegmentSampleStore.class);
+	
+	/**
+	 * The number of records in a segment, unless another is configured. A segment of this size is 1 MB.
+	 */
+	public static final int DEFAULT_SEGMENT_RECORDS = 65536;
+	
+	private static final int MAGIC = 0x4A53534D;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+	private static final int COUNT_OFFSET = 16;
+	private static final int RECORD_SIZE = 16;
+	private static final String EXTENSION = ".seg";
+	
+	private final Path directory;
+	private final int segmentRecords;
+	private final Map<String, Series> series = new ConcurrentHashMap<>();
+	
+	/**
+	 * @param directory The directory to hold the segments. It is created if it does not exist.
+	 * @param segmentRecords The number of records in each new segment
+	 *
+	 * @throws IOException If the directory could not be created
+	 */
+	public SegmentSampleStore(Path directory, int segmentRecords) throws IOException {
+		if (segmentRecords < 1) {
+			throw new IllegalArgumentException("A segment must hold at least one record: " + segmentRecords);
+		}
+		this.directory = Files.createDirectories(directory);
+		this.segmentRecords = segmentRecords;
+	}
+	
+	@Override
+	public void append(String metric, Samples samples) throws IOException {
+		if (samples.size() > 0) {
+			series(metric).append(samples);
+		}
+	}
+	
+	/**
+	 * Reads the samples of a metric in a range of time.
+	 *
+	 * @param metric The name of the metric
+	 * @param from The earliest time to read, in milliseconds since the epoch
+	 * @param to The latest time to read, in milliseconds since the epoch
+	 *
+	 * @return The samples with a time from {@code from} through {@code to}, oldest first
+	 *
+	 * @throws IOException If a segment could not be read
+	 */
+	public Samples read(String metric, long from, long to) throws IOException {
+		return series(metric).read(from, to);
+	}
+	
+	/**
+	 * @return The names of every metric with a directory in the store
+	 *
+	 * @throws IOException If the directory could not be listed
+	 */
+	public Set<String> getMetrics() throws IOException {
+		Set<String> metrics = new TreeSet<>();
+		try (DirectoryStream<Path> children = Files.newDirectoryStream(directory, Files::isDirectory)) {
+			for (Path child : children) {
+				metrics.add(child.getFileName().toString());
+			}
+		}
+		return metrics;
+	}
+	
+	private Series series(String metric) throws IOException {
+		Series existing = series.get(metric);
+		if (existing != null) {
+			return existing;
+		}
+		
+		synchronized (series) {
+			existing = series.get(metric);
+			if (existing == null) {
+				existing = new Series(directory.resolve(metric.replaceAll("[^A-Za-z0-9_.-]", "_")));
+				series.put(metric, existing);
+			}
+			return existing;
+		}
+	}
+	
+	/**
+	 * Writes the open segments to disk.
+	 */
+	@Override
+	public void close() {
+		for (Series metric : series.values()) {
+			metric.force();
+		}
+	}
+	
+	/**
+	 * The segments of one metric.
+	 */
+	private final class Series {
+		
+		private final Path directory;
+		private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+		private long lastTime = Long.MIN_VALUE;
+		
+		Series(Path directory) throws IOException {
+			this.directory = Files.createDirectories(directory);
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+				for (Path file : files) {
+					try {
+						Segment segment = Segment.open(file);
+						segments.put(segment.firstTime, segment);
+					} catch (IOException | RuntimeException e) {
+						LOGGER.warn("Skipping the unreadable segment " + file, e);
+					}
+				}
+			}
+			
+			if (!segments.isEmpty()) {
+				Segment last = segments.lastEntry().getValue();
+				lastTime = last.count > 0 ? last.time(last.count - 1) : last.firstTime;
+			}
+		}
+		
+		synchronized void append(Samples samples) throws IOException {
+			Segment active = segments.isEmpty() ? null : segments.lastEntry().getValue();
+			try {
+				for (int i = 0; i < samples.size(); i++) {
+					long time = Math.max(samples.getTime(i), lastTime);
+					if (active == null || active.isFull()) {
+						if (active != null) {
+							active.commit();
+						}
+						//Segments are keyed by their first time, so one that starts in the same millisecond as the last takes the next one.
+						long key = segments.isEmpty() ? time : Math.max(time, segments.lastKey() + 1);
+						active = Segment.create(directory.resolve(String.format("%019d", key) + EXTENSION), key, segmentRecords);
+						segments.put(active.firstTime, active);
+					}
+					active.append(time, samples.getValue(i));
+					lastTime = time;
+				}
+			} finally {
+				if (active != null) {
+					active.commit();
+				}
+			}
+		}
+		
+		synchronized Samples read(long from, long to) throws IOException {
+			if (segments.isEmpty() || from > to) {
+				return new Samples(new long[0], new double[0], 0);
+			}
+			
+			//Samples at the start of the range may also end the segment before the one the range starts in.
+			Long first = segments.lowerKey(from);
+			List<Segment> range = new ArrayList<>();
+			for (Segment segment : segments.tailMap(first == null ? segments.firstKey() : first, true).values()) {
+				if (segment.count > 0 && segment.time(0) > to) {
+					break;
+				}
+				range.add(segment);
+			}
+			
+			//Find the records of each segment first, so the result is only allocated once.
+			int size = 0;
+			int[][] bounds = new int[range.size()][];
+			int index = 0;
+			for (Segment segment : range) {
+				int start = segment.search(from);
+				int end = segment.search(to == Long.MAX_VALUE ? to : to + 1);
+				bounds[index++] = new int[] { start, end };
+				size += end - start;
+			}
+			
+			long[] times = new long[size];
+			double[] values = new double[size];
+			int position = 0;
+			index = 0;
+			for (Segment segment : range) {
+				for (int record = bounds[index][0]; record < bounds[index][1]; record++) {
+					times[position] = segment.time(record);
+					values[position++] = segment.value(record);
+				}
+				index++;
+			}
+			return new Samples(times, values, size);
+		}
+		
+		synchronized void force() {
+			if (!segments.isEmpty()) {
+				segments.lastEntry().getValue().force();
+			}
+		}
+		
+	}
+	
+	/**
+	 * One segment file.
+	 */
+	private static final class Segment {
+		
+		private final long firstTime;
+		private final int capacity;
+		private final MappedByteBuffer buffer;
+		private int count;
+		
+		private Segment(long firstTime, int capacity, int count, MappedByteBuffer buffer) {
+			this.firstTime = firstTime;
+			this.capacity = capacity;
+			this.count = count;
+			this.buffer = buffer;
+		}
+		
+		static Segment create(Path file, long firstTime, int capacity) throws IOException {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+				buffer.putInt(0, MAGIC);
+				buffer.putInt(4, VERSION);
+				buffer.putInt(8, capacity);
+				buffer.putLong(COUNT_OFFSET, 0);
+				buffer.putLong(24, firstTime);
+				return new Segment(firstTime, capacity, 0, buffer);
+			}
+		}
+		
+		/**
+		 * Maps an existing segment. Only a segment with room left is mapped for writing.
+		 */
+		static Segment open(Path file) throws IOException {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				while (header.hasRemaining() && channel.read(header) >= 0) {
+					//Keep reading until the header is full, or the file ends.
+				}
+				if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+					throw new IOException("Not a sample segment");
+				}
+				
+				int capacity = header.getInt(8);
+				int count = (int) Math.min(header.getLong(COUNT_OFFSET), capacity);
+				long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+				if (channel.size() < size) {
+					throw new IOException("The segment is truncated");
+				}
+				FileChannel.MapMode mode = count < capacity ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+				return new Segment(header.getLong(24), capacity, count, channel.map(mode, 0, size));
+			}
+		}
+		
+		boolean isFull() {
+			return count >= capacity;
+		}
+		
+		void append(long time, double value) {
+			int offset = HEADER_SIZE + count * RECORD_SIZE;
+			buffer.putLong(offset, time);
+			buffer.putDouble(offset + 8, value);
+			count++;
+		}
+		
+		/**
+		 * Publishes the records appended so far by writing their count to the header.
+		 */
+		void commit() {
+			if (!buffer.isReadOnly()) {
+				buffer.putLong(COUNT_OFFSET, count);
+			}
+		}
+		
+		void force() {
+			if (!buffer.isReadOnly()) {
+				buffer.force();
+			}
+		}
+		
+		long time(int record) {
+			return buffer.getLong(HEADER_SIZE + record * RECORD_SIZE);
+		}
+		
+		double value(int record) {
+			return buffer.getDouble(HEADER_SIZE + record * RECORD_SIZE + 8);
+		}
+		
+		/**
+		 * @return The index of the first record at or after {@code time}, or the number of records if there is none
+		 */
+		int search(long time) {
+			int low = 0;
+			int high = count;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (time(middle) < time) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+		
+	}
+	
+}
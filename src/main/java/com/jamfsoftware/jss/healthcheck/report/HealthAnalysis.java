@@ -0,0 +1,264 @@
+package com.jamfsoftware.jss.healthcheck.report;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult;
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult.SystemInfo;
+import com.jamfsoftware.jss.healthcheck.controller.CapacityModel.Recommendation;
+import com.jamfsoftware.jss.healthcheck.controller.ConfigurationSnapshot;
+import com.jamfsoftware.jss.healthcheck.ui.generator.PanelIconGenerator;
+
+/**
+ * Evaluates a {@link HealthCheckResult} against the thresholds in config.xml, and decides which parts of the JSS
+ * need attention. Every report is rendered from one analysis, which uses no AWT or Swing classes, so a headless run
+ * never loads them.
+ *
+ * @since 1.0
+ */
+public final class HealthAnalysis {
+	
+	private final boolean showSystemInfo;
+	private final Recommendation capacity;
+	private final int passwordStrength;
+	private final String passwordStrengthDescription;
+	
+	private String systemInfoIcon;
+	private String databaseIcon;
+	private final String environmentIcon;
+	private final String groupIcon;
+	private final String policiesScriptsIcon;
+	
+	private final boolean showGroupsHelp;
+	private boolean showLargeDatabase;
+	private final boolean showScalability;
+	private final boolean showPolicies;
+	private final boolean showExtensionAttributes;
+	private final boolean showSystemRequirements;
+	private final boolean showCheckinFreq;
+	private final boolean showPrinters;
+	private final boolean showScripts;
+	private final boolean strongerPassword;
+	private final boolean loginInOutHooks;
+	private final boolean showChange;
+	private final boolean isCloudJSS;
+	private final boolean deviceRowCountsAvailable;
+	private final boolean mobileDeviceTableCountMismatch;
+	private final boolean computerDeviceTableCountMismatch;
+	private final boolean mysqlOSXVersionBug;
+	
+	public HealthAnalysis(HealthCheckResult result) {
+		SystemInfo system = result.getSystem();
+		PanelIconGenerator iconGen = new PanelIconGenerator();
+		int totalDevices = result.getTotalComputers() + result.getTotalMobileDevices();
+		this.capacity = ConfigurationSnapshot.current().getCapacityModel().evaluate(totalDevices);
+		
+		//Don't check the server if it is hosted.
+		this.isCloudJSS = system.isCloudJSS();
+		this.showSystemInfo = !isCloudJSS;
+		if (showSystemInfo) {
+			this.systemInfoIcon = iconGen.getSystemInfoIconType(capacity, String.valueOf(system.getJavaVersion()), system.getMaxMemory());
+			this.databaseIcon = iconGen.getDatabaseInfoIconType(capacity, system.getDatabaseSize(), system.getLargeTables().size());
+			this.showLargeDatabase = !databaseIcon.equals("green");
+		}
+		
+		int strength = 0;
+		for (boolean requirement : new boolean[] { result.isPasswordRequiresUppercase(), result.isPasswordRequiresLowercase(), result.isPasswordRequiresNumber(), result.isPasswordRequiresSpecialCharacters() }) {
+			if (requirement) {
+				strength++;
+			}
+		}
+		this.passwordStrength = strength;
+		if (strength == 4) {
+			this.passwordStrengthDescription = "Excellent";
+		} else if (strength == 3 || strength == 2) {
+			this.passwordStrengthDescription = "Good";
+		} else if (strength == 1) {
+			this.passwordStrengthDescription = "Poor";
+		} else {
+			this.passwordStrengthDescription = "Needs Updating";
+		}
+		this.strongerPassword = strength < 2;
+		
+		this.loginInOutHooks = Boolean.FALSE.equals(result.isLoginLogoutHooksEnabled());
+		this.showChange = Boolean.FALSE.equals(result.isChangeManagementEnabled());
+		
+		this.deviceRowCountsAvailable = result.getComputersRowCount() >= 0;
+		this.computerDeviceTableCountMismatch = deviceRowCountsAvailable && result.getComputersRowCount() != result.getComputersDenormalizedRowCount();
+		this.mobileDeviceTableCountMismatch = deviceRowCountsAvailable && result.getMobileDevicesRowCount() != result.getMobileDevicesDenormalizedRowCount();
+		
+		this.mysqlOSXVersionBug = contains(system.getMySQLVersion(), "5.6.16", "5.6.20") && contains(system.getOS(), "OS X", "Mac", "OSX");
+		
+		this.environmentIcon = iconGen.getJSSEnvIconType(capacity, result.getCheckInFrequency(), result.getComputerExtensionAttributeCount(), result.getMobileDeviceExtensionAttributeCount());
+		
+		this.groupIcon = iconGen.getGroupIconType("groups", result.getComputerGroups().size() + result.getMobileDeviceGroups().size() + result.getUserGroups().size());
+		this.showGroupsHelp = groupIcon.equals("yellow") || groupIcon.equals("red");
+		
+		this.policiesScriptsIcon = iconGen.getPoliciesAndScriptsIconType(result.getPoliciesWithIssues().size(), result.getScriptsNeedingUpdate().size());
+		this.showPolicies = !result.getPoliciesWithIssues().isEmpty();
+		this.showScripts = !result.getScriptsNeedingUpdate().isEmpty();
+		this.showPrinters = !result.getPrinterWarnings().isEmpty();
+		
+		this.showCheckinFreq = iconGen.showCheckinFreq;
+		this.showExtensionAttributes = iconGen.showExtensionAttributes;
+		this.showSystemRequirements = iconGen.showSystemRequirements;
+		this.showScalability = iconGen.showScalability;
+	}
+	
+	private static boolean contains(String value, String... texts) {
+		if (value != null) {
+			for (String text : texts) {
+				if (value.contains(text)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @return The server size recommended by the capacity model for the number of devices in the JSS
+	 */
+	public Recommendation getCapacity() {
+		return capacity;
+	}
+	
+	/**
+	 * @return {@code false} if the JSS is hosted, and its server can not be checked
+	 */
+	public boolean isShowSystemInfo() {
+		return showSystemInfo;
+	}
+	
+	/**
+	 * @return The number of password requirements the JSS login enforces, from 0 to 4
+	 */
+	public int getPasswordStrength() {
+		return passwordStrength;
+	}
+	
+	public String getPasswordStrengthDescription() {
+		return passwordStrengthDescription;
+	}
+	
+	/**
+	 * @return The icon of the System Info panel, or {@code null} if it is not shown
+	 */
+	public String getSystemInfoIcon() {
+		return systemInfoIcon;
+	}
+	
+	/**
+	 * @return The icon of the Database Health panel, or {@code null} if it is not shown
+	 */
+	public String getDatabaseIcon() {
+		return databaseIcon;
+	}
+	
+	public String getEnvironmentIcon() {
+		return environmentIcon;
+	}
+	
+	public String getGroupIcon() {
+		return groupIcon;
+	}
+	
+	public String getPoliciesScriptsIcon() {
+		return policiesScriptsIcon;
+	}
+	
+	public boolean isShowGroupsHelp() {
+		return showGroupsHelp;
+	}
+	
+	public boolean isShowLargeDatabase() {
+		return showLargeDatabase;
+	}
+	
+	public boolean isShowScalability() {
+		return showScalability;
+	}
+	
+	public boolean isShowPolicies() {
+		return showPolicies;
+	}
+	
+	public boolean isShowExtensionAttributes() {
+		return showExtensionAttributes;
+	}
+	
+	public boolean isShowSystemRequirements() {
+		return showSystemRequirements;
+	}
+	
+	public boolean isShowCheckinFreq() {
+		return showCheckinFreq;
+	}
+	
+	public boolean isShowPrinters() {
+		return showPrinters;
+	}
+	
+	public boolean isShowScripts() {
+		return showScripts;
+	}
+	
+	public boolean isStrongerPassword() {
+		return strongerPassword;
+	}
+	
+	public boolean isLoginInOutHooks() {
+		return loginInOutHooks;
+	}
+	
+	public boolean isShowChange() {
+		return showChange;
+	}
+	
+	public boolean isCloudJSS() {
+		return isCloudJSS;
+	}
+	
+	/**
+	 * @return {@code false} if the device table row counts could not be read from the JSS Summary
+	 */
+	public boolean isDeviceRowCountsAvailable() {
+		return deviceRowCountsAvailable;
+	}
+	
+	public boolean isMobileDeviceTableCountMismatch() {
+		return mobileDeviceTableCountMismatch;
+	}
+	
+	public boolean isComputerDeviceTableCountMismatch() {
+		return computerDeviceTableCountMismatch;
+	}
+	
+	public boolean isMysqlOSXVersionBug() {
+		return mysqlOSXVersionBug;
+	}
+	
+}
@@ -38,22 +38,18 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult;
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult.SystemInfo;
 import com.jamfsoftware.jss.healthcheck.report.HealthReport;
 import com.jamfsoftware.jss.healthcheck.ui.UserPrompt;
 import com.jamfsoftware.jss.healthcheck.ui.generator.PanelGenerator;
-import com.jamfsoftware.jss.healthcheck.ui.generator.PanelIconGenerator;
 import com.jamfsoftware.jss.healthcheck.util.EnvironmentUtil;
 import com.jamfsoftware.jss.healthcheck.util.StringConstants;
 
 /**
  * HealthReportAWT.java, Written December 2015, Jacob Schultz
  * Large, Messy class to generate a Health Report GUI.
- * This class reads from the Health Check JSON and generates JPanels.
+ * This class reads from the Health Check results and generates JPanels.
  * JPanels are nested and configured to build a somewhat appealing interface.
  * TODO: Refactor panel generation methods for better code re-usability.
  */
@@ -61,39 +57,46 @@ public class HealthReportAWT extends HealthReport {
 	
 	private static final Logger LOGGER = LoggerFactory.getLogger(HealthReportAWT.class);
 	
-	public HealthReportAWT(String json) {
-		super(json);
-		new HealthReportPanel(json);
+	public HealthReportAWT(HealthCheckResult result) {
+		super(result);
+		new HealthReportPanel(result);
+	}
+	
+	/**
+	 * Copies the findings of the analysis into the panel generator, which uses them to build the help panel.
+	 */
+	private void updatePanelGenVariables(PanelGenerator pGen) {
+		pGen.jssUrl = result.getJSSUrl();
+		pGen.showGroupsHelp = analysis.isShowGroupsHelp();
+		pGen.showLargeDatabase = analysis.isShowLargeDatabase();
+		pGen.showScalability = analysis.isShowScalability();
+		pGen.showPolicies = analysis.isShowPolicies();
+		pGen.showExtensionAttributes = analysis.isShowExtensionAttributes();
+		pGen.showSystemRequirements = analysis.isShowSystemRequirements();
+		pGen.showCheckinFreq = analysis.isShowCheckinFreq();
+		pGen.showPrinters = analysis.isShowPrinters();
+		pGen.showScripts = analysis.isShowScripts();
+		pGen.strongerPassword = analysis.isStrongerPassword();
+		pGen.loginInOutHooks = analysis.isLoginInOutHooks();
+		pGen.showChange = analysis.isShowChange();
+		pGen.isCloudJSS = analysis.isCloudJSS();
+		pGen.mobileDeviceTableCountMismatch = analysis.isMobileDeviceTableCountMismatch();
+		pGen.computerDeviceTableCountMismatch = analysis.isComputerDeviceTableCountMismatch();
+		pGen.mysqlOSXVersionBug = analysis.isMysqlOSXVersionBug();
 	}
 	
 	private class HealthReportPanel {
 		
 		/**
-		 * Creates a new Health Report JPanel window from the Health Check JSON string.
-		 * Will throw errors if the JSON is not formatted correctly.
+		 * Creates a new Health Report JPanel window from the Health Check results.
 		 */
-		public HealthReportPanel(final String json) {
-			LOGGER.debug("[DEBUG] - JSON String (Copy entire below line)");
-			LOGGER.debug(json.replace("\n", ""));
-			LOGGER.debug("Attempting to parse Health Report JSON");
-			
-			JsonElement report = new JsonParser().parse(json);
-			JsonObject healthcheck = ((JsonObject) report).get("healthcheck").getAsJsonObject();
-			Boolean show_system_info = true;
-			JsonObject system;
-			//Check if the check JSON contains system information and show/hide panels accordingly later.
-			system = healthcheck.get("system").getAsJsonObject();
+		public HealthReportPanel(final HealthCheckResult result) {
+			LOGGER.debug("Building Health Report for " + result.getJSSUrl());
 			
-			final JsonObject data = healthcheck.get("checkdata").getAsJsonObject();
+			//Check if the check contains system information and show/hide panels accordingly later.
+			boolean show_system_info = analysis.isShowSystemInfo();
+			SystemInfo system = result.getSystem();
 			
-			HealthReportAWT.this.jssUrl = extractData(healthcheck, "jss_url");
-			
-			if (extractData(system, "iscloudjss").contains("true")) {
-				show_system_info = false;
-				isCloudJSS = true;
-			}
-			
-			PanelIconGenerator iconGen = new PanelIconGenerator();
 			PanelGenerator panelGen = new PanelGenerator();
 			
 			//Top Level Frame
@@ -111,13 +114,24 @@ public class HealthReportAWT extends HealthReport {
 			blankRight.setMinimumSize(new Dimension(100, 100));
 			//Header
 			JPanel header = new JPanel();
-			header.add(new JLabel("Total Computers: " + extractData(healthcheck, "totalcomputers")));
-			header.add(new JLabel("Total Mobile Devices: " + extractData(healthcheck, "totalmobile")));
-			header.add(new JLabel("Total Users: " + extractData(healthcheck, "totalusers")));
-			int total_devices = Integer.parseInt(extractData(healthcheck, "totalcomputers")) + Integer.parseInt(extractData(healthcheck, "totalmobile"));
+			header.add(new JLabel("Total Computers: " + display(result.getTotalComputers())));
+			header.add(new JLabel("Total Mobile Devices: " + display(result.getTotalMobileDevices())));
+			header.add(new JLabel("Total Users: " + display(result.getTotalUsers())));
 			SimpleDateFormat df = new SimpleDateFormat("dd/MM/yy HH:mm:ss");
 			Date dateobj = new Date();
 			header.add(new JLabel("JSS Health Check Report Performed On " + df.format(dateobj)));
+			String timedOut = timedOutSections();
+			if (timedOut != null) {
+				JLabel timed_out = new JLabel("Ran out of time, incomplete: " + timedOut);
+				timed_out.setForeground(Color.RED);
+				header.add(timed_out);
+			}
+			String incomplete = incompleteSections();
+			if (incomplete != null) {
+				JLabel incomplete_sections = new JLabel("Records missing, may understate issues: " + incomplete);
+				incomplete_sections.setForeground(Color.RED);
+				header.add(incomplete_sections);
+			}
 			//Foooter
 			JPanel footer = new JPanel();
 			JButton view_report_json = new JButton("View Report JSON");
@@ -146,140 +160,88 @@ public class HealthReportAWT extends HealthReport {
 			JPanel system_info = null;
 			JPanel database_health = null;
 			if (show_system_info) {
-				//Read all of the System information variables from the JSON and perform number conversions.
+				//Read all of the System information variables and perform number conversions.
 				String[][] sys_info = {
-						{ "Operating System", extractData(system, "os") },
-						{ "Java Version", extractData(system, "javaversion") },
-						{ "Java Vendor", extractData(system, "javavendor") },
-						{ "Processor Cores", extractData(system, "proc_cores") },
-						{ "Is Clustered?", extractData(system, "clustering") },
-						{ "Web App Directory", extractData(system, "webapp_dir") },
-						{ "Free Memory", Double.toString(round((Double.parseDouble(extractData(system, "free_memory")) / 1000000000), 2)) + " GB" },
-						{ "Max Memory", Double.toString(round((Double.parseDouble(extractData(system, "max_memory")) / 1000000000), 2)) + " GB" },
-						{ "Memory currently in use", Double.toString(round((Double.parseDouble(extractData(system, "memory_currently_in_use")) / 1000000000), 2)) + " GB" },
-						{ "Total space", Double.toString(round((Double.parseDouble(extractData(system, "total_space")) / 1000000000), 2)) + " GB" },
-						{ "Free Space", Double.toString(round((Double.parseDouble(extractData(system, "usable_space")) / 1000000000), 2)) + " GB" }
+						{ "Operating System", display(system.getOS()) },
+						{ "Java Version", display(system.getJavaVersion()) },
+						{ "Java Vendor", display(system.getJavaVendor()) },
+						{ "Processor Cores", display(system.getProcCores()) },
+						{ "Is Clustered?", display(system.getClustering()) },
+						{ "Web App Directory", display(system.getWebAppDir()) },
+						{ "Free Memory", Double.toString(round(system.getFreeMemory() / 1000000000.0, 2)) + " GB" },
+						{ "Max Memory", Double.toString(round(system.getMaxMemory() / 1000000000.0, 2)) + " GB" },
+						{ "Memory currently in use", Double.toString(round(system.getMemoryInUse() / 1000000000.0, 2)) + " GB" },
+						{ "Total space", Double.toString(round(system.getTotalSpace() / 1000000000.0, 2)) + " GB" },
+						{ "Free Space", Double.toString(round(system.getUsableSpace() / 1000000000.0, 2)) + " GB" }
 				};
 				
+				//Add the server size recommended for the number of devices.
+				String[][] capacity = capacityRows();
+				if (capacity.length > 0) {
+					String[][] capacity_header = { { "Recommended for " + analysis.getCapacity().getDevices() + " devices", "" } };
+					sys_info = ArrayUtils.addAll(sys_info, ArrayUtils.addAll(capacity_header, capacity));
+				}
+				
+				//Add the API concurrency the JSS tolerated during the check.
+				String[][] concurrency = concurrencyRows();
+				if (concurrency.length > 0) {
+					String[][] concurrency_header = { { "API Concurrency Tolerated", "" } };
+					sys_info = ArrayUtils.addAll(sys_info, ArrayUtils.addAll(concurrency_header, concurrency));
+				}
+				String hedging = hedgingSummary();
+				if (hedging != null) {
+					sys_info = ArrayUtils.add(sys_info, new String[] { "API Requests Hedged", hedging });
+				}
+				
 				//Generate the system info panel.
-				String systemInfoIcon = iconGen.getSystemInfoIconType(Integer.parseInt(extractData(healthcheck, "totalcomputers")) + Integer.parseInt(extractData(healthcheck, "totalmobile")), extractData(system, "javaversion"), Double.parseDouble(extractData(system, "max_memory")));
-				system_info = panelGen.generateContentPanelSystem("System Info", sys_info, "JSS Minimum Requirements", "http://www.jamfsoftware.com/resources/casper-suite-system-requirements/", systemInfoIcon);
+				system_info = panelGen.generateContentPanelSystem("System Info", sys_info, "JSS Minimum Requirements", "http://www.jamfsoftware.com/resources/casper-suite-system-requirements/", analysis.getSystemInfoIcon());
 				
 				//Get all of the DB information.
-				String[][] db_health = { { "Database Size", extractData(system, "database_size") + " MB" } };
-				if (extractData(system, "database_size").equals("0")) {
+				String[][] db_health = { { "Database Size", system.getDatabaseSize() + " MB" } };
+				if (system.getDatabaseSize() == 0) {
 					db_health[0][0] = "Unable to connect to database.";
 				}
 				
-				String[][] large_sql_tables = extractArrayData(system, "largeSQLtables", "table_name", "table_size");
+				String[][] large_sql_tables = rows(system.getLargeTables().entrySet(), table -> new String[] { table.getKey(), table.getValue() + " MB" });
 				String[][] db_health_for_display = ArrayUtils.addAll(db_health, large_sql_tables);
 				//Generate the DB Health panel.
-				String databaseIconType = iconGen.getDatabaseInfoIconType(total_devices, Double.parseDouble(extractData(system, "database_size")), extractArrayData(system, "largeSQLtables", "table_name", "table_size").length);
-				database_health = panelGen.generateContentPanelSystem("Database Health", db_health_for_display, "Too Large SQL Tables", "https://google.com", databaseIconType);
-				if (!databaseIconType.equals("green")) {
-					HealthReportAWT.this.showLargeDatabase = true;
-				}
-			}
-			
-			int password_strenth = 0;
-			if (extractData(data, "password_strength", "uppercase?").contains("true")) {
-				password_strenth++;
-			}
-			if (extractData(data, "password_strength", "lowercase?").contains("true")) {
-				password_strenth++;
-			}
-			if (extractData(data, "password_strength", "number?").contains("true")) {
-				password_strenth++;
-			}
-			if (extractData(data, "password_strength", "spec_chars?").contains("true")) {
-				password_strenth++;
-			}
-			String password_strength_desc;
-			if (password_strenth == 4) {
-				password_strength_desc = "Excellent";
-			} else if (password_strenth == 3 || password_strenth == 2) {
-				password_strength_desc = "Good";
-			} else if (password_strenth == 1) {
-				HealthReportAWT.this.strongerPassword = true;
-				password_strength_desc = "Poor";
-			} else {
-				HealthReportAWT.this.strongerPassword = true;
-				password_strength_desc = "Needs Updating";
-			}
-			
-			if (extractData(data, "loginlogouthooks", "is_configured").contains("false")) {
-				HealthReportAWT.this.loginInOutHooks = true;
-			}
-			
-			try {
-				if (Integer.parseInt(extractData(data, "device_row_counts", "computers").trim()) != Integer.parseInt(extractData(data, "device_row_counts", "computers_denormalized").trim())) {
-					HealthReportAWT.this.computerDeviceTableCountMismatch = true;
-				}
-				
-				if (Integer.parseInt(extractData(data, "device_row_counts", "mobile_devices").trim()) != Integer.parseInt(extractData(data, "device_row_counts", "mobile_devices_denormalized").trim())) {
-					HealthReportAWT.this.mobileDeviceTableCountMismatch = true;
-				}
-			} catch (Exception e) {
-				System.out.println("Unable to parse device row counts.");
-			}
-			
-			if ((extractData(system, "mysql_version").contains("5.6.16") || extractData(system, "mysql_version").contains("5.6.20")) && (extractData(system, "os").contains("OS X") || extractData(system, "os").contains("Mac") || extractData(system, "os").contains("OSX"))) {
-				HealthReportAWT.this.mysqlOSXVersionBug = true;
+				database_health = panelGen.generateContentPanelSystem("Database Health", db_health_for_display, "Too Large SQL Tables", "https://google.com", analysis.getDatabaseIcon());
 			}
 			
 			//Get all of the information for the JSS ENV and generate the panel.
 			String[][] env_info = {
-					{ "Checkin Frequency", extractData(data, "computercheckin", "frequency") + " Minutes" },
-					{ "Log Flushing", extractData(data, "logflushing", "log_flush_time") },
-					{ "Log In/Out Hooks", extractData(data, "loginlogouthooks", "is_configured") },
-					{ "Computer EA", extractData(data, "computerextensionattributes", "count") },
-					{ "Mobile Deivce EA", extractData(data, "mobiledeviceextensionattributes", "count") },
-					{ "Password Strength", password_strength_desc },
-					{ "SMTP Server", extractData(data, "smtpserver", "server") },
-					{ "Sender Email", extractData(data, "smtpserver", "sender_email") },
-					{ "GSX Connection", extractData(data, "gsxconnection", "status") }
+					{ "Checkin Frequency", display(result.getCheckInFrequency()) + " Minutes" },
+					{ "Log Flushing", display(result.getLogFlushTime()) },
+					{ "Log In/Out Hooks", display(result.isLoginLogoutHooksEnabled()) },
+					{ "Computer EA", display(result.getComputerExtensionAttributeCount()) },
+					{ "Mobile Deivce EA", display(result.getMobileDeviceExtensionAttributeCount()) },
+					{ "Password Strength", analysis.getPasswordStrengthDescription() },
+					{ "SMTP Server", display(result.getSMTPServer()) },
+					{ "Sender Email", display(result.getSMTPSenderEmail()) },
+					{ "GSX Connection", status(result.isGSXConnectionEnabled()) }
 			};
-			String[][] vpp_accounts = extractArrayData(data, "vppaccounts", "name", "days_until_expire");
-			String[][] ldap_servers = extractArrayData(data, "ldapservers", "name", "type", "address", "id");
-			String envIconType = iconGen.getJSSEnvIconType(Integer.parseInt(extractData(healthcheck, "totalcomputers")), Integer.parseInt(extractData(data, "computercheckin", "frequency")), Integer.parseInt(extractData(data, "computerextensionattributes", "count")), Integer.parseInt(extractData(data, "mobiledeviceextensionattributes", "count")));
-			JPanel env = panelGen.generateContentPanelEnv("JSS Environment", env_info, vpp_accounts, ldap_servers, "", "", envIconType);
+			String[][] vpp_accounts = rows(result.getVPPAccounts(), account -> new String[] { account.getName(), Long.toString(account.getDaysUntilExpire()) });
+			String[][] ldap_servers = rows(result.getLDAPServers(), server -> new String[] { server.getName(), server.getType(), server.getAddress(), server.getId() });
+			JPanel env = panelGen.generateContentPanelEnv("JSS Environment", env_info, vpp_accounts, ldap_servers, "", "", analysis.getEnvironmentIcon());
 			
-			//Get all of the group information from the JSON, merge the arrays, and then generate the groups JPanel.
-			String[][] groups_1 = ArrayUtils.addAll(extractArrayData(data, "computergroups", "name", "nested_groups_count", "criteria_count", "id"), extractArrayData(data, "mobiledevicegroups", "name", "nested_groups_count", "criteria_count", "id"));
-			String[][] groups_2 = ArrayUtils.addAll(groups_1, extractArrayData(data, "usergroups", "name", "nested_groups_count", "criteria_count", "id"));
-			String groupIconType = iconGen.getGroupIconType("groups", countJSONObjectSize(data, "computergroups") + countJSONObjectSize(data, "mobiledevicegroups") + countJSONObjectSize(data, "usergroups"));
-			JPanel groups = panelGen.generateContentPanelGroups("Groups", groups_2, "", "", groupIconType);
-			if (groupIconType.equals("yellow") || groupIconType.equals("red")) {
-				HealthReportAWT.this.showGroupsHelp = true;
-			}
+			//Get all of the group information, merge the arrays, and then generate the groups JPanel.
+			String[][] groups_1 = ArrayUtils.addAll(groupRows(result.getComputerGroups()), groupRows(result.getMobileDeviceGroups()));
+			String[][] groups_2 = ArrayUtils.addAll(groups_1, groupRows(result.getUserGroups()));
+			JPanel groups = panelGen.generateContentPanelGroups("Groups", groups_2, "", "", analysis.getGroupIcon());
 			
 			//Get all of the information for the printers, policies and scripts, then generate the panel.
-			String[][] printers = extractArrayData(data, "printer_warnings", "model");
-			String[][] policies = extractArrayData(data, "policies_with_issues", "name", "ongoing", "checkin_trigger");
-			String[][] scripts = extractArrayData(data, "scripts_needing_update", "name");
+			String[][] printers = rows(result.getPrinterWarnings(), model -> new String[] { model });
+			String[][] policies = rows(result.getPoliciesWithIssues(), name -> new String[] { name, "true", "true" });
+			String[][] scripts = rows(result.getScriptsNeedingUpdate(), name -> new String[] { name });
 			String[][] certs = {
-					{ "SSL Cert Issuer", extractData(data, "tomcat", "ssl_cert_issuer") },
-					{ "SLL Cert Expires", extractData(data, "tomcat", "cert_expires") },
-					{ "MDM Push Cert Expires", extractData(data, "push_cert_expirations", "mdm_push_cert") },
-					{ "Push Proxy Expires", extractData(data, "push_cert_expirations", "push_proxy") },
-					{ "Change Management Enabled?", extractData(data, "changemanagment", "isusinglogfile") },
-					{ "Log File Path:", extractData(data, "changemanagment", "logpath") }
+					{ "SSL Cert Issuer", display(result.getSSLCertIssuer()) },
+					{ "SLL Cert Expires", display(result.getSSLCertExpires()) },
+					{ "MDM Push Cert Expires", display(result.getMDMPushCertExpires()) },
+					{ "Push Proxy Expires", display(result.getPushProxyExpires()) },
+					{ "Change Management Enabled?", display(result.isChangeManagementEnabled()) },
+					{ "Log File Path:", display(result.getChangeManagementLogPath()) }
 			};
-			String policiesScriptsIconType = iconGen.getPoliciesAndScriptsIconType(extractArrayData(data, "policies_with_issues", "name", "ongoing", "checkin_trigger").length, extractArrayData(data, "scripts_needing_update", "name").length);
-			JPanel policies_scripts = panelGen.generateContentPanelPoliciesScripts("Policies, Scripts, Certs and Change", policies, scripts, printers, certs, "", "", policiesScriptsIconType);
-			if (extractArrayData(data, "policies_with_issues", "name", "ongoing", "checkin_trigger").length > 0) {
-				HealthReportAWT.this.showPolicies = true;
-			}
-			if (extractArrayData(data, "scripts_needing_update", "name").length > 0) {
-				HealthReportAWT.this.showScripts = true;
-			}
-			if (extractData(data, "changemanagment", "isusinglogfile").contains("false")) {
-				HealthReportAWT.this.showChange = true;
-			}
-			HealthReportAWT.this.showCheckinFreq = iconGen.showCheckinFreq;
-			HealthReportAWT.this.showExtensionAttributes = iconGen.showCheckinFreq;
-			HealthReportAWT.this.showSystemRequirements = iconGen.showSystemRequirements;
-			HealthReportAWT.this.showScalability = iconGen.showScalability;
+			JPanel policies_scripts = panelGen.generateContentPanelPoliciesScripts("Policies, Scripts, Certs and Change", policies, scripts, printers, certs, "", "", analysis.getPoliciesScriptsIcon());
 			//Update Panel Gen Variables
 			updatePanelGenVariables(panelGen);
 			
@@ -302,10 +264,8 @@ public class HealthReportAWT extends HealthReport {
 				// create the middle panel components
 				JTextArea display = new JTextArea(16, 58);
 				display.setEditable(false);
-				//Make a new GSON object so the text can be Pretty Printed.
-				Gson gson = new GsonBuilder().setPrettyPrinting().create();
-				String pp_json = gson.toJson(json.trim());
-				display.append(json);
+				//The JSON is only built when it is asked for.
+				display.append(result.toJSON().toString());
 				JScrollPane scroll = new JScrollPane(display);
 				scroll.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_ALWAYS);
 				//Add Textarea in to middle panel
@@ -342,7 +302,7 @@ public class HealthReportAWT extends HealthReport {
 			});
 			
 			//Listener for a button click to open a window containing the activation code.
-			view_activation_code.addActionListener(e -> JOptionPane.showMessageDialog(frame, extractData(data, "activationcode", "code") + "\nExpires: " + extractData(data, "activationcode", "expires")));
+			view_activation_code.addActionListener(e -> JOptionPane.showMessageDialog(frame, display(result.getActivationCode()) + "\nExpires: " + display(result.getActivationCodeExpires())));
 			
 			view_text_report.addActionListener(e -> {
 				JPanel middlePanel = new JPanel();
@@ -350,8 +310,7 @@ public class HealthReportAWT extends HealthReport {
 				// create the middle panel components
 				JTextArea display = new JTextArea(16, 58);
 				display.setEditable(false);
-				//Make a new GSON object so the text can be Pretty Printed.
-				display.append(new HealthReportHeadless(json).getReportString());
+				display.append(new HealthReportHeadless(result, analysis).getReportString());
 				JScrollPane scroll = new JScrollPane(display);
 				scroll.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_ALWAYS);
 				//Add Textarea in to middle panel
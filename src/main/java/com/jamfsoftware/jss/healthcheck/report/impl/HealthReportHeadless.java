@@ -32,45 +32,36 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Scanner;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult;
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult.SystemInfo;
+import com.jamfsoftware.jss.healthcheck.report.HealthAnalysis;
 import com.jamfsoftware.jss.healthcheck.report.HealthReport;
 
 /**
  * HealthReportHeadless.java, Written January 2016, Jacob Schultz
- * This takes in a JSON String, and generates a Text Health Report
+ * This takes in the Health Check results, and generates a Text Health Report
  * The health report can then be written to a text file.
  * Issue items are denoted by a "!!!".
  */
 
 public class HealthReportHeadless extends HealthReport {
 	
-	//Class level JSON Objects for the three main sections.
-	private JsonObject healthcheck;
-	private JsonObject system;
-	private JsonObject data;
+	private final SystemInfo system;
 	
-	//Default constructor that loads the JSON objects from the string.
-	public HealthReportHeadless(String json) {
-		super(json);
-		
-		JsonElement report = null;
-		try {
-			report = new JsonParser().parse(json);
-		} catch (Exception e) {
-			System.out.println("Unable to parse JSON. Outputting generated JSON string for debugging:\n");
-			System.out.println(json.replace("\n", ""));
-			System.exit(0);
-		}
-		
-		this.healthcheck = ((JsonObject) report).get("healthcheck").getAsJsonObject();
-		this.system = healthcheck.get("system").getAsJsonObject();
-		this.data = healthcheck.get("checkdata").getAsJsonObject();
+	public HealthReportHeadless(HealthCheckResult result) {
+		super(result);
+		this.system = result.getSystem();
+	}
+	
+	/**
+	 * Builds the text report from an analysis that has already been run, such as the one behind the report window.
+	 */
+	public HealthReportHeadless(HealthCheckResult result, HealthAnalysis analysis) {
+		super(result, analysis);
+		this.system = result.getSystem();
 	}
 	
-	//This calls the method to parse the JSON report, and then prints it. It then prompts to write to a file.
+	//This calls the method to build the report, and then prints it. It then prompts to write to a file.
 	public void printReport() {
 		String report = getString();
 		System.out.println(report);
@@ -93,7 +84,7 @@ public class HealthReportHeadless extends HealthReport {
 	}
 	
 	/**
-	 * Parses data from the JSON, checks for warnings, and builds an output report
+	 * Reads the Health Check results, checks for warnings, and builds an output report
 	 *
 	 * @return The Health Report text as a string.
 	 */
@@ -104,32 +95,70 @@ public class HealthReportHeadless extends HealthReport {
 		Date dateobj = new Date();
 		//Add some header information.
 		output += ("JSS Health Check Report Performed on " + df.format(dateobj));
-		output += ("\nJSS URL: " + extractData(healthcheck, "jss_url"));
-		output += ("\nTotal Computers: " + extractData(healthcheck, "totalcomputers"));
-		output += ("\nTotal Mobile Devices: " + extractData(healthcheck, "totalmobile"));
-		output += ("\nTotal Users: " + extractData(healthcheck, "totalusers"));
+		output += ("\nJSS URL: " + result.getJSSUrl());
+		output += ("\nTotal Computers: " + display(result.getTotalComputers()));
+		output += ("\nTotal Mobile Devices: " + display(result.getTotalMobileDevices()));
+		output += ("\nTotal Users: " + display(result.getTotalUsers()));
+		String timedOut = timedOutSections();
+		if (timedOut != null) {
+			output += ("\n!!!The health check ran out of time. These sections are missing or incomplete: " + timedOut);
+			output_count++;
+		}
+		String incomplete = incompleteSections();
+		if (incomplete != null) {
+			output += ("\n!!!Some records could not be read from the JSS, so these sections may understate issues: " + incomplete);
+			output_count++;
+		}
 		
 		//Print System Info
 		output += ("\nSystem Information: ");
-		output += ("\n  Server OS: " + extractData(system, "os"));
-		output += ("\n  Java Vendor: " + extractData(system, "javavendor"));
-		output += ("\n  Java Version: " + extractData(system, "javaversion"));
-		output += ("\n  Is Clustered?: " + extractData(system, "clustering"));
-		output += ("\n  Web App Directory: " + extractData(system, "webapp_dir"));
-		output += ("\n  SSL Cert Issuer: " + extractData(data, "tomcat", "ssl_cert_issuer"));
-		output += ("\n  SSL Cert Expires: " + extractData(data, "tomcat", "cert_expires"));
-		output += ("\n  MDM Push Cert Expires: " + extractData(data, "push_cert_expirations", "mdm_push_cert"));
-		output += ("\n  Push Proxy Expires: " + extractData(data, "push_cert_expirations", "push_proxy"));
-		output += ("\n  Change Management Enabled?: " + extractData(data, "changemanagment", "isusinglogfile"));
-		output += ("\n  Log File Path: " + extractData(data, "changemanagment", "logpath"));
-		if (extractData(system, "javaversion").contains("1.6")) {
+		output += ("\n  Server OS: " + display(system.getOS()));
+		output += ("\n  Java Vendor: " + display(system.getJavaVendor()));
+		output += ("\n  Java Version: " + display(system.getJavaVersion()));
+		output += ("\n  Is Clustered?: " + display(system.getClustering()));
+		output += ("\n  Web App Directory: " + display(system.getWebAppDir()));
+		output += ("\n  SSL Cert Issuer: " + display(result.getSSLCertIssuer()));
+		output += ("\n  SSL Cert Expires: " + display(result.getSSLCertExpires()));
+		output += ("\n  MDM Push Cert Expires: " + display(result.getMDMPushCertExpires()));
+		output += ("\n  Push Proxy Expires: " + display(result.getPushProxyExpires()));
+		output += ("\n  Change Management Enabled?: " + display(result.isChangeManagementEnabled()));
+		output += ("\n  Log File Path: " + display(result.getChangeManagementLogPath()));
+		if (display(system.getJavaVersion()).contains("1.6")) {
 			output += ("\n!!!Java 6 is no longer supported.");
 			output_count++;
 		}
+		
+		String[][] capacity = capacityRows();
+		if (capacity.length > 0) {
+			output += ("\nRecommended for " + analysis.getCapacity().getDevices() + " devices:");
+			for (String[] value : capacity) {
+				output += ("\n  " + value[0] + ": " + value[1]);
+			}
+			if (analysis.isShowScalability()) {
+				output += ("\n!!Tomcat has less memory than is recommended for the number of devices in the JSS.");
+				output_count++;
+			}
+			if (analysis.isShowLargeDatabase()) {
+				output += ("\n!!The database is larger than is recommended for the number of devices in the JSS.");
+				output_count++;
+			}
+		}
+		
+		String[][] concurrency = concurrencyRows();
+		if (concurrency.length > 0) {
+			output += ("\nAPI Concurrency Tolerated: (Requests in flight the JSS answered without slowing down)");
+			for (String[] family : concurrency) {
+				output += ("\n  " + family[0] + ": " + family[1]);
+			}
+		}
+		String hedging = hedgingSummary();
+		if (hedging != null) {
+			output += ("\nAPI Requests Hedged: " + hedging);
+		}
 		//output += ("\n  Server Memory: " + extractData(system,"memory"));
 		//output += ("\n  Tomcat Version: " + extractData(system,"tomcatversion"));
 		
-		String[][] sql_tables = extractArrayData(system, "largeSQLtables", "table_name", "table_size");
+		String[][] sql_tables = rows(system.getLargeTables().entrySet(), table -> new String[] { table.getKey(), table.getValue() + " MB" });
 		if (sql_tables.length > 0) {
 			output += ("\n  Top Ten Largest SQL tables: (Over 1GB should be investigated)");
 			for (String[] sql_table : sql_tables) {
@@ -138,72 +167,48 @@ public class HealthReportHeadless extends HealthReport {
 			
 		}
 		
-		try {
-			if (Integer.parseInt(extractData(data, "device_row_counts", "computers").trim()) != Integer.parseInt(extractData(data, "device_row_counts", "computers_denormalized").trim())) {
+		if (!analysis.isDeviceRowCountsAvailable()) {
+			output += ("\nUnable to parse device row counts.");
+		} else {
+			if (analysis.isComputerDeviceTableCountMismatch()) {
 				output += ("\n!!!The tool has detected a mismatch in the count of the computers and computers_denormalized tables in your JSS datbase. This can cause performance issues if left unchecked.");
 			}
-			if (Integer.parseInt(extractData(data, "device_row_counts", "mobile_devices").trim()) != Integer.parseInt(extractData(data, "device_row_counts", "mobile_devices_denormalized").trim())) {
+			if (analysis.isMobileDeviceTableCountMismatch()) {
 				output += ("\n!!!The tool has detected a mismatch in the count of the mobile_devices and mobile_devices_denormalized tables in your JSS datbase. This can cause performance issues if left unchecked.");
 			}
-		} catch (Exception e) {
-			output += ("\nUnable to parse device row counts.");
 		}
 		
 		//Print the rest of the check data
 		output += ("\nGeneral Information: ");
 		
-		int password_strength = 0;
-		if (extractData(data, "password_strength", "uppercase?").contains("true")) {
-			password_strength++;
-		}
-		if (extractData(data, "password_strength", "lowercase?").contains("true")) {
-			password_strength++;
-		}
-		if (extractData(data, "password_strength", "number?").contains("true")) {
-			password_strength++;
-		}
-		if (extractData(data, "password_strength", "spec_chars?").contains("true")) {
-			password_strength++;
-		}
-		String password_strength_desc;
-		if (password_strength == 4) {
-			password_strength_desc = "Excellent";
-		} else if (password_strength == 3 || password_strength == 2) {
-			password_strength_desc = "Good";
-		} else if (password_strength == 1) {
-			password_strength_desc = "Poor";
-		} else {
-			password_strength_desc = "Needs Updating";
-		}
-		
-		output += ("\n  Login Password Strength: " + password_strength_desc);
-		if (password_strength < 3) {
+		output += ("\n  Login Password Strength: " + analysis.getPasswordStrengthDescription());
+		if (analysis.getPasswordStrength() < 3) {
 			output += ("\n!!The JSS Login Password has weak requirements, consider updating.");
 		}
 		
-		output += ("\n  Activation Code: " + extractData(data, "activationcode", "code"));
-		output += ("\n  Computer Check In: " + extractData(data, "computercheckin", "frequency"));
-		output += ("\n  GSX is: " + extractData(data, "gsxconnection", "status"));
-		output += ("\n  Managed Preference Profiles " + extractData(data, "managedpreferenceprofiles", "status"));
-		if (extractData(data, "managedpreferenceprofiles", "status").contains("enabled")) {
+		output += ("\n  Activation Code: " + display(result.getActivationCode()));
+		output += ("\n  Computer Check In: " + display(result.getCheckInFrequency()));
+		output += ("\n  GSX is: " + status(result.isGSXConnectionEnabled()));
+		output += ("\n  Managed Preference Profiles " + status(result.isManagedPreferenceProfilesEnabled()));
+		if (Boolean.TRUE.equals(result.isManagedPreferenceProfilesEnabled())) {
 			output += ("\n!!!Preference Profiles are deprecated by Apple. Consider using Configuration Profiles.");
 			output_count++;
 		}
-		output += ("\n  Computer Extension Attributes: " + extractData(data, "computerextensionattributes", "count"));
-		output += ("\n  Mobile Extension Attributes: " + extractData(data, "mobiledeviceextensionattributes", "count"));
+		output += ("\n  Computer Extension Attributes: " + display(result.getComputerExtensionAttributeCount()));
+		output += ("\n  Mobile Extension Attributes: " + display(result.getMobileDeviceExtensionAttributeCount()));
 		output += ("\n  !Attempt to limit the amount of Extension Attributes used, they must calculate at every inventory update.");
 		
-		output += ("\n  Log In/Out Hooks Enabled: " + extractData(data, "loginlogouthooks", "is_configured"));
-		if (extractData(data, "loginlogouthooks", "is_configured").contains("false")) {
+		output += ("\n  Log In/Out Hooks Enabled: " + display(result.isLoginLogoutHooksEnabled()));
+		if (analysis.isLoginInOutHooks()) {
 			output += ("\n!!Login/Logout hooks are not enabled.");
 		}
 		
-		output += ("\n  Log Flushing Time: " + extractData(data, "logflushing", "log_flush_time"));
+		output += ("\n  Log Flushing Time: " + display(result.getLogFlushTime()));
 		
-		output += ("\n  Computer Configurations: " + extractData(data, "computerconfigurations", "count"));
+		output += ("\n  Computer Configurations: " + display(result.getComputerConfigurationCount()));
 		
 		output += ("\nVPP Accounts: ");
-		String[][] vpp_accounts = extractArrayData(data, "vppaccounts", "name", "days_until_expire");
+		String[][] vpp_accounts = rows(result.getVPPAccounts(), account -> new String[] { account.getName(), Long.toString(account.getDaysUntilExpire()) });
 		if (vpp_accounts.length > 0) {
 			for (String[] vpp_account : vpp_accounts) {
 				output += ("\n  Account Name: " + vpp_account[0] + " Expires in: " + vpp_account[1] + " Days.");
@@ -212,24 +217,24 @@ public class HealthReportHeadless extends HealthReport {
 		
 		//Print general info
 		output += ("\nNetwork Services Information: ");
-		output += ("\n  SMTP Server: " + extractData(data, "smtpserver", "server") + " Email: " + extractData(data, "smtpserver", "sender_email"));
-		String[][] ldap_servers = extractArrayData(data, "ldapservers", "name", "type", "address");
+		output += ("\n  SMTP Server: " + display(result.getSMTPServer()) + " Email: " + display(result.getSMTPSenderEmail()));
+		String[][] ldap_servers = rows(result.getLDAPServers(), server -> new String[] { server.getName(), server.getType(), server.getAddress() });
 		for (String[] ldap_server : ldap_servers) {
 			output += ("\n  LDAP Server: " + ldap_server[0] + " (" + ldap_server[1] + ") Address: " + ldap_server[2]);
 		}
-		String[][] printers = extractArrayData(data, "printer_warnings", "model");
+		String[][] printers = rows(result.getPrinterWarnings(), model -> new String[] { model });
 		if (printers.length > 0) {
 			output_count++;
 			output += ("\n !!The JSS contains one or more Xerox printers. They often have large driver packages. Ensure the MySQL max packet size is configured to allow this.");
 		}
 		
-		if ((extractData(system, "mysql_version").contains("5.6.16") || extractData(system, "mysql_version").contains("5.6.20")) && (extractData(system, "os").contains("OS X") || extractData(system, "os").contains("Mac") || extractData(system, "os").contains("OSX"))) {
+		if (analysis.isMysqlOSXVersionBug()) {
 			output += ("\n!!! The tool has detected that the server is running on a version of MySQL and OSX that have known performance issues. See this defect: http://bugs.mysql.com/bug.php?id=71960.");
 		}
 		
-		String[][] computer_groups = extractArrayData(data, "computergroups", "name", "nested_groups_count", "criteria_count");
-		String[][] mobile_groups = extractArrayData(data, "mobiledevicegroups", "name", "nested_groups_count", "criteria_count");
-		String[][] user_groups = extractArrayData(data, "usergroups", "name", "nested_groups_count", "criteria_count");
+		String[][] computer_groups = groupRows(result.getComputerGroups());
+		String[][] mobile_groups = groupRows(result.getMobileDeviceGroups());
+		String[][] user_groups = groupRows(result.getUserGroups());
 		if (computer_groups.length > 0 || mobile_groups.length > 0 || user_groups.length > 0) {
 			output += ("\nSmart Group Information: ");
 			output_count++;
@@ -239,7 +244,7 @@ public class HealthReportHeadless extends HealthReport {
 		printGroupInformation(output, mobile_groups);
 		printGroupInformation(output, user_groups);
 		
-		String[][] scripts = extractArrayData(data, "scripts_needing_update", "name");
+		String[][] scripts = rows(result.getScriptsNeedingUpdate(), name -> new String[] { name });
 		if (scripts.length > 0) {
 			output += "\nScripts Needing Updates: ";
 			for (String[] script : scripts) {
@@ -249,7 +254,7 @@ public class HealthReportHeadless extends HealthReport {
 			output += "\n!!!These scripts either reference the old binary location or use the 'rm-rf' (discouraged) command. They could also contain the 'jamf recon' command in the script. This can cause database bloat.";
 		}
 		
-		String[][] policies = extractArrayData(data, "policies_with_issues", "name", "ongoing", "checkin_trigger");
+		String[][] policies = rows(result.getPoliciesWithIssues(), name -> new String[] { name, "true", "true" });
 		if (policies.length > 0) {
 			output += "\nPotential issues with Policies:";
 			for (String[] policy : policies) {
@@ -296,23 +301,4 @@ public class HealthReportHeadless extends HealthReport {
 		}
 	}
 	
-	/**
-	 * This method parses JSON and extracts data into a 2D String Array
-	 * Pass as many strings as should be included in the 2D array.
-	 *
-	 * @return an String[][] filled with content from the JSON.
-	 */
-	public String[][] extractArrayData(JsonObject obj, String array_item, String... keys) {
-		JsonArray items = obj.get(array_item).getAsJsonArray();
-		String[][] listOfObjects = new String[items.size()][keys.length];
-		
-		for (int i = 0; i < items.size(); i++) {
-			JsonObject data = items.get(i).getAsJsonObject();
-			for (int j = 0; j < keys.length; j++) {
-				listOfObjects[i][j] = String.valueOf(data.get(keys[j]));
-			}
-		}
-		return listOfObjects;
-	}
-	
 }
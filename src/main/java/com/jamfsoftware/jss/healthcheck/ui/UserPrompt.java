@@ -40,8 +40,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.jamfsoftware.jss.healthcheck.HealthCheck;
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult;
 import com.jamfsoftware.jss.healthcheck.JSSConnectionTest;
 import com.jamfsoftware.jss.healthcheck.controller.ConfigurationController;
+import com.jamfsoftware.jss.healthcheck.controller.ConfigurationSnapshot;
 import com.jamfsoftware.jss.healthcheck.report.impl.HealthReportAWT;
 import com.jamfsoftware.jss.healthcheck.ui.component.model.CSVElement;
 import com.jamfsoftware.jss.healthcheck.util.EnvironmentUtil;
@@ -242,8 +244,9 @@ public class UserPrompt extends JFrame {
 		try {
 			HealthCheck healthCheck = new HealthCheck(jssURL, jssUsername, jssPassword, false);
 			LOGGER.info("Health Check Complete, Loading Summary..");
-			System.out.println(healthCheck.getJSONAsString());
-			new HealthReportAWT(healthCheck.getJSONAsString());
+			healthCheck.writeJSON(System.out);
+			System.out.println();
+			new HealthReportAWT(healthCheck.getResult());
 			LOGGER.info("Report loaded.");
 			frame.setVisible(false);
 		} catch (Exception e) {
@@ -316,7 +319,7 @@ public class UserPrompt extends JFrame {
 		
 		loadReport.addActionListener(e -> {
 			try {
-				new HealthReportAWT(display.getText());
+				new HealthReportAWT(HealthCheckResult.fromJSON(display.getText()));
 			} catch (Exception e1) {
 				LOGGER.error("", e1);
 				JOptionPane.showMessageDialog(middlePanel, "The tool was unable to load the pasted JSON.\nIt may be incomplete or not formatted correctly.\nThe error the tool encountered:\n" + e1, "Error Loading JSON", JOptionPane.ERROR_MESSAGE);
@@ -325,13 +328,13 @@ public class UserPrompt extends JFrame {
 	}
 	
 	private void loadAllHelpLinks() {
-		ConfigurationController config = new ConfigurationController(true);
+		ConfigurationSnapshot config = ConfigurationSnapshot.current();
 		
 		JTextArea display = new JTextArea(16, 58);
 		display.setEditable(false);
 		display.setText(String.format(
 				StringConstants.OPTIONS_TEXT,
-				config.getValue("configurations,smart_groups", "criteria_count")[0],
+				config.getString("configurations,smart_groups", "criteria_count", ""),
 				this.jssURL
 		));
 		
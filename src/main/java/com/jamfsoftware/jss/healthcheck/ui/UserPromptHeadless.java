@@ -101,7 +101,7 @@ public class UserPromptHeadless {
 		HealthCheck newHealthCheck = new HealthCheck(jssURL, jssUsername, jssPassword, true);
 		
 		//Generate a new headless report
-		HealthReportHeadless report = new HealthReportHeadless(newHealthCheck.getJSONAsString());
+		HealthReportHeadless report = new HealthReportHeadless(newHealthCheck.getResult());
 		try {
 			//Print the report
 			report.printReport();
@@ -26,16 +26,40 @@ package com.jamfsoftware.jss.healthcheck.ui.component;
  * #L%
  */
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.util.ArrayList;
-import java.util.List;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.jamfsoftware.jss.healthcheck.monitor.Downsampler;
+import com.jamfsoftware.jss.healthcheck.monitor.SampleBuffer.Samples;
+import com.jamfsoftware.jss.healthcheck.monitor.SegmentSampleStore;
+
 /**
- * 
+ * Draws the samples recorded by the health monitor, one strip per metric on a shared time axis.
+ * Only the samples in the visible range of time are read from the store, and each metric is downsampled to
+ * {@link #POINTS} points before it is drawn, so a year of samples draws as quickly as an hour.
+ * The graph can be shown in a window, where dragging pans and the mouse wheel zooms, or exported as a PNG without a
+ * display.
+ *
  * @author Jacob Schultz
  * @since 1.0
  */
@@ -43,35 +67,300 @@ public class MonitorGraph {
 	
 	private static final Logger LOGGER = LoggerFactory.getLogger(MonitorGraph.class);
 	
-	private String[][] LOG_DATA;
+	/**
+	 * The number of points each metric is downsampled to.
+	 */
+	public static final int POINTS = 2000;
+	
+	private static final Color LINE = Color.decode("#5C6B84");
+	private static final Color GRID = Color.decode("#DDDDDD");
+	private static final int HEADER = 28;
+	private static final int FOOTER = 24;
+	private static final int LEFT = 90;
+	private static final int RIGHT = 16;
+	private static final long MIN_SPAN = 60000;
+	
+	private final SegmentSampleStore store;
+	private Map<String, Samples> data = new TreeMap<>();
+	private long from;
+	private long to;
+	
+	/**
+	 * @param store The store the monitor writes its samples to
+	 * @param from The earliest time to show, in milliseconds since the epoch
+	 * @param to The latest time to show, in milliseconds since the epoch
+	 */
+	public MonitorGraph(SegmentSampleStore store, long from, long to) {
+		this.store = store;
+		setRange(from, to);
+	}
+	
+	/**
+	 * Shows another range of time, reading only the samples in it. The samples are read before the graph is
+	 * locked, so drawing is not held up by the store.
+	 */
+	public void setRange(long from, long to) {
+		long end = Math.max(to, from + MIN_SPAN);
+		Map<String, Samples> data = loadData(from, end);
+		synchronized (this) {
+			this.from = from;
+			this.to = end;
+			this.data = data;
+		}
+	}
+	
+	private Map<String, Samples> loadData(long from, long to) {
+		Map<String, Samples> data = new TreeMap<>();
+		try {
+			for (String metric : store.getMetrics()) {
+				data.put(metric, Downsampler.largestTriangleThreeBuckets(store.read(metric, from, to), POINTS));
+			}
+		} catch (IOException e) {
+			LOGGER.error("Unable to read the monitor samples.", e);
+		}
+		return data;
+	}
+	
+	/**
+	 * Draws the graph.
+	 *
+	 * @param g The graphics to draw with
+	 * @param width The width to draw
+	 * @param height The height to draw
+	 */
+	public synchronized void render(Graphics2D g, int width, int height) {
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, width, height);
+		
+		SimpleDateFormat df = new SimpleDateFormat("dd/MM/yy HH:mm:ss");
+		g.setColor(Color.BLACK);
+		g.drawString("JSS Health Monitor, " + df.format(new Date(from)) + " to " + df.format(new Date(to)), LEFT, 18);
+		if (data.isEmpty()) {
+			g.drawString("No samples have been recorded.", LEFT, HEADER + 20);
+			return;
+		}
+		
+		int plotWidth = Math.max(1, width - LEFT - RIGHT);
+		int rowHeight = Math.max(1, (height - HEADER - FOOTER) / data.size());
+		int row = 0;
+		for (Map.Entry<String, Samples> metric : data.entrySet()) {
+			int top = HEADER + row++ * rowHeight;
+			drawMetric(g, metric.getKey(), metric.getValue(), top + 14, plotWidth, Math.max(1, rowHeight - 20));
+		}
+		
+		g.setColor(Color.BLACK);
+		g.drawString(df.format(new Date(from)), LEFT, height - 8);
+		String end = df.format(new Date(to));
+		g.drawString(end, width - RIGHT - g.getFontMetrics().stringWidth(end), height - 8);
+	}
+	
+	private void drawMetric(Graphics2D g, String name, Samples samples, int top, int plotWidth, int plotHeight) {
+		g.setColor(Color.BLACK);
+		g.drawString(name, LEFT, top - 2);
+		g.setColor(GRID);
+		g.drawRect(LEFT, top, plotWidth, plotHeight);
+		if (samples.size() == 0) {
+			return;
+		}
+		
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < samples.size(); i++) {
+			min = Math.min(min, samples.getValue(i));
+			max = Math.max(max, samples.getValue(i));
+		}
+		if (max == min) {
+			max += 1;
+			min -= 1;
+		}
+		
+		g.setColor(Color.DARK_GRAY);
+		g.drawString(format(max), 4, top + 12);
+		g.drawString(format(min), 4, top + plotHeight);
+		
+		Path2D.Double line = new Path2D.Double();
+		double span = to - from;
+		for (int i = 0; i < samples.size(); i++) {
+			double x = LEFT + (samples.getTime(i) - from) / span * plotWidth;
+			double y = top + plotHeight - (samples.getValue(i) - min) / (max - min) * plotHeight;
+			if (i == 0) {
+				line.moveTo(x, y);
+			} else {
+				line.lineTo(x, y);
+			}
+		}
+		
+		Shape clip = g.getClip();
+		g.clipRect(LEFT, top, plotWidth + 1, plotHeight + 1);
+		g.setColor(LINE);
+		g.draw(line);
+		g.setClip(clip);
+	}
 	
-	public MonitorGraph(String logFilePath) {
-		parseLogData(logFilePath);
+	private static String format(double value) {
+		return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : String.format("%.2f", value);
 	}
 	
-	private void parseLogData(String logFilePath) {
+	/**
+	 * Writes the graph to a PNG file. This does not need a display.
+	 *
+	 * @param file The file to write
+	 * @param width The width of the image
+	 * @param height The height of the image
+	 *
+	 * @throws IOException If the file could not be written
+	 */
+	public void exportPNG(Path file, int width, int height) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
 		try {
-			try (BufferedReader br = new BufferedReader(new FileReader(logFilePath))) {
-				List<String> lines = new ArrayList<>();
+			render(g, width, height);
+		} finally {
+			g.dispose();
+		}
+		ImageIO.write(image, "png", file.toFile());
+	}
+	
+	/**
+	 * Opens a window with the graph. Drag to pan, and use the mouse wheel to zoom around the pointer. The store is
+	 * closed with the window.
+	 */
+	public void showGraph() {
+		GraphPanel panel = new GraphPanel();
+		
+		JButton export = new JButton("Export PNG");
+		export.addActionListener(e -> {
+			JFileChooser chooser = new JFileChooser();
+			chooser.setSelectedFile(new File("monitor.png"));
+			if (chooser.showSaveDialog(panel) == JFileChooser.APPROVE_OPTION) {
+				try {
+					exportPNG(chooser.getSelectedFile().toPath(), panel.getWidth(), panel.getHeight());
+				} catch (IOException ex) {
+					LOGGER.error("Unable to export the graph.", ex);
+					JOptionPane.showMessageDialog(panel, "Unable to export the graph.\n" + ex, "Export Failed", JOptionPane.ERROR_MESSAGE);
+				}
+			}
+		});
+		JPanel footer = new JPanel();
+		footer.add(new JLabel("Drag to pan, scroll to zoom."));
+		footer.add(export);
+		
+		JFrame frame = new JFrame("JSS Health Monitor");
+		frame.add(panel, BorderLayout.CENTER);
+		frame.add(footer, BorderLayout.SOUTH);
+		frame.setSize(1200, 800);
+		frame.setLocationRelativeTo(null);
+		frame.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+		frame.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosed(WindowEvent e) {
+				store.close();
+			}
+		});
+		frame.setVisible(true);
+	}
+	
+	/**
+	 * Draws the graph, and pans and zooms it. The new range is read from the store once the pointer has been still
+	 * for a moment, so a drag does not read the store for every pixel. The store is read on a background thread, and
+	 * the panel is repainted once the samples are in.
+	 */
+	private class GraphPanel extends JComponent {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final Timer reload = new Timer(100, e -> load());
+		private transient SwingWorker<Map<String, Samples>, Void> loading;
+		private int dragX;
+		
+		GraphPanel() {
+			reload.setRepeats(false);
+			MouseAdapter mouse = new MouseAdapter() {
+				@Override
+				public void mousePressed(MouseEvent e) {
+					dragX = e.getX();
+				}
 				
-				String line;
-				while ((line = br.readLine()) != null) {
-					lines.add(line);
+				@Override
+				public void mouseDragged(MouseEvent e) {
+					synchronized (MonitorGraph.this) {
+						long shift = (long) ((double) (dragX - e.getX()) / plotWidth() * (to - from));
+						from += shift;
+						to += shift;
+					}
+					dragX = e.getX();
+					repaint();
+					reload.restart();
 				}
 				
-				this.LOG_DATA = new String[lines.size()][6];
-				for (int i = 0; i < lines.size(); i++) {
-					String[] data = lines.get(i).split(" ");
-					System.arraycopy(data, 0, this.LOG_DATA[i], 0, data.length);
+				@Override
+				public void mouseWheelMoved(MouseWheelEvent e) {
+					synchronized (MonitorGraph.this) {
+						double factor = Math.pow(1.25, e.getPreciseWheelRotation());
+						double pointer = from + (double) Math.max(0, e.getX() - LEFT) / plotWidth() * (to - from);
+						long span = Math.max(MIN_SPAN, (long) ((to - from) * factor));
+						from = (long) (pointer - (pointer - from) * span / (to - from));
+						to = from + span;
+					}
+					repaint();
+					reload.restart();
 				}
+			};
+			addMouseListener(mouse);
+			addMouseMotionListener(mouse);
+			addMouseWheelListener(mouse);
+		}
+		
+		/**
+		 * Reads the samples of the range that is shown. Only the most recent read is kept, since the range may have
+		 * moved again while an earlier one was running.
+		 */
+		private void load() {
+			long start;
+			long end;
+			synchronized (MonitorGraph.this) {
+				start = from;
+				end = to;
+			}
+			if (loading != null) {
+				loading.cancel(false);
 			}
-		} catch (Exception e) {
-			LOGGER.error("Unable to find log file.", e);
+			loading = new SwingWorker<Map<String, Samples>, Void>() {
+				
+				@Override
+				protected Map<String, Samples> doInBackground() {
+					return loadData(start, Math.max(end, start + MIN_SPAN));
+				}
+				
+				@Override
+				protected void done() {
+					if (isCancelled() || loading != this) {
+						return;
+					}
+					try {
+						Map<String, Samples> loaded = get();
+						synchronized (MonitorGraph.this) {
+							data = loaded;
+						}
+					} catch (InterruptedException | ExecutionException e) {
+						LOGGER.error("Unable to read the monitor samples.", e);
+					}
+					repaint();
+				}
+				
+			};
+			loading.execute();
 		}
 		
-	}
-	
-	public void showGraph() {
+		private int plotWidth() {
+			return Math.max(1, getWidth() - LEFT - RIGHT);
+		}
+		
+		@Override
+		protected void paintComponent(Graphics g) {
+			render((Graphics2D) g, getWidth(), getHeight());
+		}
 		
 	}
 	
@@ -30,7 +30,7 @@ import java.awt.*;
 
 import javax.swing.*;
 
-import com.jamfsoftware.jss.healthcheck.controller.ConfigurationController;
+import com.jamfsoftware.jss.healthcheck.controller.ConfigurationSnapshot;
 import com.jamfsoftware.jss.healthcheck.ui.component.URLLabel;
 import com.jamfsoftware.jss.healthcheck.util.StringConstants;
 
@@ -305,7 +305,7 @@ public class PanelGenerator {
 	 * @return a JPanel with content, and icon
 	 */
 	public JPanel generateContentPanelHelp(String title, String help_title, String help_link, String icon) {
-		ConfigurationController config = new ConfigurationController(true);
+		ConfigurationSnapshot config = ConfigurationSnapshot.current();
 		JPanel panelContent = new JPanel(new BorderLayout());
 		//Add the header panel and text
 		JPanel header = new JPanel();
@@ -344,7 +344,7 @@ public class PanelGenerator {
 			container.add(new JLabel("   "));
 		}
 		if (this.showGroupsHelp) {
-			container.add(new URLLabel("<html><u>One or more of the smart groups has potential issues.</u><br><u>Click for recommended configuration.</u><br></html>", "Smart Groups that contain more than " + config.getValue("configurations,smart_groups", "criteria_count")[0] + " can increase smart group calculation times.\nAttempt to limit the number of criteria, especially when using the group for scoping.\nSmart Groups with other Smart Groups as criteria are also discouraged.\nPlease consider revising these groups."));
+			container.add(new URLLabel("<html><u>One or more of the smart groups has potential issues.</u><br><u>Click for recommended configuration.</u><br></html>", "Smart Groups that contain more than " + config.getString("configurations,smart_groups", "criteria_count", "") + " can increase smart group calculation times.\nAttempt to limit the number of criteria, especially when using the group for scoping.\nSmart Groups with other Smart Groups as criteria are also discouraged.\nPlease consider revising these groups."));
 			container.add(new JLabel("   "));
 		}
 		if (this.showLargeDatabase) {
@@ -26,10 +26,13 @@ package com.jamfsoftware.jss.healthcheck.ui.generator;
  * #L%
  */
 
-import com.jamfsoftware.jss.healthcheck.controller.ConfigurationController;
+import com.jamfsoftware.jss.healthcheck.controller.CapacityModel.Recommendation;
+import com.jamfsoftware.jss.healthcheck.controller.ConfigurationSnapshot;
 
 /**
  * This class handles producing the icons for the HealthReportGUI
+ * The thresholds come from the shared {@link ConfigurationSnapshot}, so config.xml is not read again for each icon.
+ * Server size thresholds come from a {@link Recommendation} that is evaluated once for the environment.
  */
 public class PanelIconGenerator {
 	
@@ -51,105 +54,29 @@ public class PanelIconGenerator {
 		return null;
 	}
 	
-	public String getDatabaseInfoIconType(int total_devices, double database_size, int large_table_count) {
-		ConfigurationController config = new ConfigurationController(true);
-		//Check to make sure they gave a value.
-		String data_base_checker;
-		int data_base_size_recommend;
-		if (total_devices < 500) {
-			data_base_checker = config.getValue("configurations,jss_size,up_to_500", "db_size")[0];
-		} else if (total_devices < 1000 && total_devices > 500) {
-			data_base_checker = config.getValue("configurations,jss_size,up_to_1000", "db_size")[0];
-		} else if (total_devices < 2000 && total_devices > 10000) {
-			data_base_checker = config.getValue("configurations,jss_size,up_to_2000", "db_size")[0];
-		} else {
-			data_base_checker = config.getValue("configurations,jss_size,up_to_5000", "db_size")[0];
-		}
-		//They didn't provide a value, so set it high enough to (hopefully) not be triggered.
-		if (data_base_checker.equals("")) {
-			data_base_size_recommend = 900000000; //MB, This shouldn't be hit for a long, long, long time.
-			//They provided a value, so parse the int from XML
-		} else {
-			data_base_size_recommend = Integer.parseInt(data_base_checker);
-		}
-		
-		if (total_devices < 500) {
-			if (database_size > data_base_size_recommend) {
-				return "yellow";
-			}
-		} else if (total_devices < 1000 && total_devices > 500) {
-			if (database_size > data_base_size_recommend) {
-				return "yellow";
-			}
-		} else if (total_devices < 2000 && total_devices > 1000) {
-			if (database_size > data_base_size_recommend) {
-				return "yellow";
-			}
-		} else {
-			if (database_size > data_base_size_recommend) {
-				return "yellow";
-			}
+	public String getDatabaseInfoIconType(Recommendation capacity, double database_size, int large_table_count) {
+		int data_base_size_recommend = capacity.getDatabaseSize();
+		//Only warn if they gave a value.
+		if (data_base_size_recommend != ConfigurationSnapshot.NOT_CONFIGURED && database_size > data_base_size_recommend) {
+			return "yellow";
 		}
 		return "green";
 	}
 	
-	public String getSystemInfoIconType(int total_devices, String java_version, double max_memory) {
+	public String getSystemInfoIconType(Recommendation capacity, String java_version, double max_memory) {
 		double memory_in_mb = max_memory / 1000000;
-		ConfigurationController config = new ConfigurationController(true);
-		//Check to make sure they gave a value.
-		String server_mem_checker;
-		int server_mem_recommended;
-		if (total_devices < 500) {
-			server_mem_checker = config.getValue("configurations,jss_size,up_to_500", "tomcat_mem")[0];
-		} else if (total_devices < 1000 && total_devices > 500) {
-			server_mem_checker = config.getValue("configurations,jss_size,up_to_1000", "tomcat_mem")[0];
-		} else if (total_devices < 2000 && total_devices > 10000) {
-			server_mem_checker = config.getValue("configurations,jss_size,up_to_2000", "tomcat_mem")[0];
-		} else {
-			server_mem_checker = config.getValue("configurations,jss_size,up_to_5000", "tomcat_mem")[0];
-		}
-		//They didn't provide a value, so set it high enough to (hopefully) not be triggered.
-		if (server_mem_checker.equals("")) {
-			server_mem_recommended = 900000000; //MB, This shouldn't be hit for a long, long, long time.
-			//They provided a value, so parse the int from XML
-		} else {
-			server_mem_recommended = Integer.parseInt(server_mem_checker);
-		}
+		int server_mem_recommended = capacity.getTomcatMemory();
 		
 		if (java_version.contains("1.6")) {
 			this.showSystemRequirements = true;
 			return "red";
 		}
-		if (total_devices < 500) {
-			if (memory_in_mb < server_mem_recommended) {
-				this.showScalability = true;
-				return "yellow";
-			} else {
-				return "green";
-			}
-		} else if (total_devices < 1000 && total_devices > 500) {
-			if (memory_in_mb < server_mem_recommended) {
-				this.showScalability = true;
-				return "yellow";
-			} else {
-				return "green";
-			}
-		} else if (total_devices < 2000 && total_devices > 100) {
-			if (memory_in_mb < server_mem_recommended) {
-				this.showScalability = true;
-				return "yellow";
-			} else {
-				return "green";
-			}
-		} else {
-			if (memory_in_mb < server_mem_recommended) {
-				this.showScalability = true;
-				return "yellow";
-			} else {
-				return "green";
-			}
+		//Only warn if they gave a value.
+		if (server_mem_recommended != ConfigurationSnapshot.NOT_CONFIGURED && memory_in_mb < server_mem_recommended) {
+			this.showScalability = true;
+			return "yellow";
 		}
-		
+		return "green";
 	}
 	
 	public String getPoliciesAndScriptsIconType(int policies_count, int scripts_count) {
@@ -163,55 +90,26 @@ public class PanelIconGenerator {
 		
 	}
 	
-	public String getJSSEnvIconType(int total_devices, int checkin_freq, int computer_ea, int mobile_ea) {
+	public String getJSSEnvIconType(Recommendation capacity, int checkin_freq, int computer_ea, int mobile_ea) {
 		int bad_count = 0;
-		ConfigurationController config = new ConfigurationController(true);
-		//Check to make sure they gave a value.
-		String check_in_time_checker;
-		int checkin_time;
-		if (total_devices < 500) {
-			check_in_time_checker = config.getValue("configurations,jss_size,up_to_500", "checkin")[0];
-		} else if (total_devices < 1000 && total_devices > 500) {
-			check_in_time_checker = config.getValue("configurations,jss_size,up_to_1000", "checkin")[0];
-		} else if (total_devices < 2000 && total_devices > 10000) {
-			check_in_time_checker = config.getValue("configurations,jss_size,up_to_2000", "checkin")[0];
-		} else {
-			check_in_time_checker = config.getValue("configurations,jss_size,up_to_5000", "checkin")[0];
-		}
+		ConfigurationSnapshot config = ConfigurationSnapshot.current();
+		int checkin_time = capacity.getCheckInFrequency();
 		//They didn't provide a value, so set it high enough to be any checkin time
-		if (check_in_time_checker.equals("")) {
+		if (checkin_time == ConfigurationSnapshot.NOT_CONFIGURED) {
 			checkin_time = 100;
-			//They provided a value, so parse the int from XML
-		} else {
-			checkin_time = Integer.parseInt(check_in_time_checker);
 		}
 		
-		if (total_devices < 500) {
-			if (checkin_freq > checkin_time) {
-				bad_count++;
-				this.showCheckinFreq = true;
-			}
-		} else if (total_devices < 1000 && total_devices > 500) {
-			if (checkin_freq > checkin_time) {
-				bad_count++;
-				this.showCheckinFreq = true;
-			}
-		} else if (total_devices < 2000 && total_devices > 10000) {
-			if (checkin_freq > checkin_time) {
-				bad_count++;
-				this.showCheckinFreq = true;
-			}
-		} else {
-			if (checkin_freq > checkin_time) {
-				bad_count++;
-				this.showCheckinFreq = true;
-			}
+		if (checkin_freq > checkin_time) {
+			bad_count++;
+			this.showCheckinFreq = true;
 		}
-		if (computer_ea > Integer.parseInt(config.getValue("configurations,extension_attributes", "computer")[0])) {
+		int computer_ea_limit = config.getComputerExtensionAttributeCount();
+		if (computer_ea_limit != ConfigurationSnapshot.NOT_CONFIGURED && computer_ea > computer_ea_limit) {
 			bad_count++;
 			this.showExtensionAttributes = true;
 		}
-		if (mobile_ea > Integer.parseInt(config.getValue("configurations,extension_attributes", "mobile")[0])) {
+		int mobile_ea_limit = config.getMobileDeviceExtensionAttributeCount();
+		if (mobile_ea_limit != ConfigurationSnapshot.NOT_CONFIGURED && mobile_ea > mobile_ea_limit) {
 			bad_count++;
 			this.showExtensionAttributes = true;
 		}
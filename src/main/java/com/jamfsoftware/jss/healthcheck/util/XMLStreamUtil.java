@@ -0,0 +1,104 @@
+package com.jamfsoftware.jss.healthcheck.util;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads values out of XML bodies with StAX, without building a document in memory.
+ *
+ * @since 1.0
+ */
+public final class XMLStreamUtil {
+	
+	private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+	
+	static {
+		FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+	
+	private XMLStreamUtil() {
+	}
+	
+	/**
+	 * Counts the entries of a JSS API list, such as {@code <computers><size>2</size><computer/><computer/></computers>}.
+	 * Reading stops at the {@code <size>} element when the list has one; otherwise the children of the root element
+	 * are counted as they stream past. Only the current element is ever held in memory.
+	 *
+	 * @param in The XML body of the list
+	 *
+	 * @return The number of entries in the list
+	 *
+	 * @throws IOException If the body is not well-formed XML, or its size is not a number
+	 */
+	public static int countListEntries(InputStream in) throws IOException {
+		XMLStreamReader reader = null;
+		try {
+			reader = FACTORY.createXMLStreamReader(in);
+			reader.nextTag();
+			
+			int count = 0;
+			int depth = 0;
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					if (depth == 0) {
+						if (reader.getLocalName().equals("size")) {
+							return Integer.parseInt(reader.getElementText().trim());
+						}
+						count++;
+					}
+					depth++;
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					if (depth == 0) {
+						break;
+					}
+					depth--;
+				}
+			}
+			return count;
+		} catch (XMLStreamException | NumberFormatException e) {
+			throw new IOException("Unable to count list entries", e);
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) {
+					// The underlying stream is owned and closed by the caller
+				}
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,96 @@
+package com.jamfsoftware.jss.healthcheck;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult.SmartGroup;
+
+public class HealthCheckResultTests {
+	
+	@Test
+	public void testJSONRoundTrip() {
+		HealthCheckResult result = new HealthCheckResult();
+		result.setJSSUrl("https://jss.example.com:8443");
+		result.setTotalComputers(1200);
+		result.setTotalMobileDevices(300);
+		result.setTotalUsers(50);
+		Map<String, Double> largeTables = new LinkedHashMap<>();
+		largeTables.put("applications", 1500.5);
+		largeTables.put("fonts", 900.0);
+		result.getSystem().setLargeTables(largeTables);
+		result.getSystem().setDatabaseSize(2500);
+		result.setCheckInFrequency(15);
+		result.setComputerGroups(Collections.singletonList(new SmartGroup("7", "All \"Macs\"", 1, 6)));
+		result.setScriptsNeedingUpdate(Arrays.asList("cleanup.sh", "recon.sh"));
+		result.setGSXConnection(false, null);
+		result.setPasswordRequirements(true, false, true, false);
+		result.setDeviceRowCounts(10, 10, 4, 5);
+		result.setTimedOutSections(Arrays.asList("summary", "policies"));
+		result.setAPIHedging(1500, 40, 31);
+		result.setIncompleteSections(Collections.singletonMap("policies", 12));
+		
+		HealthCheckResult read = HealthCheckResult.fromJSON(result.toJSON().toString());
+		assertEquals("The JSS URL should survive a round trip", "https://jss.example.com:8443", read.getJSSUrl());
+		assertEquals("The device totals should survive a round trip", 1500, read.getTotalComputers() + read.getTotalMobileDevices());
+		assertEquals("Every large table should be written", largeTables, read.getSystem().getLargeTables());
+		assertEquals("The database size should survive a round trip", 2500, read.getSystem().getDatabaseSize(), 0);
+		assertEquals("The check-in frequency should survive a round trip", 15, read.getCheckInFrequency());
+		assertEquals("The group name should survive a round trip", "All \"Macs\"", read.getComputerGroups().get(0).getName());
+		assertEquals("The criteria count should survive a round trip", 6, read.getComputerGroups().get(0).getCriteriaCount());
+		assertEquals("Every script should be written", Arrays.asList("cleanup.sh", "recon.sh"), read.getScriptsNeedingUpdate());
+		assertEquals("The GSX status should survive a round trip", Boolean.FALSE, read.isGSXConnectionEnabled());
+		assertTrue("The password requirements should survive a round trip", read.isPasswordRequiresUppercase() && read.isPasswordRequiresNumber());
+		assertEquals("The row counts should survive a round trip", 5, read.getMobileDevicesDenormalizedRowCount());
+		assertEquals("The timed out sections should survive a round trip", Arrays.asList("summary", "policies"), read.getTimedOutSections());
+		assertEquals("The hedged requests should survive a round trip", 40, read.getAPIHedgedRequests());
+		assertEquals("The hedge wins should survive a round trip", 31, read.getAPIHedgeWins());
+		assertEquals("The incomplete sections should survive a round trip", Collections.singletonMap("policies", 12), read.getIncompleteSections());
+	}
+	
+	@Test
+	public void testMissingValuesAreLeftUnset() {
+		HealthCheckResult read = HealthCheckResult.fromJSON("{\"healthcheck\":{\"jss_url\":\"https://jss\",\"checkdata\":{\"computercheckin\":{}}}}");
+		assertEquals("The JSS URL should be read", "https://jss", read.getJSSUrl());
+		assertEquals("A missing count should be -1", -1, read.getCheckInFrequency());
+		assertNull("A missing status should be null", read.isManagedPreferenceProfilesEnabled());
+		assertTrue("A missing list should be empty", read.getPoliciesWithIssues().isEmpty());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testJSONWithoutHealthCheckIsRejected() {
+		HealthCheckResult.fromJSON("{\"report\":{}}");
+	}
+	
+}
@@ -0,0 +1,113 @@
+package com.jamfsoftware.jss.healthcheck;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class JSSSummaryRequestTests {
+	
+	/**
+	 * The part of the summary form of a 9.96 JSS that lists the sections, trimmed to a few of each group.
+	 */
+	private static final String FORM = String.join("\n",
+			"<form name=\"summaryForm\" method=\"post\" action=\"summary.html\">",
+			"<input type=\"hidden\" name=\"session-token\" value=\"f2c1\">",
+			"<table class=\"sectionTable\">",
+			"<tr><td colspan=\"2\"><h3>Server &amp; Database</h3></td></tr>",
+			"<tr><td><input type=\"checkbox\" name=\"2\" id=\"2\" checked=\"checked\"></td><td><label for=\"2\">Server Information</label></td></tr>",
+			"<tr><td><input type=\"checkbox\" name=\"3\" id=\"3\"></td><td><label for=\"3\">Database Information</label></td></tr>",
+			"<tr><td colspan=\"2\"><h3>JSS Settings</h3></td></tr>",
+			"<tr><td><input type=\"checkbox\" name=\"24\" id=\"24\"></td><td><label for=\"24\">Activation Code</label></td></tr>",
+			"<tr><td><input type=\"checkbox\" name=\"350\" id=\"350\"></td><td><label for=\"350\">Apache Tomcat Settings</label></td></tr>",
+			"<tr><td><input type=\"checkbox\" name=\"600\" id=\"600\"></td><td><label for=\"600\">Change Management</label></td></tr>",
+			"<tr><td><input type=\"checkbox\" name=\"22\" id=\"22\"></td><td><label for=\"22\">Clustering</label></td></tr>",
+			"<tr><td><input type=\"checkbox\" name=\"26\" id=\"26\"></td><td><label for=\"26\">Log Flushing</label></td></tr>",
+			"<tr><td><input type=\"checkbox\" name=\"23\" id=\"23\"></td><td><label for=\"23\">Password Policy</label></td></tr>",
+			"<tr><td><input type=\"checkbox\" name=\"28\" id=\"28\"></td><td><label for=\"28\">Push Certificates</label></td></tr>",
+			"<tr><td colspan=\"2\"><h3>Computer Management</h3></td></tr>",
+			"<tr><td><input type='checkbox' name='65' id='65'></td><td><label for='65'>Check-In</label></td></tr>",
+			"<tr><td><input type='checkbox' name='80' id='80'></td><td><label for='80'>Inventory Collection</label></td></tr>",
+			"</table>",
+			"<input type=\"checkbox\" name=\"tableRowCounts\" checked> Table row counts",
+			"<input type=\"checkbox\" name=\"tableSize\" checked> Table sizes",
+			"<input type=\"text\" name=\"username\" value=\"\">",
+			"<input type=\"submit\" name=\"action\" value=\"Create\">",
+			"</form>");
+			
+	@Test
+	public void testFormLabelsAreReadByID() {
+		Map<String, String> form = JSSSummaryRequest.parseForm(FORM);
+		assertEquals("Every numbered checkbox should be read, in the order of the form",
+				Arrays.asList("2", "3", "24", "350", "600", "22", "26", "23", "28", "65", "80"), Arrays.asList(form.keySet().toArray()));
+		assertEquals("The label should be the text after the checkbox", "Server Information", form.get("2"));
+		assertEquals("The group heading before the next checkbox belongs to the label", "Database Information JSS Settings", form.get("3"));
+		assertEquals("Single quoted attributes should be read", "Check-In", form.get("65"));
+		assertEquals("The last checkbox should end at the next input", "Inventory Collection", form.get("80"));
+	}
+	
+	@Test
+	public void testNeededSectionsAreSelected() {
+		Set<String> ids = JSSSummaryRequest.selectSections(JSSSummaryRequest.parseForm(FORM), JSSSummary.FORM_SECTIONS);
+		assertEquals("The server information and every needed section should be selected, in the order of the form",
+				new LinkedHashSet<>(Arrays.asList("2", "24", "350", "600", "22", "26", "23", "28", "65")), ids);
+		assertEquals("The selected IDs should be iterated in the order of the form", "2", ids.iterator().next());
+	}
+	
+	@Test
+	public void testMissingSectionSelectsNothing() {
+		String form = FORM.replace("Log Flushing", "Logging");
+		assertNull("A section missing from the form should fall back to every section",
+				JSSSummaryRequest.selectSections(JSSSummaryRequest.parseForm(form), JSSSummary.FORM_SECTIONS));
+		assertNull("A page without checkboxes should fall back to every section",
+				JSSSummaryRequest.selectSections(JSSSummaryRequest.parseForm("<html>Login</html>"), JSSSummary.FORM_SECTIONS));
+	}
+	
+	@Test
+	public void testSectionIdsAreKeptByVersion() {
+		JSSSummaryRequest.setSectionIds(9.96, new LinkedHashSet<>(Arrays.asList("2", "23")));
+		JSSSummaryRequest.setSectionIds(9.81, null);
+		assertEquals("The IDs should be kept for their version", new LinkedHashSet<>(Arrays.asList("2", "23")), JSSSummaryRequest.getSectionIds(9.96));
+		assertEquals("A version without IDs should request every section", Collections.emptySet(), JSSSummaryRequest.getSectionIds(9.81));
+		assertNull("A version whose form was not read should have no entry", JSSSummaryRequest.getSectionIds(9.5));
+	}
+	
+	@Test
+	public void testMinimalQueryHasOnlyTheSelectedSections() {
+		String query = JSSSummaryRequest.minimal(9.96, Arrays.asList("2", "23"));
+		assertTrue("The selected sections should be requested", query.startsWith("2=on&23=on&tableRowCounts=on&tableSize=on&action=Create&"));
+		assertTrue("The query should end with the username parameter", query.endsWith("username="));
+	}
+	
+}
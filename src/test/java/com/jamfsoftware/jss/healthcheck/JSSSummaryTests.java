@@ -0,0 +1,148 @@
+package com.jamfsoftware.jss.healthcheck;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class JSSSummaryTests {
+	
+	private static final String SECTION = "==========================================================================================";
+	private static final String SUBSECTION = "----------------------------------------------------------------------------------";
+	
+	private static final String SUMMARY = String.join("\n",
+			"JSS Summary",
+			SECTION,
+			SUBSECTION,
+			"Server Info",
+			"\tOperating System ........................ Mac OS X 10.11.6",
+			"\tJava Version ............................ 1.8.0_101",
+			"\tJava Vendor ............................. Oracle Corporation",
+			"\tWeb App Installed To .................... C:\\Program Files\\JSS\\Tomcat\\webapps\\ROOT",
+			SUBSECTION,
+			"Database",
+			"\tDatabase Size ........................... 2.5 GB",
+			"\tversion ................................. 5.6.20",
+			SECTION,
+			"Password Policy",
+			SECTION,
+			"\tRequire Lowercase ....................... false",
+			"\tRequire Uppercase ....................... true",
+			"\tRequire Number .......................... true",
+			"\tRequire Special Characters .............. false",
+			SECTION,
+			"Change Management",
+			SECTION,
+			"\tUse Log File ............................ true",
+			"\tLocation of Log File .................... /var/log/jss.log",
+			SECTION,
+			"Push Certificates",
+			SECTION,
+			"\tName .................................... Push Proxy Authorization Token",
+			"\tExpires ................................. 2018/01/01",
+			SUBSECTION,
+			"\tName .................................... MDM Push Notification Certificate",
+			"\tExpires ................................. 2017/06/30",
+			SECTION,
+			"Activation Code",
+			SECTION,
+			"\tOrganization Name ....................... JAMF",
+			"\tExpires ................................. 2099/12/31",
+			SECTION,
+			"Table row counts",
+			SECTION,
+			"\tcomputers ............................... 1,200",
+			"\tcomputers_denormalized .................. 1,200",
+			"\tmobile_devices .......................... 300",
+			"\tmobile_devices_denormalized ............. 299",
+			SECTION);
+			
+	@Test
+	public void testValuesAreFoundByName() {
+		JSSSummary summary = new JSSSummary(SUMMARY);
+		assertEquals("Operating system did not match", "Mac OS X 10.11.6", summary.getOperatingSystem());
+		assertEquals("Java version did not match", "1.8.0_101", summary.getJavaVersion());
+		assertEquals("Java vendor did not match", "Oracle Corporation", summary.getJavaVendor());
+		assertEquals("MySQL version did not match", "5.6.20", summary.getMySQLVersion());
+		assertEquals("Web app directory did not match", "C/Program Files/JSS/Tomcat/webapps/ROOT", summary.getWebAppDir());
+		assertEquals("Database size was not converted to MB", 2500, summary.getDatabaseSize(), 0.001);
+		assertEquals("Activation code expiration did not match", "2099/12/31", summary.getActivationCodeExpiration());
+		assertArrayEquals("Change management values did not match", new String[] { "true", "/var/log/jss.log" }, summary.getChangeManagementInfo());
+		assertEquals("Table row counts did not match", "1200,1200,300,299", summary.getTableRowCounts());
+	}
+	
+	@Test
+	public void testReorderedFieldsAreFound() {
+		JSSSummary summary = new JSSSummary(SUMMARY);
+		assertArrayEquals("Password policy values did not match", new String[] { "true", "false", "true", "false" }, summary.getPasswordInformation());
+		assertArrayEquals("Push certificate expirations did not match", new String[] { "2017/06/30", "2018/01/01" }, summary.getPushCertInfo());
+	}
+	
+	@Test
+	public void testMissingValuesDoNotThrow() {
+		JSSSummary summary = new JSSSummary(SUMMARY);
+		assertEquals("A missing value should be empty", "", summary.getLogFlushingInfo());
+		assertEquals("A missing value should be empty", "", summary.getIsClustered());
+		assertFalse("Missing hooks should read as disabled", summary.loginLogoutHooksEnabled());
+		assertTrue("Missing table sizes should be empty", summary.getLargeMySQLTables().isEmpty());
+	}
+	
+	@Test
+	public void testMissingSectionsAreListed() {
+		JSSSummary summary = new JSSSummary(SUMMARY);
+		assertFalse("A summary without every section should not be complete", summary.isComplete());
+		assertTrue("Sections left out of the summary should be listed", summary.getMissing().containsAll(Arrays.asList("Clustering", "Log Flushing", "Table sizes")));
+		assertFalse("Sections in the summary should not be listed", summary.getMissing().contains("Password Policy"));
+		assertFalse("Keys in the summary should not be listed", summary.getMissing().contains("Java Version"));
+	}
+	
+	@Test
+	public void testSummaryWithoutLineBreaks() {
+		JSSSummary summary = new JSSSummary(SUMMARY.replace("\n", ""));
+		assertEquals("Operating system did not match", "Mac OS X 10.11.6", summary.getOperatingSystem());
+		assertArrayEquals("Password policy values did not match", new String[] { "true", "false", "true", "false" }, summary.getPasswordInformation());
+	}
+	
+	@Test
+	public void testLargeTablesAreSortedAndTrimmed() {
+		StringBuilder tables = new StringBuilder(SECTION + "\nTable sizes\n" + SECTION + "\n");
+		for (int i = 1; i <= 12; i++) {
+			tables.append("\ttable_").append(i).append(" ......... ").append(i).append(" MB\n");
+		}
+		tables.append("\tbig_table ......... 1.5 GB\n");
+		
+		Map<String, Double> large = new JSSSummary(tables.toString()).getLargeMySQLTables();
+		assertEquals("The ten smallest tables should be left out", 3, large.size());
+		assertEquals("The largest table should be first", "big_table", large.keySet().iterator().next());
+		assertEquals("GB should be converted to MB", 1500, large.get("big_table"), 0.001);
+	}
+	
+}
@@ -0,0 +1,165 @@
+package com.jamfsoftware.jss.healthcheck.check;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jamfsoftware.jss.healthcheck.HealthCheckResult;
+import com.jamfsoftware.jss.healthcheck.JSSSummary;
+import com.jamfsoftware.jss.healthcheck.controller.ConfigurationSnapshot;
+import com.jamfsoftware.jss.healthcheck.controller.HTTPController;
+
+public class CheckSchedulerTests {
+	
+	private final List<String> ran = new CopyOnWriteArrayList<>();
+	private HTTPController api;
+	private CheckScheduler scheduler;
+	
+	@Before
+	public void createScheduler() {
+		api = new HTTPController("admin", "password");
+		scheduler = new CheckScheduler(new CheckContext(api, "http://127.0.0.1:1", new JSSSummary(""), ConfigurationSnapshot.EMPTY));
+	}
+	
+	@After
+	public void closeController() {
+		api.close();
+	}
+	
+	@Test
+	public void testDependenciesRunFirst() throws Exception {
+		List<HealthCheckModule> modules = Arrays.asList(
+				new StubModule("reports", () -> ran.add("reports"), "groups"),
+				new StubModule("groups", () -> ran.add("groups"), "policies"),
+				new StubModule("policies", () -> {
+					Thread.sleep(100);
+					ran.add("policies");
+				}));
+		scheduler.run(modules, new HealthCheckResult());
+		
+		assertEquals("Each module should run after the modules it depends on", Arrays.asList("policies", "groups", "reports"), ran);
+		assertEquals("Every module should have a timing", 3, scheduler.getTimings().size());
+		assertTrue("No module should be skipped", scheduler.getSkipped().isEmpty());
+	}
+	
+	@Test
+	public void testCycleIsNotRun() throws Exception {
+		List<HealthCheckModule> modules = Arrays.asList(
+				new StubModule("groups", () -> ran.add("groups"), "policies"),
+				new StubModule("policies", () -> ran.add("policies"), "groups"),
+				new StubModule("reports", () -> ran.add("reports"), "groups"),
+				new StubModule("printers", () -> ran.add("printers")));
+		scheduler.run(modules, new HealthCheckResult());
+		
+		assertEquals("Only the module outside the cycle should run", Collections.singletonList("printers"), ran);
+		assertEquals("Every module on the cycle should be skipped once, then its dependents",
+				Arrays.asList("groups", "policies", "reports"), scheduler.getSkipped());
+	}
+	
+	@Test
+	public void testFailedDependencySkipsDependents() throws Exception {
+		List<HealthCheckModule> modules = Arrays.asList(
+				new StubModule("policies", () -> {
+					ran.add("policies");
+					throw new IllegalStateException("The policies could not be read");
+				}),
+				new StubModule("groups", () -> ran.add("groups"), "policies"),
+				new StubModule("reports", () -> ran.add("reports"), "groups"),
+				new StubModule("printers", () -> ran.add("printers")));
+		scheduler.run(modules, new HealthCheckResult());
+		
+		assertTrue("The failed module should have run", ran.contains("policies"));
+		assertTrue("An independent module should still run", ran.contains("printers"));
+		assertFalse("A module that depends on a failed module should not run", ran.contains("groups"));
+		assertFalse("A module that depends on a skipped module should not run", ran.contains("reports"));
+		assertEquals("The dependents should be skipped in order", Arrays.asList("groups", "reports"), scheduler.getSkipped());
+		assertFalse("A skipped module should have no timing", scheduler.getTimings().containsKey("groups"));
+		assertTrue("Skipping dependents of a failure is not running out of time", scheduler.getTimedOut().isEmpty());
+	}
+	
+	@Test
+	public void testModulesRunningWhenCancelledTimeOut() throws Exception {
+		List<HealthCheckModule> modules = Arrays.asList(
+				new StubModule("printers", () -> ran.add("printers")),
+				new StubModule("policies", () -> {
+					api.cancel();
+					throw new IllegalStateException("The policies were cut off");
+				}, "printers"),
+				new StubModule("groups", () -> ran.add("groups"), "policies"));
+		scheduler.run(modules, new HealthCheckResult());
+		
+		assertEquals("Only the module that finished before the cancel should not time out", Arrays.asList("policies", "groups"), scheduler.getTimedOut());
+		assertEquals("The dependent of the cut off module should be skipped", Collections.singletonList("groups"), scheduler.getSkipped());
+		assertEquals("Only the module before the cancel should have run", Collections.singletonList("printers"), ran);
+	}
+	
+	private interface Check {
+		
+		void run() throws Exception;
+		
+	}
+	
+	private static final class StubModule implements HealthCheckModule {
+		
+		private final String section;
+		private final Check check;
+		private final List<String> dependencies;
+		
+		StubModule(String section, Check check, String... dependencies) {
+			this.section = section;
+			this.check = check;
+			this.dependencies = Arrays.asList(dependencies);
+		}
+		
+		@Override
+		public String getSection() {
+			return section;
+		}
+		
+		@Override
+		public Collection<String> getDependencies() {
+			return dependencies;
+		}
+		
+		@Override
+		public void check(CheckContext context, HealthCheckResult result) throws Exception {
+			check.run();
+		}
+		
+	}
+	
+}
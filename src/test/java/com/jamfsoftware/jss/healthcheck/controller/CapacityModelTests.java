@@ -0,0 +1,96 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import com.jamfsoftware.jss.healthcheck.controller.CapacityModel.Recommendation;
+
+public class CapacityModelTests {
+	
+	private static final String MODEL = "<healthcheck><configurations><capacity_model>"
+			+ "<breakpoint><devices>5000</devices><db_size>4096</db_size><tomcat_mem>8192</tomcat_mem><checkin>30</checkin></breakpoint>"
+			+ "<breakpoint><devices>1000</devices><db_size>1024</db_size><tomcat_mem>4096</tomcat_mem><checkin/></breakpoint>"
+			+ "<breakpoint><devices>2000</devices><db_size>2048</db_size><tomcat_mem>6144</tomcat_mem><checkin>15</checkin></breakpoint>"
+			+ "</capacity_model></configurations></healthcheck>";
+			
+	private static final String TIERS = "<healthcheck><configurations><jss_size>"
+			+ "<up_to_500><db_size>500</db_size></up_to_500>"
+			+ "<up_to_1000><db_size>1024</db_size></up_to_1000>"
+			+ "</jss_size></configurations></healthcheck>";
+			
+	@Test
+	public void testInterpolation() throws Exception {
+		CapacityModel model = ConfigurationSnapshot.parse(MODEL).getCapacityModel();
+		assertEquals("A breakpoint should be used as is", 2048, model.evaluate(2000).getDatabaseSize());
+		assertEquals("Values between breakpoints should be on the line between them", 1536, model.evaluate(1500).getDatabaseSize());
+		assertEquals("Values between breakpoints should be on the line between them", 7168, model.evaluate(3500).getTomcatMemory());
+		assertEquals("Values below the first breakpoint should use it", 1024, model.evaluate(10).getDatabaseSize());
+		assertEquals("Negative device counts should be treated as none", 1024, model.evaluate(-1).getDatabaseSize());
+	}
+	
+	@Test
+	public void testExtrapolation() throws Exception {
+		Recommendation large = ConfigurationSnapshot.parse(MODEL).getCapacityModel().evaluate(40000);
+		assertEquals("Values past the last breakpoint should follow the last segment", 4096 + 35000 * 2048 / 3000, large.getDatabaseSize());
+		assertEquals("Bounded values past the last breakpoint should keep its value", 30, large.getCheckInFrequency());
+		assertEquals("Large environments should keep the device count", 40000, large.getDevices());
+	}
+	
+	@Test
+	public void testUnconfiguredValues() throws Exception {
+		CapacityModel model = ConfigurationSnapshot.parse(MODEL).getCapacityModel();
+		Recommendation recommendation = model.evaluate(1000);
+		assertEquals("An empty value should not be configured at its breakpoint", ConfigurationSnapshot.NOT_CONFIGURED, recommendation.getCheckInFrequency());
+		assertEquals("An empty value should not be configured below its breakpoint", ConfigurationSnapshot.NOT_CONFIGURED, model.evaluate(10).getCheckInFrequency());
+		assertEquals("Above an empty value the next breakpoint should apply", 15, model.evaluate(1500).getCheckInFrequency());
+		assertEquals("Values between configured breakpoints should still be interpolated", 20, model.evaluate(3000).getCheckInFrequency());
+		assertEquals("Values without breakpoints should not be configured", ConfigurationSnapshot.NOT_CONFIGURED, recommendation.getServerMemory());
+	}
+	
+	@Test
+	public void testShippedCheckInLimit() throws Exception {
+		CapacityModel model = ConfigurationSnapshot.parse(new String(Files.readAllBytes(Paths.get(getClass().getResource("/config.xml").toURI())), StandardCharsets.UTF_8)).getCapacityModel();
+		assertEquals("Small environments should have no check-in limit", ConfigurationSnapshot.NOT_CONFIGURED, model.evaluate(800).getCheckInFrequency());
+		assertEquals("The check-in limit should start at 2000 devices", 15, model.evaluate(2000).getCheckInFrequency());
+		assertEquals("The check-in limit should not grow past the last breakpoint", model.evaluate(100000).getCheckInFrequency(), model.evaluate(1000000).getCheckInFrequency());
+	}
+	
+	@Test
+	public void testLegacyTiers() throws Exception {
+		CapacityModel model = ConfigurationSnapshot.parse(TIERS).getCapacityModel();
+		assertEquals("Each tier should be a breakpoint at its limit", 500, model.evaluate(500).getDatabaseSize());
+		assertEquals("Values between tiers should be interpolated", 762, model.evaluate(750).getDatabaseSize());
+	}
+	
+}
@@ -0,0 +1,90 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CircuitBreakerTests {
+	
+	private static final String FAMILY = "/JSSResource/policies/id/*";
+	
+	@Test
+	public void testOpensAfterThreshold() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(3, 60);
+		breaker.recordFailure(FAMILY);
+		breaker.recordFailure(FAMILY);
+		breaker.check(FAMILY);
+		breaker.recordFailure(FAMILY);
+		assertTrue("Three failures in a row should open the circuit", breaker.isOpen(FAMILY));
+		assertFalse("Other families should not be affected", breaker.isOpen("/JSSResource/computers"));
+		
+		try {
+			breaker.check(FAMILY);
+			fail("An open circuit should fail at once");
+		} catch (CircuitOpenException e) {
+			// Expected
+		}
+	}
+	
+	@Test
+	public void testSuccessResets() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(3, 60);
+		breaker.recordFailure(FAMILY);
+		breaker.recordFailure(FAMILY);
+		breaker.recordSuccess(FAMILY);
+		breaker.recordFailure(FAMILY);
+		assertFalse("Only failures in a row should count", breaker.isOpen(FAMILY));
+	}
+	
+	@Test
+	public void testReopensAfterOneFailure() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(2, 0);
+		breaker.recordFailure(FAMILY);
+		breaker.recordFailure(FAMILY);
+		breaker.check(FAMILY);
+		assertFalse("The circuit should let requests through after the open period", breaker.isOpen(FAMILY));
+		
+		breaker.recordSuccess(FAMILY);
+		breaker.recordFailure(FAMILY);
+		assertFalse("A success should close the circuit", breaker.isOpen(FAMILY));
+	}
+	
+	@Test
+	public void testBackoff() {
+		RetryPolicy policy = new RetryPolicy(5, 100, 1000, 5, 30);
+		for (int i = 0; i < 100; i++) {
+			long first = policy.getDelay(1, 0);
+			assertTrue("The first delay should be at most the base delay: " + first, first >= 0 && first <= 100);
+			long late = policy.getDelay(10, 0);
+			assertTrue("The delay should be capped: " + late, late <= 1000);
+			assertEquals("Retry-After should be honoured up to the cap", 1000, policy.getDelay(1, 5000));
+		}
+	}
+	
+}
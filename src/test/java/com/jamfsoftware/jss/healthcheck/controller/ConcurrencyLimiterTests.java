@@ -0,0 +1,111 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ConcurrencyLimiterTests {
+	
+	private static final long FAST = 10000000;
+	private static final long SLOW = 10 * FAST;
+	
+	@Test
+	public void testFamily() {
+		assertEquals("Numeric IDs should be replaced", "/JSSResource/policies/id/*", EndpointFamily.of("https://jss.example.com:8443/JSSResource/policies/id/12"));
+		assertEquals("The query should be dropped", "/summary.html", EndpointFamily.of("https://jss.example.com/summary.html?username=a&password=b"));
+		assertEquals("Names should be kept", "/jss/JSSResource/computers", EndpointFamily.of("https://jss.example.com/jss/JSSResource/computers"));
+	}
+	
+	@Test
+	public void testGrowsToMaximum() throws Exception {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(8);
+		for (int i = 0; i < 50; i++) {
+			saturate(limiter, FAST, false);
+		}
+		assertEquals("A fast JSS should be sent the most requests allowed", 8, limiter.getLimits().get("/JSSResource/policies/id/*").intValue());
+	}
+	
+	@Test
+	public void testBacksOff() throws Exception {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(32);
+		for (int i = 0; i < 10; i++) {
+			saturate(limiter, FAST, false);
+		}
+		int before = limiter.getLimits().get("/JSSResource/policies/id/*");
+		saturate(limiter, FAST, true);
+		int after = limiter.getLimits().get("/JSSResource/policies/id/*");
+		assertTrue("Errors should lower the limit: " + before + " -> " + after, after < before);
+		assertTrue("A burst of errors should only back off once: " + before + " -> " + after, after >= (int) (before * ConcurrencyLimiter.BACKOFF));
+		
+		for (int i = 0; i < 10; i++) {
+			saturate(limiter, SLOW, false);
+		}
+		assertTrue("Slow responses should lower the limit", limiter.getLimits().get("/JSSResource/policies/id/*") < after);
+	}
+	
+	@Test
+	public void testSequentialFamiliesNotReported() throws Exception {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(8);
+		limiter.acquire("https://jss/summary.html").release(FAST, false);
+		assertTrue("A family with one request at a time has no limit to report", limiter.getLimits().isEmpty());
+	}
+	
+	/**
+	 * Sends as many requests as the limit allows, then answers them all.
+	 */
+	@Test
+	public void testHedgeHasOnePlaceOverTheLimit() throws Exception {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(2);
+		String url = "https://jss/JSSResource/policies/id/";
+		ConcurrencyLimiter.Permit first = limiter.acquire(url + 1);
+		limiter.acquire(url + 2);
+		
+		ConcurrencyLimiter.Permit hedge = limiter.tryAcquireHedge(url + 1);
+		assertNotNull("A hedge should get a place while the limit is full", hedge);
+		assertNull("Only one hedge should go over the limit", limiter.tryAcquireHedge(url + 2));
+		
+		hedge.cancel();
+		assertNotNull("A cancelled hedge should give its place back", limiter.tryAcquireHedge(url + 2));
+		first.release(FAST, false);
+		assertEquals("Giving a place back should not change the limit", 2, limiter.getLimits().get("/JSSResource/policies/id/*").intValue());
+	}
+	
+	private static void saturate(ConcurrencyLimiter limiter, long nanos, boolean failed) throws Exception {
+		String url = "https://jss/JSSResource/policies/id/";
+		int limit = limiter.getLimits().getOrDefault("/JSSResource/policies/id/*", ConcurrencyLimiter.INITIAL_LIMIT);
+		ConcurrencyLimiter.Permit[] held = new ConcurrencyLimiter.Permit[limit];
+		for (int i = 0; i < limit; i++) {
+			held[i] = limiter.acquire(url + i);
+		}
+		for (ConcurrencyLimiter.Permit permit : held) {
+			permit.release(nanos, failed);
+		}
+	}
+	
+}
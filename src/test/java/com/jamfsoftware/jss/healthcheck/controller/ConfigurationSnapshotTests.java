@@ -0,0 +1,73 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+public class ConfigurationSnapshotTests {
+	
+	private static final String CONFIG = "<healthcheck><jss_url>http://localhost:8080</jss_url><configurations>"
+			+ "<smart_groups><criteria_count>6</criteria_count></smart_groups>"
+			+ "<api><max_concurrency>four</max_concurrency></api>"
+			+ "</configurations></healthcheck>";
+			
+	@Test
+	public void testValues() throws Exception {
+		ConfigurationSnapshot config = ConfigurationSnapshot.parse(CONFIG);
+		assertEquals("Top level values should be read", "http://localhost:8080", config.getString(null, "jss_url", null));
+		assertEquals("Nested values should be read", 6, config.getSmartGroupCriteriaCount());
+		assertEquals("Malformed numbers should use the default", 8, config.getInt("configurations,api", "max_concurrency", 8));
+		assertEquals("Missing values should use the default", ConfigurationSnapshot.NOT_CONFIGURED, config.getComputerExtensionAttributeCount());
+		assertTrue("The minimal summary should be the default", config.isMinimalSummaryRequested());
+	}
+	
+	@Test
+	public void testShippedDefaults() throws Exception {
+		ConfigurationSnapshot shipped = shipped();
+		assertEquals("The shipped configuration should not limit the length of a run", 0, shipped.getRunTimeout());
+		assertEquals("The shipped configuration should not throttle requests", 0, shipped.getRateLimits().getTarget("https://jss.example.com:8443").getRate(), 0);
+		assertEquals("The shipped configuration should not throttle pages", 0, shipped.getRateLimits().getTarget("https://jss.example.com:8443").getPageRate(), 0);
+		assertFalse("The shipped configuration should not hedge requests", shipped.getHedgePolicy().isEnabled());
+	}
+	
+	@Test
+	public void testEmptySnapshot() {
+		assertEquals("Without breakpoints, nothing should be recommended", ConfigurationSnapshot.NOT_CONFIGURED, ConfigurationSnapshot.EMPTY.getCapacityModel().evaluate(1000).getDatabaseSize());
+		assertNull("Without a file, no sections should be configured", ConfigurationSnapshot.EMPTY.getSummarySectionIds());
+	}
+	
+	private ConfigurationSnapshot shipped() throws Exception {
+		return ConfigurationSnapshot.parse(new String(Files.readAllBytes(Paths.get(getClass().getResource("/config.xml").toURI())), StandardCharsets.UTF_8));
+	}
+	
+}
@@ -0,0 +1,65 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class DetailFetchControllerTests {
+	
+	@Test
+	public void testMissingRecordsAreCounted() throws Exception {
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", exchange -> {
+			String id = exchange.getRequestURI().getPath().replaceAll(".*/", "");
+			byte[] body = ("<policy><id>" + id + "</id></policy>").getBytes();
+			exchange.sendResponseHeaders(id.equals("3") ? 404 : 200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+		
+		try (HTTPController api = new HTTPController("admin", "password")) {
+			DetailFetchController fetcher = new DetailFetchController(api, "http://127.0.0.1:" + server.getAddress().getPort());
+			DetailFetchController.Details<String> details = fetcher.fetchAll("policies", Arrays.asList("1", "2", "3", "4"), root -> root.getChildText("id"));
+			assertEquals("The records that were read should be returned in order", Arrays.asList("1", "2", "4"), details.getResults());
+			assertEquals("The record that failed should be counted", 1, details.getMissing());
+			assertEquals("Nothing should be counted as cancelled", 0, details.getCancelled());
+		} finally {
+			server.stop(0);
+		}
+	}
+	
+}
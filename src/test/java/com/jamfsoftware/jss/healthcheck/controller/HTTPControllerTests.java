@@ -0,0 +1,319 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class HTTPControllerTests {
+	
+	private static final String PASSWORD = "p^a ss%|{}&=";
+	private static final String STUCK = "9999";
+	private static final String STRAGGLER = "8888";
+	private static final byte[] BODY = String.join("\n", Collections.nCopies(200, "<policy><id>1</id><name>Caf\u00e9 \u2013 Check-In</name></policy>")).getBytes(StandardCharsets.UTF_8);
+	
+	private HttpServer server;
+	private String url;
+	private final List<String> cookies = new CopyOnWriteArrayList<>();
+	private final List<String> queries = new CopyOnWriteArrayList<>();
+	private final List<String> acceptedEncodings = new CopyOnWriteArrayList<>();
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final AtomicInteger stragglers = new AtomicInteger();
+	private ExecutorService handlers;
+	
+	@Before
+	public void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		handlers = Executors.newCachedThreadPool();
+		server.setExecutor(handlers);
+		// Answers once the test is over, so every request to it is still in flight while the test runs
+		server.createContext("/slow", exchange -> {
+			try {
+				release.await(30, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			respond(exchange, "[]".getBytes());
+		});
+		// Requests for ID 9999 are never answered in time, and the first request for ID 8888 is not either. The rest
+		// take a steady 20 ms so the concurrency limits of their families are not cut by jitter.
+		server.createContext("/hedge", exchange -> {
+			String id = exchange.getRequestURI().getPath().replaceAll(".*/", "");
+			boolean slow = id.equals(STUCK) || id.equals(STRAGGLER) && stragglers.getAndIncrement() == 0;
+			try {
+				if (slow) {
+					release.await(30, TimeUnit.SECONDS);
+				} else {
+					Thread.sleep(20);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			respond(exchange, id.getBytes());
+		});
+		// Sends BODY with the Content-Encoding named by the last part of the path. "raw" is deflate without the zlib
+		// wrapper, which some servers send.
+		server.createContext("/encoded", exchange -> {
+			acceptedEncodings.add(String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding")));
+			String encoding = exchange.getRequestURI().getPath().replaceAll(".*/", "");
+			ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+			OutputStream out;
+			if (encoding.equals("gzip")) {
+				out = new GZIPOutputStream(encoded);
+			} else if (encoding.equals("deflate")) {
+				out = new DeflaterOutputStream(encoded);
+			} else if (encoding.equals("raw")) {
+				out = new DeflaterOutputStream(encoded, new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+				encoding = "deflate";
+			} else {
+				out = encoded;
+			}
+			try (OutputStream body = out) {
+				body.write(BODY);
+			}
+			exchange.getResponseHeaders().add("Content-Encoding", encoding);
+			respond(exchange, encoded.toByteArray());
+		});
+		server.createContext("/", exchange -> {
+			cookies.add(String.valueOf(exchange.getRequestHeaders().getFirst("Cookie")));
+			queries.add(String.valueOf(exchange.getRequestURI().getRawQuery()));
+			exchange.getResponseHeaders().add("Set-Cookie", "JSESSIONID=node1; Path=/");
+			respond(exchange, "[]".getBytes());
+		});
+		server.start();
+		url = "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+	
+	@After
+	public void stopServer() {
+		release.countDown();
+		server.stop(0);
+		handlers.shutdownNow();
+	}
+	
+	private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+	
+	@Test
+	public void testCookieKeyIgnoresTheQuery() throws Exception {
+		URI key = HTTPController.cookieURI(new URL("https://jss.example.com:8443/summary.html?username=admin&password=" + PASSWORD));
+		assertEquals("The cookie key should hold only the scheme, host, port and path", "https://jss.example.com:8443/summary.html", key.toString());
+	}
+	
+	@Test
+	public void testSessionCookieIsSentWithEncodedCredentials() throws Exception {
+		try (HTTPController api = new HTTPController("admin", PASSWORD)) {
+			String credentials = "username=admin&password=" + HTTPController.encode(PASSWORD);
+			assertEquals("The first page should be answered", "[]", api.doGet(url + "/healthCheck.html?" + credentials));
+			assertEquals("The second page should be answered", "[]", api.doGet(url + "/summary.html?" + credentials));
+		}
+		
+		assertEquals("The first request should not have a session yet", "null", cookies.get(0));
+		assertEquals("The session cookie should be sent back", "JSESSIONID=node1", cookies.get(1));
+		String password = URLDecoder.decode(queries.get(1).replaceFirst(".*password=", ""), "UTF-8");
+		assertEquals("The password should reach the JSS unchanged", PASSWORD, password);
+	}
+	
+	@Test
+	public void testCompressedBodiesAreInflated() throws Exception {
+		for (String encoding : Arrays.asList("gzip", "deflate", "raw")) {
+			try (HTTPController api = new HTTPController("admin", "password")) {
+				ByteBuffer body = api.doGetAsync(url + "/encoded/" + encoding).get(5, TimeUnit.SECONDS);
+				byte[] decoded = Arrays.copyOfRange(body.array(), body.position(), body.limit());
+				assertArrayEquals("The " + encoding + " body should be inflated to the bytes that were sent", BODY, decoded);
+				
+				HTTPMetrics metrics = api.getMetrics();
+				assertEquals("The " + encoding + " response should be counted as compressed", 1, metrics.getCompressedResponses());
+				assertEquals("The uncompressed count should be the size of the " + encoding + " body", BODY.length, metrics.getUncompressedBytes());
+				assertTrue("The wire count should be the smaller " + encoding + " body, was " + metrics.getCompressedBytes(),
+						metrics.getCompressedBytes() > 0 && metrics.getCompressedBytes() < BODY.length / 4);
+			}
+		}
+		assertEquals("Every request should offer gzip and deflate", Collections.nCopies(3, "gzip, deflate"), acceptedEncodings);
+	}
+	
+	@Test
+	public void testIdentityBodyIsCountedOnce() throws Exception {
+		try (HTTPController api = new HTTPController("admin", "password")) {
+			ByteBuffer body = api.doGetAsync(url + "/encoded/identity").get(5, TimeUnit.SECONDS);
+			assertArrayEquals("An identity body should be passed through", BODY, Arrays.copyOfRange(body.array(), body.position(), body.limit()));
+			assertEquals("An identity response should not be counted as compressed", 0, api.getMetrics().getCompressedResponses());
+			assertEquals("An identity body should be the same size on the wire", BODY.length, api.getMetrics().getCompressedBytes());
+			assertEquals("An identity body should be the same size after decoding", BODY.length, api.getMetrics().getUncompressedBytes());
+		}
+	}
+	
+	@Test
+	public void testTextBodyIsExactUTF8() throws Exception {
+		String expected = new String(BODY, StandardCharsets.UTF_8);
+		try (HTTPController api = new HTTPController("admin", "password")) {
+			assertEquals("A plain body should keep its line breaks and characters", expected, api.doGet(url + "/encoded/identity"));
+			assertEquals("A compressed body should keep its line breaks and characters", expected, api.doGet(url + "/encoded/gzip"));
+		}
+	}
+	
+	@Test
+	public void testUnsupportedEncodingFails() throws Exception {
+		RetryPolicy once = new RetryPolicy(1, 0, 0, 5, 30);
+		try (HTTPController api = new HTTPController("admin", "password", 1, RateLimits.UNLIMITED, once, RequestTimeouts.DEFAULT)) {
+			api.doGet(url + "/encoded/br");
+			fail("A body in an encoding that can not be decoded should fail");
+		} catch (IOException e) {
+			assertTrue("The error should name the encoding, was " + e.getMessage(), e.getMessage().contains("'br'"));
+		}
+	}
+	
+	@Test
+	public void testTimeoutsAreNotNegative() {
+		RequestTimeouts timeouts = new RequestTimeouts(-1, 2000);
+		assertEquals("A negative connect timeout should wait forever", 0, timeouts.getConnectMillis());
+		assertEquals("The read timeout should be kept", 2000, timeouts.getReadMillis());
+	}
+	
+	@Test
+	public void testReadTimeoutFailsTheRequest() throws Exception {
+		RetryPolicy once = new RetryPolicy(1, 0, 0, 5, 30);
+		try (HTTPController api = new HTTPController("admin", "password", 1, RateLimits.UNLIMITED, once, new RequestTimeouts(1000, 200))) {
+			long start = System.nanoTime();
+			try {
+				api.doGet(url + "/slow/JSSResource/policies");
+				fail("A request that is not answered in time should fail");
+			} catch (SocketTimeoutException e) {
+				// Expected
+			}
+			long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			assertTrue("The request should give up after its read timeout, took " + millis + " ms", millis < 5000);
+		}
+	}
+	
+	@Test
+	public void testCancelFailsInFlightAndQueuedRequests() throws Exception {
+		try (HTTPController api = new HTTPController("admin", "password", 2)) {
+			List<CompletableFuture<ByteBuffer>> futures = new ArrayList<>();
+			for (int i = 0; i < 6; i++) {
+				futures.add(api.doGetAsync(url + "/slow/JSSResource/policies/id/" + i));
+			}
+			// Two requests are in flight, the rest are queued behind them
+			Thread.sleep(300);
+			
+			api.cancel();
+			assertTrue("The controller should report that it was cancelled", api.isCancelled());
+			for (CompletableFuture<ByteBuffer> future : futures) {
+				try {
+					future.get(5, TimeUnit.SECONDS);
+					fail("A cancelled request should not complete");
+				} catch (ExecutionException e) {
+					assertTrue("A cancelled request should fail with InterruptedIOException, was " + e.getCause(), e.getCause() instanceof InterruptedIOException);
+				}
+			}
+			
+			assertTrue("A request made after cancelling should fail at once", api.doGetAsync(url + "/JSSResource/policies").isCompletedExceptionally());
+			try {
+				api.doGet(url + "/JSSResource/policies");
+				fail("A blocking request made after cancelling should fail");
+			} catch (InterruptedIOException e) {
+				// Expected
+			}
+		}
+	}
+	
+	@Test
+	public void testSlowHedgeDoesNotDelayTheNextHedge() throws Exception {
+		HedgePolicy always = new HedgePolicy(0.95, 1, 5);
+		try (HTTPController api = new HTTPController("admin", "password", 8, RateLimits.UNLIMITED, RetryPolicy.DEFAULT, RequestTimeouts.DEFAULT, always)) {
+			String[] families = { "computers", "mobiledevices", "policies" };
+			for (String family : families) {
+				for (int i = 0; i < 8; i++) {
+					api.doGetAsync(url + "/hedge/JSSResource/" + family + "/id/" + i).get(5, TimeUnit.SECONDS);
+				}
+			}
+			
+			// Both copies of these stay in flight for the rest of the test
+			api.doGetAsync(url + "/hedge/JSSResource/computers/id/" + STUCK);
+			api.doGetAsync(url + "/hedge/JSSResource/mobiledevices/id/" + STUCK);
+			Thread.sleep(500);
+			
+			// The straggler itself is held until the test is over, so only its hedge can answer in time
+			ByteBuffer body = api.doGetAsync(url + "/hedge/JSSResource/policies/id/" + STRAGGLER).get(5, TimeUnit.SECONDS);
+			assertEquals("The hedge of the straggler should answer", STRAGGLER, new String(body.array(), body.position(), body.remaining()));
+			assertEquals("Every slow request should have been hedged", 3, api.getMetrics().getHedges());
+		}
+	}
+	
+	@Test
+	public void testHedgeIsSentWhileTheLimitIsFull() throws Exception {
+		HedgePolicy always = new HedgePolicy(0.95, 1, 5);
+		// One request at a time, so the straggler alone fills the limit of its family
+		try (HTTPController api = new HTTPController("admin", "password", 1, RateLimits.UNLIMITED, RetryPolicy.DEFAULT, RequestTimeouts.DEFAULT, always)) {
+			for (int i = 0; i < 8; i++) {
+				api.doGetAsync(url + "/hedge/JSSResource/policies/id/" + i).get(5, TimeUnit.SECONDS);
+			}
+			
+			ByteBuffer body = api.doGetAsync(url + "/hedge/JSSResource/policies/id/" + STRAGGLER).get(5, TimeUnit.SECONDS);
+			assertEquals("The hedge should answer while the straggler holds the only place", STRAGGLER, new String(body.array(), body.position(), body.remaining()));
+			assertEquals("The straggler should have been hedged", 1, api.getMetrics().getHedges());
+		}
+	}
+	
+}
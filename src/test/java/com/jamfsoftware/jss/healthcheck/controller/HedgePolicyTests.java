@@ -0,0 +1,62 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class HedgePolicyTests {
+	
+	@Test
+	public void testNoDelayUntilEnoughSamples() {
+		HedgePolicy policy = new HedgePolicy(0.95, 0.05, 20);
+		LatencyHistogram latency = new LatencyHistogram();
+		for (int i = 0; i < 19; i++) {
+			latency.record(TimeUnit.MILLISECONDS.toNanos(80));
+		}
+		assertEquals("A family with too few responses should not be hedged", -1, policy.getDelay(latency));
+		assertEquals("A family without responses should not be hedged", -1, policy.getDelay(null));
+		
+		latency.record(TimeUnit.MILLISECONDS.toNanos(80));
+		long delay = policy.getDelay(latency);
+		assertTrue("The delay should be within the bucket of the usual latency, was " + delay, delay >= 50 && delay <= 100);
+	}
+	
+	@Test
+	public void testHedgesAreCapped() {
+		HedgePolicy policy = new HedgePolicy(0.95, 0.05, 20);
+		assertFalse("Nothing should be hedged before enough requests were made", policy.allows(0, 19));
+		assertTrue("One hedge should be allowed for every 20 requests", policy.allows(0, 20));
+		assertFalse("A second hedge should need 40 requests", policy.allows(1, 39));
+		assertTrue("A second hedge should be allowed at 40 requests", policy.allows(1, 40));
+		assertFalse("A disabled policy should never hedge", HedgePolicy.DISABLED.allows(0, 1000000));
+	}
+	
+}
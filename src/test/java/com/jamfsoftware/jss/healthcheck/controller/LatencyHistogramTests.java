@@ -0,0 +1,68 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class LatencyHistogramTests {
+	
+	@Test
+	public void testEmpty() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals("An empty histogram has no percentile", -1, histogram.getPercentile(0.95), 0);
+	}
+	
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < 95; i++) {
+			histogram.record(TimeUnit.MILLISECONDS.toNanos(30));
+		}
+		for (int i = 0; i < 5; i++) {
+			histogram.record(TimeUnit.MILLISECONDS.toNanos(3000));
+		}
+		
+		assertEquals("Every latency should be counted", 100, histogram.getCount());
+		double median = histogram.getPercentile(0.5);
+		assertTrue("The median should be in the 25-50 ms bucket: " + median, median >= 25 && median <= 50);
+		double p99 = histogram.getPercentile(0.99);
+		assertTrue("The 99th percentile should be in the 2.5-5 s bucket: " + p99, p99 >= 2500 && p99 <= 5000);
+		assertEquals("The total should be exact", 95 * 0.03 + 5 * 3, histogram.getTotalSeconds(), 1e-9);
+	}
+	
+	@Test
+	public void testOverflow() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(TimeUnit.MINUTES.toNanos(5));
+		assertEquals("Latencies past the last bound report the last bound", 60000, histogram.getPercentile(1), 0);
+	}
+	
+}
@@ -0,0 +1,95 @@
+package com.jamfsoftware.jss.healthcheck.controller;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TokenBucketTests {
+	
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+	
+	@Test
+	public void testBurstThenRate() {
+		TokenBucket bucket = new TokenBucket(10, 3);
+		long now = System.nanoTime();
+		for (int i = 0; i < 3; i++) {
+			assertEquals("The burst should not wait", 0, bucket.reserve(now));
+		}
+		assertEquals("The next request should wait for one token", SECOND / 10, bucket.reserve(now), 1000);
+		assertEquals("Waiting requests should queue behind each other", 2 * SECOND / 10, bucket.reserve(now), 1000);
+		assertEquals("Tokens should refill at the rate", 0, bucket.reserve(now + SECOND));
+	}
+	
+	@Test
+	public void testUnlimited() {
+		TokenBucket bucket = new TokenBucket(0, 1);
+		long now = System.nanoTime();
+		for (int i = 0; i < 1000; i++) {
+			assertEquals("A rate of zero should never wait", 0, bucket.reserve(now));
+		}
+	}
+	
+	@Test
+	public void testTargets() throws Exception {
+		ConfigurationSnapshot config = ConfigurationSnapshot.parse("<healthcheck><configurations><api><rate_limit>"
+				+ "<rate>20</rate><burst>40</burst><page_rate>0.5</page_rate>"
+				+ "<target><url>https://prod.example.com:8443/</url><rate>5</rate></target>"
+				+ "</rate_limit></api></configurations></healthcheck>");
+		RateLimits limits = config.getRateLimits();
+		
+		RateLimits.Target prod = limits.getTarget("https://PROD.example.com:8443");
+		assertEquals("The target should override the rate", 5, prod.getRate(), 0);
+		assertEquals("The target should keep the other defaults", 40, prod.getBurst(), 0);
+		assertEquals("The page budget should be separate", 0.5, prod.getPageRate(), 0);
+		assertEquals("Other JSSs should use the defaults", 20, limits.getTarget("https://test.example.com:8443").getRate(), 0);
+		assertEquals("Without a rate_limit nothing is limited", 0, ConfigurationSnapshot.EMPTY.getRateLimits().getTarget("https://prod.example.com:8443").getRate(), 0);
+	}
+	
+	@Test
+	public void testTargetsMatchWholeHosts() throws Exception {
+		ConfigurationSnapshot config = ConfigurationSnapshot.parse("<healthcheck><configurations><api><rate_limit>"
+				+ "<rate>20</rate>"
+				+ "<target><url>https://jss.example.com</url><rate>5</rate></target>"
+				+ "<target><url>https://jss.example.com/tenant</url><rate>2</rate></target>"
+				+ "</rate_limit></api></configurations></healthcheck>");
+		RateLimits limits = config.getRateLimits();
+		
+		assertEquals("The target should apply to its own host", 5, limits.getTarget("https://jss.example.com/").getRate(), 0);
+		assertEquals("The default port of the scheme should match a target without one", 5, limits.getTarget("https://jss.example.com:443").getRate(), 0);
+		assertEquals("A longer host should not match", 20, limits.getTarget("https://jss.example.community").getRate(), 0);
+		assertEquals("A host under another domain should not match", 20, limits.getTarget("https://jss.example.com.evil").getRate(), 0);
+		assertEquals("Another port should not match", 20, limits.getTarget("https://jss.example.com:8443").getRate(), 0);
+		assertEquals("Another scheme should not match", 20, limits.getTarget("http://jss.example.com").getRate(), 0);
+		assertEquals("The longest target path should apply", 2, limits.getTarget("https://jss.example.com/tenant/").getRate(), 0);
+		assertEquals("A longer path segment should not match the tenant", 5, limits.getTarget("https://jss.example.com/tenants").getRate(), 0);
+	}
+	
+}
@@ -0,0 +1,88 @@
+package com.jamfsoftware.jss.healthcheck.json;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class JSONDocumentTests {
+	
+	@Test
+	public void testValuesAreEscaped() {
+		JSONDocument document = new JSONDocument("healthcheck");
+		document.addElement("path", "C:\\JSS \"Tomcat\"\n\tlogs\u0001");
+		
+		JsonObject parsed = new JsonParser().parse(document.toString()).getAsJsonObject();
+		assertEquals("The escaped value did not survive a round trip", "C:\\JSS \"Tomcat\"\n\tlogs\u0001",
+				parsed.getAsJsonObject("healthcheck").get("path").getAsString());
+	}
+	
+	@Test
+	public void testWriteToMatchesToString() throws IOException {
+		JSONDocument document = new JSONDocument("healthcheck");
+		document.addElement("jss_url", "https://jss.example.com:8443");
+		JSONArray groups = document.addObject("checkdata").addArray("computergroups");
+		groups.addObject().addElement("name", "Gr\u00fcppe");
+		groups.addObject().addElement("name", "Second");
+		
+		StringWriter writer = new StringWriter();
+		document.writeTo(writer);
+		assertEquals("Writing to a Writer should match toString", document.toString(), writer.toString());
+		
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		document.writeTo(stream);
+		assertEquals("Writing to a stream should produce UTF-8", document.toString(), new String(stream.toByteArray(), StandardCharsets.UTF_8));
+		
+		JsonObject parsed = new JsonParser().parse(writer.toString()).getAsJsonObject();
+		assertEquals("Both array entries should be written", 2,
+				parsed.getAsJsonObject("healthcheck").getAsJsonObject("checkdata").getAsJsonArray("computergroups").size());
+	}
+	
+	@Test
+	public void testMembersAreWrittenInInsertionOrder() {
+		JSONDocument document = new JSONDocument("healthcheck");
+		document.addElement("jss_url", "https://jss.example.com");
+		JSONObject checkdata = document.addObject("checkdata");
+		checkdata.addElement("zeta", 1);
+		checkdata.addArray("groups").addObject().addElement("name", "First");
+		checkdata.addElement("alpha", 2);
+		
+		assertEquals("Members should be written in the order they were added",
+				"{\"healthcheck\":{\"jss_url\":\"https://jss.example.com\",\"checkdata\":{\"zeta\":\"1\",\"groups\":[{\"name\":\"First\"}],\"alpha\":\"2\"}}}",
+				document.toString());
+	}
+	
+}
@@ -0,0 +1,73 @@
+package com.jamfsoftware.jss.healthcheck.monitor;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.jamfsoftware.jss.healthcheck.monitor.SampleBuffer.Samples;
+
+public class DownsamplerTests {
+	
+	@Test
+	public void testKeepsSpikes() {
+		int size = 1000000;
+		long[] times = new long[size];
+		double[] values = new double[size];
+		for (int i = 0; i < size; i++) {
+			times[i] = 1500000000000L + i * 10000L;
+			values[i] = i % 2;
+		}
+		values[123456] = 500;
+		values[876543] = -500;
+		
+		Samples reduced = Downsampler.largestTriangleThreeBuckets(new Samples(times, values, size), 2000);
+		assertEquals("The threshold should be the number of samples kept", 2000, reduced.size());
+		assertEquals("The first sample should be kept", times[0], reduced.getTime(0));
+		assertEquals("The last sample should be kept", times[size - 1], reduced.getTime(1999));
+		
+		double max = Double.NEGATIVE_INFINITY;
+		double min = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < reduced.size(); i++) {
+			max = Math.max(max, reduced.getValue(i));
+			min = Math.min(min, reduced.getValue(i));
+			if (i > 0) {
+				assertTrue("The samples should stay in order", reduced.getTime(i) > reduced.getTime(i - 1));
+			}
+		}
+		assertEquals("A high spike should be kept", 500, max, 0);
+		assertEquals("A low spike should be kept", -500, min, 0);
+	}
+	
+	@Test
+	public void testSmallSeriesUnchanged() {
+		Samples samples = new Samples(new long[] { 1, 2, 3 }, new double[] { 1, 2, 3 }, 3);
+		assertSame("Series within the threshold should not be reduced", samples, Downsampler.largestTriangleThreeBuckets(samples, 10));
+	}
+	
+}
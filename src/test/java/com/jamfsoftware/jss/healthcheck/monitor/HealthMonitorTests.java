@@ -0,0 +1,99 @@
+package com.jamfsoftware.jss.healthcheck.monitor;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.jamfsoftware.jss.healthcheck.monitor.SampleBuffer.Samples;
+
+public class HealthMonitorTests {
+	
+	private static final SampleStore DISCARD = new SampleStore() {
+		
+		@Override
+		public void append(String metric, Samples samples) {
+		}
+		
+		@Override
+		public void close() {
+		}
+		
+	};
+	
+	@Test
+	public void testScheduleAtAsksForEachDelay() throws Exception {
+		HealthMonitor monitor = new HealthMonitor(DISCARD, 10, 1);
+		AtomicInteger asked = new AtomicInteger();
+		CountDownLatch runs = new CountDownLatch(3);
+		try {
+			monitor.scheduleAt("the test task", () -> Duration.ofMillis(asked.incrementAndGet() * 10), m -> {
+				runs.countDown();
+				throw new IllegalStateException("A failed run should not stop the next one");
+			});
+			assertTrue("The task should keep running after each run", runs.await(5, TimeUnit.SECONDS));
+		} finally {
+			monitor.close();
+		}
+		assertTrue("The delay should be asked for before each run", asked.get() >= 3);
+	}
+	
+	@Test
+	public void testRemoveFlushesTheBuffer() {
+		List<String> flushed = new ArrayList<>();
+		SampleStore store = new SampleStore() {
+			
+			@Override
+			public void append(String metric, Samples samples) {
+				flushed.add(metric + " " + samples.size());
+			}
+			
+			@Override
+			public void close() {
+			}
+			
+		};
+		try (HealthMonitor monitor = new HealthMonitor(store, 10, 1)) {
+			monitor.record("table_size_bytes.logs", 2048);
+			long generation = monitor.getGeneration();
+			monitor.remove("table_size_bytes.logs");
+			assertNotEquals("Removing a buffer should change the generation", generation, monitor.getGeneration());
+			assertFalse("The buffer should be removed", monitor.getBuffers().containsKey("table_size_bytes.logs"));
+			assertEquals("The unflushed samples should be written first", Arrays.asList("table_size_bytes.logs 1"), flushed);
+		}
+	}
+	
+}
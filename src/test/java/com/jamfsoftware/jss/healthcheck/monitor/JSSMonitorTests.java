@@ -0,0 +1,76 @@
+package com.jamfsoftware.jss.healthcheck.monitor;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import org.junit.Test;
+
+import com.jamfsoftware.jss.healthcheck.controller.ConfigurationSnapshot;
+
+public class JSSMonitorTests {
+	
+	@Test
+	public void testMetricsListenOnLoopbackByDefault() throws Exception {
+		ConfigurationSnapshot config = ConfigurationSnapshot.parse("<healthcheck><configurations><monitor>"
+				+ "<metrics_port>9464</metrics_port><metrics_bind/>"
+				+ "</monitor></configurations></healthcheck>");
+		InetSocketAddress address = JSSMonitor.getMetricsAddress(config);
+		assertTrue("The exporter should only listen on the loopback address, was " + address, address.getAddress().isLoopbackAddress());
+		assertEquals("The configured port should be used", 9464, address.getPort());
+	}
+	
+	@Test
+	public void testMetricsBindAddress() throws Exception {
+		ConfigurationSnapshot config = ConfigurationSnapshot.parse("<healthcheck><configurations><monitor>"
+				+ "<metrics_port>9464</metrics_port><metrics_bind>0.0.0.0</metrics_bind>"
+				+ "</monitor></configurations></healthcheck>");
+		assertTrue("A configured bind address should be used", JSSMonitor.getMetricsAddress(config).getAddress().isAnyLocalAddress());
+		assertNull("Without a port there should be no exporter", JSSMonitor.getMetricsAddress(ConfigurationSnapshot.EMPTY));
+	}
+	
+	@Test
+	public void testFullCheckKeepsItsTimeAcrossDaylightSaving() {
+		ZoneId zone = ZoneId.of("America/New_York");
+		LocalTime time = LocalTime.of(4, 0);
+		assertEquals("A day that loses an hour should be an hour shorter",
+				Duration.ofHours(23), JSSMonitor.untilNext(time, ZonedDateTime.of(2026, 3, 7, 4, 0, 0, 0, zone)));
+		assertEquals("A day that gains an hour should be an hour longer",
+				Duration.ofHours(25), JSSMonitor.untilNext(time, ZonedDateTime.of(2026, 10, 31, 4, 0, 0, 0, zone)));
+		assertEquals("A time later in the day should be today",
+				Duration.ofHours(3), JSSMonitor.untilNext(time, ZonedDateTime.of(2026, 6, 1, 1, 0, 0, 0, zone)));
+		assertEquals("A run that started a little early should not run again",
+				Duration.ofHours(24).plusSeconds(2), JSSMonitor.untilNext(time, ZonedDateTime.of(2026, 6, 1, 3, 59, 58, 0, zone)));
+	}
+	
+}
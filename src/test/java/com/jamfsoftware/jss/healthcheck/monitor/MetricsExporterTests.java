@@ -0,0 +1,102 @@
+package com.jamfsoftware.jss.healthcheck.monitor;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import com.jamfsoftware.jss.healthcheck.controller.HTTPMetrics;
+import com.jamfsoftware.jss.healthcheck.monitor.SampleBuffer.Samples;
+
+public class MetricsExporterTests {
+	
+	private static final SampleStore DISCARD = new SampleStore() {
+		@Override
+		public void append(String metric, Samples samples) {
+		}
+		
+		@Override
+		public void close() throws IOException {
+		}
+	};
+	
+	@Test
+	public void testRender() {
+		try (HealthMonitor monitor = new HealthMonitor(DISCARD, 10, 1)) {
+			MetricsExporter exporter = new MetricsExporter(monitor, new HTTPMetrics());
+			exporter.label("table_size_bytes", "table");
+			monitor.record("table_size_bytes.logs", 2048);
+			monitor.record("computers", 12);
+			monitor.record("table_size_bytes.applications", 1.5);
+			monitor.record("computers", 15);
+			
+			StringBuilder out = new StringBuilder();
+			exporter.render(out);
+			String text = out.toString();
+			assertTrue("The newest sample should be exported", text.contains("\njss_computers 15\n"));
+			assertTrue("The label should be named", text.contains("jss_table_size_bytes{table=\"logs\"} 2048\n"));
+			assertTrue("Series of a family should follow one TYPE line", text.contains("# TYPE jss_table_size_bytes gauge\n"
+					+ "jss_table_size_bytes{table=\"applications\"} 1.5\njss_table_size_bytes{table=\"logs\"} 2048\n"));
+			assertTrue("The API latency should be exported", text.contains("jss_api_request_duration_seconds_count 0\n"));
+		}
+	}
+	
+	@Test
+	public void testStaleSeriesAreRemoved() {
+		try (HealthMonitor monitor = new HealthMonitor(DISCARD, 10, 1)) {
+			MetricsExporter exporter = new MetricsExporter(monitor, new HTTPMetrics());
+			exporter.label("table_size_bytes", "table");
+			monitor.record("table_size_bytes.logs", 2048);
+			monitor.record("table_size_bytes.applications", 1024);
+			exporter.render(new StringBuilder());
+			
+			// A night where applications is no longer large and another table is, so the number of series is the same
+			monitor.record("table_size_bytes.logs", 4096);
+			monitor.record("table_size_bytes.computers", 512);
+			JSSMonitor.removeStale(monitor, "table_size_bytes.", new HashSet<>(Arrays.asList("logs", "computers")));
+			
+			StringBuilder out = new StringBuilder();
+			exporter.render(out);
+			String text = out.toString();
+			assertFalse("A table that is no longer large should not be exported", text.contains("table=\"applications\""));
+			assertTrue("A new table should be exported", text.contains("jss_table_size_bytes{table=\"computers\"} 512\n"));
+			assertTrue("A refreshed table should be exported", text.contains("jss_table_size_bytes{table=\"logs\"} 4096\n"));
+		}
+	}
+	
+	@Test
+	public void testSanitize() {
+		assertEquals("Invalid characters should be replaced", "check_duration_api_1", MetricsExporter.sanitize("check-duration api.1"));
+		assertEquals("A name can not start with a digit", "_xx", MetricsExporter.sanitize("5xx"));
+	}
+	
+}
@@ -0,0 +1,79 @@
+package com.jamfsoftware.jss.healthcheck.monitor;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.jamfsoftware.jss.healthcheck.monitor.SampleBuffer.Samples;
+
+public class SampleBufferTests {
+	
+	@Test
+	public void testLatestWraps() {
+		SampleBuffer buffer = new SampleBuffer(3);
+		for (int i = 1; i <= 5; i++) {
+			buffer.add(i, i * 10);
+		}
+		Samples latest = buffer.latest();
+		assertEquals("Only the capacity should be kept", 3, latest.size());
+		assertEquals("The oldest kept sample should be first", 3, latest.getTime(0));
+		assertEquals("The newest sample should be last", 50, latest.getValue(2), 0);
+	}
+	
+	@Test
+	public void testFlushInBatches() {
+		SampleBuffer buffer = new SampleBuffer(4);
+		buffer.add(1, 1);
+		buffer.add(2, 2);
+		Samples batch = buffer.unflushed();
+		assertEquals("Every new sample should be in the batch", 2, batch.size());
+		
+		buffer.add(3, 3);
+		assertEquals("A batch that was not marked flushed should be returned again", 3, buffer.unflushed().size());
+		
+		buffer.markFlushed(batch);
+		Samples next = buffer.unflushed();
+		assertEquals("Flushed samples should not be returned again", 1, next.size());
+		assertEquals("The new sample should follow the flushed ones", 3, next.getTime(0));
+	}
+	
+	@Test
+	public void testDroppedSamples() {
+		SampleBuffer buffer = new SampleBuffer(2);
+		for (int i = 1; i <= 5; i++) {
+			buffer.add(i, i);
+		}
+		Samples batch = buffer.unflushed();
+		assertEquals("Only the samples still in the buffer can be flushed", 2, batch.size());
+		assertEquals("Overwritten samples should be counted as dropped", 3, buffer.getDropped());
+		buffer.markFlushed(batch);
+		assertEquals("Nothing should be left to flush", 0, buffer.unflushed().size());
+	}
+	
+}
@@ -0,0 +1,102 @@
+package com.jamfsoftware.jss.healthcheck.monitor;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.jamfsoftware.jss.healthcheck.monitor.SampleBuffer.Samples;
+
+public class SegmentSampleStoreTests {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void testRangeAcrossSegments() throws IOException {
+		try (SegmentSampleStore store = new SegmentSampleStore(folder.getRoot().toPath(), 4)) {
+			store.append("metric", samples(10, 20, 30, 40, 50, 60, 70, 80, 90, 100));
+			
+			Samples range = store.read("metric", 35, 75);
+			assertEquals("Only samples in the range should be read", 4, range.size());
+			assertEquals("The range should start at the first sample in it", 40, range.getTime(0));
+			assertEquals("The range should end at the last sample in it", 70, range.getTime(3));
+			assertEquals("Values should be stored with their times", 7, range.getValue(3), 0);
+			
+			assertEquals("The bounds of the range should be included", 3, store.read("metric", 40, 60).size());
+			assertEquals("Every sample should be read", 10, store.read("metric", Long.MIN_VALUE, Long.MAX_VALUE).size());
+			assertEquals("A range before the first sample should be empty", 0, store.read("metric", 0, 5).size());
+			assertEquals("An unknown metric should be empty", 0, store.read("other", 0, 100).size());
+		}
+	}
+	
+	@Test
+	public void testReopen() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		try (SegmentSampleStore store = new SegmentSampleStore(directory, 4)) {
+			store.append("metric", samples(10, 20, 30, 40, 50, 60));
+		}
+		
+		try (SegmentSampleStore store = new SegmentSampleStore(directory, 4)) {
+			assertEquals("Samples should be read back after reopening", 6, store.read("metric", 0, 100).size());
+			store.append("metric", samples(70, 80, 90));
+			Samples all = store.read("metric", 0, 100);
+			assertEquals("New samples should be appended to the existing segments", 9, all.size());
+			assertEquals("New samples should follow the existing ones", 90, all.getTime(8));
+			assertTrue("The metric should be listed", store.getMetrics().contains("metric"));
+		}
+	}
+	
+	@Test
+	public void testTimesStayOrdered() throws IOException {
+		try (SegmentSampleStore store = new SegmentSampleStore(folder.getRoot().toPath(), 2)) {
+			store.append("metric", samples(10, 30, 20, 30, 30, 30));
+			Samples all = store.read("metric", 0, 100);
+			assertEquals("Every sample should be kept", 6, all.size());
+			assertEquals("An older sample should take the time of the one before it", 30, all.getTime(2));
+			assertEquals("Segments starting in the same millisecond should all be read", 5, store.read("metric", 30, 30).size());
+		}
+	}
+	
+	/**
+	 * @return samples at the given times, with the time divided by ten as the value
+	 */
+	private static Samples samples(long... times) {
+		double[] values = new double[times.length];
+		for (int i = 0; i < times.length; i++) {
+			values[i] = times[i] / 10.0;
+		}
+		return new Samples(times, values, times.length);
+	}
+	
+}
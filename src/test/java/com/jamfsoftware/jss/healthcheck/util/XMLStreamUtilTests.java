@@ -0,0 +1,64 @@
+package com.jamfsoftware.jss.healthcheck.util;
+
+/*-
+ * #%L
+ * HealthCheckUtility
+ * %%
+ * Copyright (C) 2015 - 2016 JAMF Software, LLC
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class XMLStreamUtilTests {
+	
+	@Test
+	public void testCountUsesSizeElement() throws IOException {
+		assertEquals("The size element should be used as the count", 3,
+				XMLStreamUtil.countListEntries(xml("<computers><size>3</size><computer><id>1</id></computer></computers>")));
+	}
+	
+	@Test
+	public void testCountStopsAtSizeElement() throws IOException {
+		assertEquals("Content after the size element should not be read", 2,
+				XMLStreamUtil.countListEntries(xml("<computers><size>2</size><computer><unclosed>")));
+	}
+	
+	@Test
+	public void testCountWithoutSizeElement() throws IOException {
+		assertEquals("Only direct children of the root should be counted", 2,
+				XMLStreamUtil.countListEntries(xml("<commands><command><id>1</id></command><command><id>2</id></command></commands>")));
+		assertEquals("An empty list should count as zero", 0,
+				XMLStreamUtil.countListEntries(xml("<commands/>")));
+	}
+	
+	private static InputStream xml(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+	
+}